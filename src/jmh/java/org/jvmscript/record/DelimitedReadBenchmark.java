@@ -0,0 +1,64 @@
+package org.jvmscript.record;
+
+import org.jvmscript.record.RecordBenchmarkData.TradeRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Rows per second reading the synthetic trade file, run with -prof gc (the jmh default in build.gradle) for allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RecordBenchmarkData.ROWS)
+public class DelimitedReadBenchmark {
+
+    private DelimitedRecordFactory recordFactory;
+    private Path delimitedFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        recordFactory = new DelimitedRecordFactory();
+        delimitedFile = Files.createTempFile("delimited-benchmark", ".csv");
+        RecordBenchmarkData.writeDelimitedFile(delimitedFile, RecordBenchmarkData.ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(delimitedFile);
+    }
+
+    @Benchmark
+    public List<TradeRecord> readByPosition() throws Exception {
+        return recordFactory.getRecordListByPositionFromFile(delimitedFile.toString(), TradeRecord.class);
+    }
+
+    @Benchmark
+    public long forEachByPosition(Blackhole blackhole) {
+        return recordFactory.forEachRecordByPositionFromFile(delimitedFile.toString(), TradeRecord.class, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<TradeRecord> readByPositionParallel() throws Exception {
+        return recordFactory.getRecordListByPositionFromFileParallel(delimitedFile.toString(), TradeRecord.class);
+    }
+
+    @Benchmark
+    public List<TradeRecord> readByHeaderName() throws Exception {
+        return recordFactory.getRecordListByHeaderNameFromFile(delimitedFile.toString(), TradeRecord.class);
+    }
+}
@@ -0,0 +1,51 @@
+package org.jvmscript.record;
+
+import org.jvmscript.record.RecordBenchmarkData.FixedWidthTradeRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RecordBenchmarkData.ROWS)
+public class FixedWidthReadBenchmark {
+
+    private FixedWidthRecordFactory recordFactory;
+    private Path fixedWidthFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        recordFactory = new FixedWidthRecordFactory();
+        fixedWidthFile = Files.createTempFile("fixed-width-benchmark", ".txt");
+        RecordBenchmarkData.writeFixedWidthFile(fixedWidthFile, RecordBenchmarkData.ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(fixedWidthFile);
+    }
+
+    @Benchmark
+    public List<FixedWidthTradeRecord> readLines() throws Exception {
+        return recordFactory.getBeanListFromFixedWidthFile(fixedWidthFile.toString(), FixedWidthTradeRecord.class);
+    }
+
+    @Benchmark
+    public long forEachMapped(Blackhole blackhole) throws Exception {
+        return recordFactory.forEachBeanFromFixedWidthFile(fixedWidthFile.toString(), FixedWidthTradeRecord.class, blackhole::consume);
+    }
+}
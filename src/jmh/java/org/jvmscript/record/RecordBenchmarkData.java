@@ -0,0 +1,210 @@
+package org.jvmscript.record;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+/*
+ * Synthetic trade files shared by the record benchmarks, generated from a fixed seed so every run reads the same bytes.
+ * Rows are wide (20 columns) with money columns in the formats cleanNumberString has to deal with
+ * ("1,234.56", "$12.00", "25.00-"), dates and quoted fields containing the delimiter.
+ */
+final class RecordBenchmarkData {
+
+    static final int ROWS = 100_000;
+
+    private static final long SEED = 20240102L;
+    private static final LocalDate BASE_DATE = LocalDate.of(2020, 1, 1);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "IBM", "ORCL", "GOOG", "AMZN", "T", "KO", "PFE", "XOM"};
+    private static final String[] DESCRIPTIONS = {"BUY TO OPEN", "SELL, SHORT", "DIVIDEND \"CASH\"", "JOURNAL", "FEE, WIRE"};
+
+    public static class TradeRecord {
+        @DataField(id = 0, name = "account")                                public String account;
+        @DataField(id = 1, name = "symbol")                                 public String symbol;
+        @DataField(id = 2, name = "cusip")                                  public String cusip;
+        @DataField(id = 3, name = "description")                            public String description;
+        @DataField(id = 4, name = "tradeDate")                              public LocalDate tradeDate;
+        @DataField(id = 5, name = "settleDate")                             public LocalDate settleDate;
+        @DataField(id = 6, name = "quantity")                               public Long quantity;
+        @DataField(id = 7, name = "price")                                  public BigDecimal price;
+        @DataField(id = 8, name = "principal")                              public BigDecimal principal;
+        @DataField(id = 9, name = "commission")                             public BigDecimal commission;
+        @DataField(id = 10, name = "fees")                                  public BigDecimal fees;
+        @DataField(id = 11, name = "netAmount")                             public BigDecimal netAmount;
+        @DataField(id = 12, name = "accruedInterest")                       public Double accruedInterest;
+        @DataField(id = 13, name = "lots")                                  public int lots;
+        @DataField(id = 14, name = "sequence")                              public long sequence;
+        @DataField(id = 15, name = "branch")                                public String branch;
+        @DataField(id = 16, name = "representative")                        public String representative;
+        @DataField(id = 17, name = "currency")                              public String currency;
+        @DataField(id = 18, name = "exchangeRate")                          public double exchangeRate;
+        @DataField(id = 19, name = "comment")                               public String comment;
+    }
+
+    /* the reader takes start as a zero based offset, column 0 holds the record type so the layout also suits the writer */
+    public static class FixedWidthTradeRecord {
+        @FixedWidthField(name = "account", start = 1, length = 10)                              public String account;
+        @FixedWidthField(name = "symbol", start = 11, length = 6)                               public String symbol;
+        @FixedWidthField(name = "tradeDate", start = 17, length = 8)                            public LocalDate tradeDate;
+        @FixedWidthField(name = "settleDate", start = 25, length = 8)                           public LocalDate settleDate;
+        @FixedWidthField(name = "quantity", start = 33, length = 10)                            public Long quantity;
+        @FixedWidthField(name = "price", start = 43, length = 12, scale = 4)                    public BigDecimal price;
+        @FixedWidthField(name = "netAmount", start = 55, length = 14, scale = 2)                public BigDecimal netAmount;
+        @FixedWidthField(name = "lots", start = 69, length = 6)                                 public Integer lots;
+        @FixedWidthField(name = "branch", start = 75, length = 4)                               public String branch;
+        @FixedWidthField(name = "comment", start = 79, length = 30)                             public String comment;
+    }
+
+    private RecordBenchmarkData() {
+    }
+
+    static ArrayList<TradeRecord> tradeRecords(int rows) {
+        Random random = new Random(SEED);
+        ArrayList<TradeRecord> records = new ArrayList<>(rows);
+
+        for (int row = 0; row < rows; row++) {
+            TradeRecord record = new TradeRecord();
+            record.account = account(row);
+            record.symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            record.cusip = String.format("%09d", random.nextInt(1_000_000_000));
+            record.description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+            record.tradeDate = BASE_DATE.plusDays(random.nextInt(1500));
+            record.settleDate = record.tradeDate.plusDays(2);
+            record.quantity = (long) random.nextInt(100_000) - 50_000;
+            record.price = BigDecimal.valueOf(random.nextInt(10_000_000), 4);
+            record.principal = record.price.multiply(BigDecimal.valueOf(record.quantity)).setScale(2, BigDecimal.ROUND_HALF_UP);
+            record.commission = BigDecimal.valueOf(random.nextInt(10_000), 2);
+            record.fees = BigDecimal.valueOf(random.nextInt(500), 2);
+            record.netAmount = record.principal.subtract(record.commission).subtract(record.fees);
+            record.accruedInterest = random.nextInt(100_000) / 100.0;
+            record.lots = random.nextInt(100);
+            record.sequence = row;
+            record.branch = "B" + random.nextInt(100);
+            record.representative = "REP" + random.nextInt(1000);
+            record.currency = "USD";
+            record.exchangeRate = 1;
+            record.comment = random.nextBoolean() ? "" : "settled, no exceptions";
+            records.add(record);
+        }
+        return records;
+    }
+
+    static ArrayList<FixedWidthTradeRecord> fixedWidthTradeRecords(int rows) {
+        ArrayList<FixedWidthTradeRecord> records = new ArrayList<>(rows);
+
+        for (TradeRecord tradeRecord : tradeRecords(rows)) {
+            FixedWidthTradeRecord record = new FixedWidthTradeRecord();
+            record.account = tradeRecord.account;
+            record.symbol = tradeRecord.symbol;
+            record.tradeDate = tradeRecord.tradeDate;
+            record.settleDate = tradeRecord.settleDate;
+            record.quantity = Math.abs(tradeRecord.quantity);
+            record.price = tradeRecord.price;
+            record.netAmount = tradeRecord.netAmount.abs();
+            record.lots = tradeRecord.lots;
+            record.branch = tradeRecord.branch;
+            record.comment = tradeRecord.comment;
+            records.add(record);
+        }
+        return records;
+    }
+
+    /* money columns are written the way upstream systems send them rather than the way RecordWriter would */
+    static void writeDelimitedFile(Path path, int rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", RecordFactory.getDataFields(TradeRecord.class)));
+            writer.write("\r\n");
+
+            for (TradeRecord record : tradeRecords(rows)) {
+                writer.write(record.account);
+                writer.write(',');
+                writer.write(record.symbol);
+                writer.write(',');
+                writer.write(record.cusip);
+                writer.write(',');
+                writer.write(quote(record.description));
+                writer.write(',');
+                writer.write(DATE_FORMAT.format(record.tradeDate));
+                writer.write(',');
+                writer.write(DATE_FORMAT.format(record.settleDate));
+                writer.write(',');
+                writer.write(record.quantity.toString());
+                writer.write(',');
+                writer.write(record.price.toPlainString());
+                writer.write(',');
+                writer.write(quote(money(record.principal)));
+                writer.write(',');
+                writer.write("$" + record.commission.toPlainString());
+                writer.write(',');
+                writer.write(record.fees.toPlainString());
+                writer.write(',');
+                writer.write(quote(money(record.netAmount)));
+                writer.write(',');
+                writer.write(record.accruedInterest.toString());
+                writer.write(',');
+                writer.write(Integer.toString(record.lots));
+                writer.write(',');
+                writer.write(Long.toString(record.sequence));
+                writer.write(',');
+                writer.write(record.branch);
+                writer.write(',');
+                writer.write(record.representative);
+                writer.write(',');
+                writer.write(record.currency);
+                writer.write(',');
+                writer.write("1.0");
+                writer.write(',');
+                writer.write(quote(record.comment));
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    static void writeFixedWidthFile(Path path, int rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1)) {
+            writer.write("H" + DATE_FORMAT.format(BASE_DATE));
+            writer.write("\r\n");
+
+            for (FixedWidthTradeRecord record : fixedWidthTradeRecords(rows)) {
+                writer.write(String.format("D%-10s%-6s%8s%8s%010d%012d%014d%06d%-4s%-30s",
+                        record.account,
+                        record.symbol,
+                        DATE_FORMAT.format(record.tradeDate),
+                        DATE_FORMAT.format(record.settleDate),
+                        record.quantity,
+                        record.price.unscaledValue().longValue(),
+                        record.netAmount.movePointRight(2).longValue(),
+                        record.lots,
+                        record.branch,
+                        record.comment));
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    private static String account(int row) {
+        return "ACCT" + (100000 + row % 5000);
+    }
+
+    /* negative amounts use the trailing sign, thousands are grouped */
+    private static String money(BigDecimal amount) {
+        String formatted = String.format(Locale.US, "%,.2f", amount.abs());
+        return amount.signum() < 0 ? formatted + "-" : formatted;
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
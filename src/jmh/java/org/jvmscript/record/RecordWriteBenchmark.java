@@ -0,0 +1,64 @@
+package org.jvmscript.record;
+
+import org.jvmscript.record.RecordBenchmarkData.FixedWidthTradeRecord;
+import org.jvmscript.record.RecordBenchmarkData.TradeRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Rows per second writing beans that are already in memory, the beans are built once per trial so only the writers are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RecordBenchmarkData.ROWS)
+public class RecordWriteBenchmark {
+
+    private DelimitedRecordFactory delimitedRecordFactory;
+    private FixedWidthRecordFactory fixedWidthRecordFactory;
+    private ArrayList<TradeRecord> tradeRecords;
+    private ArrayList<FixedWidthTradeRecord> fixedWidthTradeRecords;
+    private Path outputFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        delimitedRecordFactory = new DelimitedRecordFactory();
+        fixedWidthRecordFactory = new FixedWidthRecordFactory();
+        tradeRecords = RecordBenchmarkData.tradeRecords(RecordBenchmarkData.ROWS);
+        fixedWidthTradeRecords = RecordBenchmarkData.fixedWidthTradeRecords(RecordBenchmarkData.ROWS);
+        outputFile = Files.createTempFile("write-benchmark", ".out");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(outputFile);
+    }
+
+    @Benchmark
+    public void writeRecordList() throws Exception {
+        delimitedRecordFactory.writeRecordListToDelimitedFile(outputFile.toString(), tradeRecords);
+    }
+
+    @Benchmark
+    public long writeRecordStream() throws Exception {
+        return delimitedRecordFactory.writeRecordStreamToDelimitedFile(outputFile.toString(), TradeRecord.class, tradeRecords.stream());
+    }
+
+    @Benchmark
+    public void writeFixedWidthList() throws Exception {
+        fixedWidthRecordFactory.writeFixedWidthBeanListToFile(outputFile.toString(), fixedWidthTradeRecords);
+    }
+}
@@ -0,0 +1,70 @@
+package org.jvmscript.record;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reusable CharSequence view over a range of a ByteBuffer, one byte per char.
+ * Only valid for single byte data, toString decodes with the file charset when the range is not plain ASCII.
+ */
+final class ByteSlice implements CharSequence {
+
+    private final Charset charset;
+    private ByteBuffer buffer;
+    private int start;
+    private int length;
+
+    ByteSlice(Charset charset) {
+        this.charset = charset;
+    }
+
+    ByteSlice set(ByteBuffer buffer, int start, int length) {
+        this.buffer = buffer;
+        this.start = start;
+        this.length = length;
+        return this;
+    }
+
+    ByteSlice trim() {
+        while (length > 0 && (buffer.get(start) & 0xff) <= ' ') {
+            start++;
+            length--;
+        }
+        while (length > 0 && (buffer.get(start + length - 1) & 0xff) <= ' ') {
+            length--;
+        }
+        return this;
+    }
+
+    boolean isAscii() {
+        for (int index = start; index < start + length; index++) {
+            if (buffer.get(index) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(start + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().substring(from, to);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, isAscii() ? StandardCharsets.ISO_8859_1 : charset);
+    }
+}
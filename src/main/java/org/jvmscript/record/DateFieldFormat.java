@@ -0,0 +1,157 @@
+package org.jvmscript.record;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Compiled form of a dateFormat annotation value, shared by every field that uses the same pattern.
+ * Patterns made only of yyyy, MM, dd and single character separators (yyyyMMdd, yyyy-MM-dd, MM/dd/yyyy ...)
+ * are parsed and formatted digit by digit, anything the fast path does not accept falls back to java.time
+ * so results and exceptions are the same as before.
+ */
+final class DateFieldFormat {
+
+    private static final ConcurrentHashMap<String, DateFieldFormat> formatsByPattern = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, DateFieldFormat> caseSensitiveFormatsByPattern = new ConcurrentHashMap<>();
+
+    final String pattern;
+    final DateTimeFormatter parser;
+    final DateTimeFormatter formatter;
+
+    private final int yearPosition;
+    private final int monthPosition;
+    private final int dayPosition;
+
+    private DateFieldFormat(String pattern, boolean caseInsensitive) {
+        this.pattern = pattern;
+        this.formatter = DateTimeFormatter.ofPattern(pattern);
+        this.parser = caseInsensitive ? new DateTimeFormatterBuilder().parseCaseInsensitive()
+                                                                      .appendPattern(pattern)
+                                                                      .toFormatter(Locale.ENGLISH)
+                                      : formatter;
+
+        int year = -1, month = -1, day = -1;
+        boolean simple = true;
+
+        for (int position = 0; position < pattern.length() && simple; ) {
+            if (pattern.startsWith("yyyy", position) && year < 0) {
+                year = position;
+                position += 4;
+            }
+            else if (pattern.startsWith("MM", position) && month < 0) {
+                month = position;
+                position += 2;
+            }
+            else if (pattern.startsWith("dd", position) && day < 0) {
+                day = position;
+                position += 2;
+            }
+            else if (isSeparator(pattern.charAt(position))) {
+                position++;
+            }
+            else {
+                simple = false;
+            }
+        }
+
+        simple = simple && year >= 0 && month >= 0 && day >= 0;
+
+        yearPosition = simple ? year : -1;
+        monthPosition = simple ? month : -1;
+        dayPosition = simple ? day : -1;
+    }
+
+    /* LocalDate text is matched case insensitive in English, the way delimited and excel fields are parsed */
+    static DateFieldFormat of(String pattern) {
+        return formatsByPattern.computeIfAbsent(pattern, key -> new DateFieldFormat(key, true));
+    }
+
+    /* LocalDate text is matched exactly in the default locale, the way fixed width fields are parsed */
+    static DateFieldFormat ofCaseSensitive(String pattern) {
+        return caseSensitiveFormatsByPattern.computeIfAbsent(pattern, key -> new DateFieldFormat(key, false));
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '-' || c == '/' || c == '.' || c == ' ';
+    }
+
+    boolean isFastPath() {
+        return yearPosition >= 0;
+    }
+
+    LocalDate parseLocalDate(CharSequence text) {
+        if (isFastPath() && text.length() == pattern.length()) {
+            LocalDate localDate = parseDigits(text);
+            if (localDate != null) {
+                return localDate;
+            }
+        }
+        return LocalDate.parse(text, parser);
+    }
+
+    LocalDateTime parseLocalDateTime(CharSequence text) {
+        return LocalDateTime.parse(text, formatter);
+    }
+
+    private LocalDate parseDigits(CharSequence text) {
+        int year = digits(text, yearPosition, 4);
+        int month = digits(text, monthPosition, 2);
+        int day = digits(text, dayPosition, 2);
+
+        if (year < 1 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+
+        for (int position = 0; position < pattern.length(); position++) {
+            char c = pattern.charAt(position);
+            if (isSeparator(c) && text.charAt(position) != c) {
+                return null;
+            }
+        }
+
+        LocalDate firstOfMonth = LocalDate.of(year, month, 1);
+        if (day > firstOfMonth.lengthOfMonth()) {
+            return null;
+        }
+        return firstOfMonth.withDayOfMonth(day);
+    }
+
+    private static int digits(CharSequence text, int position, int count) {
+        int value = 0;
+        for (int index = position; index < position + count; index++) {
+            int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    String format(TemporalAccessor temporal) {
+        LocalDate localDate = null;
+        if (temporal instanceof LocalDate) localDate = (LocalDate) temporal;
+        else if (temporal instanceof LocalDateTime) localDate = ((LocalDateTime) temporal).toLocalDate();
+
+        if (localDate != null && isFastPath() && localDate.getYear() >= 1 && localDate.getYear() <= 9999) {
+            char[] chars = pattern.toCharArray();
+            putDigits(chars, yearPosition, 4, localDate.getYear());
+            putDigits(chars, monthPosition, 2, localDate.getMonthValue());
+            putDigits(chars, dayPosition, 2, localDate.getDayOfMonth());
+            return new String(chars);
+        }
+        return formatter.format(temporal);
+    }
+
+    private static void putDigits(char[] chars, int position, int count, int value) {
+        for (int index = position + count - 1; index >= position; index--) {
+            chars[index] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.jvmscript.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Splits a delimited file into byte ranges that start and end on record boundaries.
+ * A single sequential pass tracks quote state so a line break inside a quoted field never becomes a split point,
+ * header and trailer records are located in the same pass and excluded from the ranges.
+ */
+class DelimitedFileChunker {
+
+    static class Chunk {
+        final long start;
+        final long end;
+        final int firstRecord;
+
+        Chunk(long start, long end, int firstRecord) {
+            this.start = start;
+            this.end = end;
+            this.firstRecord = firstRecord;
+        }
+
+        long length() {
+            return end - start;
+        }
+    }
+
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+    private final byte delimiter;
+    private final byte quote;
+    private final byte quoteEscape;
+
+    DelimitedFileChunker(char delimiter, char quote, char quoteEscape) {
+        this.delimiter = (byte) delimiter;
+        this.quote = (byte) quote;
+        this.quoteEscape = (byte) quoteEscape;
+    }
+
+    List<Chunk> split(Path path, int headerRows, int trailerRows, long chunkSize) throws IOException {
+        ArrayList<Long> recordStarts = new ArrayList<>();
+        ArrayList<Integer> recordNumbers = new ArrayList<>();
+        long[] trailerStarts = new long[trailerRows + 1];
+
+        long fileSize;
+        long dataStart = -1;
+        long nextSplit = 0;
+        int recordCount = 0;
+
+        boolean inQuotes = false;
+        boolean quoteClosed = false;
+        boolean fieldStart = true;
+        boolean lineStart = true;
+        boolean skipNext = false;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_SIZE);
+            long offset = 0;
+
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    long position = offset++;
+
+                    if (skipNext) {
+                        skipNext = false;
+                        continue;
+                    }
+
+                    if (!inQuotes && (b == '\n' || b == '\r')) {
+                        lineStart = true;
+                        fieldStart = true;
+                        quoteClosed = false;
+                        continue;
+                    }
+
+                    if (lineStart) {
+                        lineStart = false;
+                        if (recordCount == headerRows) {
+                            dataStart = position;
+                        }
+                        if (recordCount >= headerRows && position >= nextSplit) {
+                            recordStarts.add(position);
+                            recordNumbers.add(recordCount);
+                            nextSplit = position + chunkSize;
+                        }
+                        trailerStarts[recordCount % trailerStarts.length] = position;
+                        recordCount++;
+                    }
+
+                    if (inQuotes) {
+                        if (b == quoteEscape && quoteEscape != quote) {
+                            skipNext = true;
+                        }
+                        else if (b == quote) {
+                            inQuotes = false;
+                            quoteClosed = true;
+                        }
+                    }
+                    else if (b == quote && (fieldStart || quoteClosed)) {
+                        inQuotes = true;
+                        quoteClosed = false;
+                        fieldStart = false;
+                    }
+                    else if (b == delimiter) {
+                        fieldStart = true;
+                        quoteClosed = false;
+                    }
+                    else if (b != ' ' && b != '\t') {
+                        fieldStart = false;
+                        quoteClosed = false;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+
+        ArrayList<Chunk> chunks = new ArrayList<>();
+        int dataRecords = recordCount - headerRows - trailerRows;
+        if (dataStart < 0 || dataRecords <= 0) {
+            return chunks;
+        }
+
+        long dataEnd = trailerRows == 0 ? fileSize : trailerStarts[(recordCount - trailerRows) % trailerStarts.length];
+
+        for (int index = 0; index < recordStarts.size(); index++) {
+            long start = recordStarts.get(index);
+            if (start >= dataEnd) {
+                break;
+            }
+            long end = index + 1 < recordStarts.size() ? Math.min(recordStarts.get(index + 1), dataEnd) : dataEnd;
+            chunks.add(new Chunk(start, end, recordNumbers.get(index)));
+        }
+        return chunks;
+    }
+}
@@ -1,7 +1,9 @@
 package org.jvmscript.record;
 
+import com.univocity.parsers.csv.CsvFormat;
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jvmscript.file.FileUtility;
@@ -9,19 +11,25 @@ import org.jvmscript.file.FileUtility;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.sql.Timestamp;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DelimitedRecordFactory extends RecordFactory {
 
@@ -33,62 +41,282 @@ public class DelimitedRecordFactory extends RecordFactory {
 
     public boolean roundDecimals = false;
 
-    protected static TreeMap<String, TreeMap> IdCachedFieldsByClassMap = new TreeMap<String, TreeMap>();
-    protected static TreeMap<String, TreeMap> NameCachedFieldsByClassMap = new TreeMap<String, TreeMap>();
+    public int parallelism = Runtime.getRuntime().availableProcessors();
+    public boolean preserveOrder = true;
+    public long parallelChunkSize = 0;
 
-    public <T> ArrayList<T> getRecordListByPositionFromFile(String filename, Class<T> beanClass) throws Exception {
-        TreeMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+    private static final long MIN_PARALLEL_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_PARALLEL_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int ESTIMATE_SAMPLE_SIZE = 64 * 1024;
+    private static final int MAX_ESTIMATED_RECORDS = 1 << 30;
 
+    public <T> ArrayList<T> getRecordListByPositionFromFile(String filename, Class<T> beanClass) throws Exception {
         ArrayList<T> beans = new ArrayList<T>();
         if (!FileUtility.fileExists(filename)) {
             return beans;
         }
 
-        List<String[]> lines = parseFileToList(filename);
-
         long startTime = System.currentTimeMillis();
-        for (int lineCnt = headerRows; lineCnt < lines.size()-trailerRows; lineCnt++) {
-            T bean = beanClass.newInstance();
+        try (DelimitedRecordIterator<T> iterator = openRecordIteratorByPosition(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                beans.add(iterator.next());
+            }
+        }
+        logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
+        return beans;
+    }
 
-            String[] currentLine = lines.get(lineCnt);
-            int fieldsToProcess = Math.min(idDataFieldIdMap.size(), currentLine.length);
+    public <T> DelimitedRecordIterator<T> openRecordIteratorByPosition(String filename, Class<T> beanClass) {
+        return new DelimitedRecordIterator<T>(this, filename, beanClass);
+    }
 
-            for (var beanField : idDataFieldIdMap.values()) {
-                if (beanField.dataField.id() < currentLine.length) {
+    public <T> Stream<T> streamRecordsByPositionFromFile(String filename, Class<T> beanClass) {
+        if (!FileUtility.fileExists(filename)) {
+            return Stream.empty();
+        }
+
+        DelimitedRecordIterator<T> iterator = openRecordIteratorByPosition(filename, beanClass);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    public <T> long forEachRecordByPositionFromFile(String filename, Class<T> beanClass, Consumer<? super T> consumer) {
+        long recordCount = 0;
+        if (!FileUtility.fileExists(filename)) {
+            return recordCount;
+        }
+
+        try (DelimitedRecordIterator<T> iterator = openRecordIteratorByPosition(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                recordCount++;
+            }
+        }
+        return recordCount;
+    }
+
+    /* headerNameRow must be one of the headerRows, the columns are matched to fields once when the iterator is opened */
+    public <T> DelimitedRecordIterator<T> openRecordIteratorByHeaderName(String filename, Class<T> beanClass) {
+        return new DelimitedRecordIterator<T>(this, filename, beanClass, true);
+    }
+
+    public <T> long forEachRecordByHeaderNameFromFile(String filename, Class<T> beanClass, Consumer<? super T> consumer) {
+        long recordCount = 0;
+        if (!FileUtility.fileExists(filename)) {
+            return recordCount;
+        }
+
+        try (DelimitedRecordIterator<T> iterator = openRecordIteratorByHeaderName(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                recordCount++;
+            }
+        }
+        return recordCount;
+    }
+
+    /* reads the file into primitive column vectors, see RecordTable, no beans are created */
+    public RecordTable getRecordTableByPositionFromFile(String filename, Class<?> beanClass) throws Exception {
+        return readRecordTable(filename, beanClass, false);
+    }
+
+    public RecordTable getRecordTableByHeaderNameFromFile(String filename, Class<?> beanClass) throws Exception {
+        return readRecordTable(filename, beanClass, true);
+    }
+
+    private RecordTable readRecordTable(String filename, Class<?> beanClass, boolean byHeaderName) throws Exception {
+        if (byHeaderName && headerNameRow >= headerRows) {
+            throw new IllegalArgumentException("headerNameRow " + headerNameRow + " must be one of the " + headerRows + " header rows");
+        }
+
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        RecordTable table = byHeaderName ? null : RecordTable.forClass(idDataFieldIdMap);
+        if (!FileUtility.fileExists(filename)) {
+            return table != null ? table : RecordTable.forHeader(idDataFieldIdMap, new BeanField[0]);
+        }
+
+        long startTime = System.currentTimeMillis();
+        CsvParser parser = new CsvParser(createParserSettings());
+        parser.beginParsing(new File(filename));
+
+        try {
+            ArrayDeque<String[]> lookahead = new ArrayDeque<>(trailerRows + 1);
+            int lineCnt = 0;
+            String[] line;
+
+            while ((line = parser.parseNext()) != null) {
+                if (lineCnt < headerRows) {
+                    if (byHeaderName && lineCnt == headerNameRow) {
+                        table = RecordTable.forHeader(idDataFieldIdMap, getColumnFieldsByHeaderName(line, beanClass));
+                    }
+                    lineCnt++;
+                    continue;
+                }
+                lookahead.addLast(line);
+                if (lookahead.size() > trailerRows) {
+                    String[] currentLine = lookahead.pollFirst();
                     try {
-                        String beanFieldStringValue = currentLine[beanField.dataField.id()];
-                        setBeanField(bean, beanField, beanFieldStringValue);
-                    } catch (Exception e) {
-                        logger.error("Field id {} is invalid\r\n" +
-                                        "in file {}\r\n" +
-                                        "current line is {}\r\n" +
-                                        "number of data records in object {}  = {}\r\n" +
-                                        "Number of records in line is {}",
-                                beanField.dataField.id(),
-                                filename,
-                                lineCnt,
-                                beanClass.getName(),
-                                idDataFieldIdMap.size(),
-                                currentLine.length);
+                        table.appendLine(currentLine);
+                    }
+                    catch (Exception e) {
+                        logger.error("Line {} of file {} is invalid: {}", lineCnt - trailerRows, filename, String.join(",", currentLine));
                         throw e;
                     }
                 }
+                lineCnt++;
             }
-            beans.add(bean);
         }
+        finally {
+            parser.stopParsing();
+        }
+
+        if (table == null) {
+            table = RecordTable.forHeader(idDataFieldIdMap, new BeanField[0]);
+        }
+        logger.debug("Record Table Time = {} rows = {}", System.currentTimeMillis() - startTime, table.getRowCount());
+        return table;
+    }
+
+    /* sorts a file too large to load by the class's @DataField columns, see ExternalRecordSorter */
+    public ExternalRecordSorter createFileSorter(Class<?> beanClass) {
+        return new ExternalRecordSorter(this, beanClass);
+    }
+
+    public <T> ArrayList<T> getRecordListByPositionFromFileParallel(String filename, Class<T> beanClass) throws Exception {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+        }
+
+        ArrayList<T> beans = new ArrayList<T>();
+        if (!FileUtility.fileExists(filename)) {
+            return beans;
+        }
+
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        CsvFormat format = detectFormat(filename);
+        Path path = Paths.get(filename);
+
+        long chunkSize = parallelChunkSize;
+        if (chunkSize <= 0) {
+            chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, Math.min(MAX_PARALLEL_CHUNK_SIZE, Files.size(path) / (parallelism * 4L)));
+        }
+
+        long startTime = System.currentTimeMillis();
+        var chunker = new DelimitedFileChunker(format.getDelimiter(), format.getQuote(), format.getQuoteEscape());
+        List<DelimitedFileChunker.Chunk> chunks = chunker.split(path, headerRows, trailerRows, chunkSize);
+        logger.debug("Split Time = {} chunks = {}", System.currentTimeMillis() - startTime, chunks.size());
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ExecutorCompletionService<ArrayList<T>> completionService = new ExecutorCompletionService<>(pool);
+            ArrayList<Future<ArrayList<T>>> futures = new ArrayList<>(chunks.size());
+
+            for (DelimitedFileChunker.Chunk chunk : chunks) {
+                futures.add(completionService.submit(() -> getRecordListFromChunk(filename, chunk, format, beanClass, idDataFieldIdMap)));
+            }
+
+            for (int chunkCnt = 0; chunkCnt < futures.size(); chunkCnt++) {
+                Future<ArrayList<T>> future = preserveOrder ? futures.get(chunkCnt) : completionService.take();
+                try {
+                    beans.addAll(future.get());
+                }
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+                    throw e;
+                }
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
         logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
         return beans;
     }
+
+    <T> ArrayList<T> getRecordListFromChunk(String filename, DelimitedFileChunker.Chunk chunk, CsvFormat format, Class<T> beanClass, SortedMap<Integer, BeanField> idDataFieldIdMap) throws Exception {
+        ArrayList<T> beans = new ArrayList<T>();
+        CsvParser parser = new CsvParser(createChunkParserSettings(format));
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+             InputStream inputStream = BoundedInputStream.builder()
+                                                         .setInputStream(Channels.newInputStream(channel.position(chunk.start)))
+                                                         .setMaxCount(chunk.length())
+                                                         .get()) {
+            parser.beginParsing(inputStream, Charset.defaultCharset());
+
+            int lineCnt = chunk.firstRecord;
+            String[] currentLine;
+            while ((currentLine = parser.parseNext()) != null) {
+                beans.add(getBeanFromLineByPosition(currentLine, beanClass, idDataFieldIdMap, filename, lineCnt++));
+            }
+        }
+        finally {
+            parser.stopParsing();
+        }
+        return beans;
+    }
+
+    protected CsvFormat detectFormat(String filename) {
+        CsvParserSettings parserSettings = createParserSettings();
+        CsvParser parser = new CsvParser(parserSettings);
+        parser.beginParsing(new File(filename));
+        parser.parseNext();
+        CsvFormat format = parser.getDetectedFormat();
+        parser.stopParsing();
+        return format != null ? format : parserSettings.getFormat();
+    }
+
+    protected CsvParserSettings createChunkParserSettings(CsvFormat format) {
+        CsvParserSettings parserSettings = createParserSettings();
+        parserSettings.setLineSeparatorDetectionEnabled(false);
+        parserSettings.setDelimiterDetectionEnabled(false);
+        parserSettings.setQuoteDetectionEnabled(false);
+        parserSettings.setReadInputOnSeparateThread(false);
+        parserSettings.getFormat().setDelimiter(format.getDelimiter());
+        parserSettings.getFormat().setQuote(format.getQuote());
+        parserSettings.getFormat().setQuoteEscape(format.getQuoteEscape());
+        parserSettings.getFormat().setLineSeparator(format.getLineSeparatorString());
+        return parserSettings;
+    }
+
+    <T> T getBeanFromLineByPosition(String[] currentLine, Class<T> beanClass, SortedMap<Integer, BeanField> idDataFieldIdMap, String filename, int lineCnt) throws Exception {
+        T bean = beanClass.newInstance();
+
+        for (var beanField : idDataFieldIdMap.values()) {
+            if (beanField.dataField.id() < currentLine.length) {
+                try {
+                    String beanFieldStringValue = currentLine[beanField.dataField.id()];
+                    setBeanField(bean, beanField, beanFieldStringValue);
+                } catch (Exception e) {
+                    logger.error("Field id {} is invalid\r\n" +
+                                    "in file {}\r\n" +
+                                    "current line is {}\r\n" +
+                                    "number of data records in object {}  = {}\r\n" +
+                                    "Number of records in line is {}",
+                            beanField.dataField.id(),
+                            filename,
+                            lineCnt,
+                            beanClass.getName(),
+                            idDataFieldIdMap.size(),
+                            currentLine.length);
+                    throw e;
+                }
+            }
+        }
+        return bean;
+    }
+
     public <K, V> HashMap<K,V> getRecordMapByPositionFromFile(String filename, Class<V> beanClass, Function methodFunction) throws Exception {
 
-        TreeMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
 
-        HashMap<K, V> beans = new HashMap<K, V>();
         if (!FileUtility.fileExists(filename)) {
-            return beans;
+            return new HashMap<K, V>();
         }
 
         List<String[]> lines = parseFileToList(filename);
+        HashMap<K, V> beans = HashMap.newHashMap(Math.max(0, lines.size() - headerRows - trailerRows));
 
         long startTime = System.currentTimeMillis();
         for (int lineCnt = headerRows; lineCnt < lines.size()-trailerRows; lineCnt++) {
@@ -133,7 +361,7 @@ public class DelimitedRecordFactory extends RecordFactory {
     }
 
     public <T> ArrayList<T> getRecordListByPositionFromFile(String filename, Class<T> beanClass, ArrayList<ArrayList<Integer>> positionMapping) throws Exception {
-        TreeMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
 
         ArrayList<T> beans = new ArrayList<T>();
         if (!FileUtility.fileExists(filename)) {
@@ -179,238 +407,239 @@ public class DelimitedRecordFactory extends RecordFactory {
     }
 
     public <T> ArrayList<T> getRecordListByHeaderNameFromFile(String filename, Class<T> beanClass) throws Exception {
-        TreeMap<String, BeanField> nameDataFieldIdMap = getNameDataFieldMapByClass(beanClass);
-
         ArrayList<T> beans = new ArrayList<T>();
         if (!FileUtility.fileExists(filename)) {
             return beans;
         }
 
         List<String[]> lines = parseFileToList(filename);
+        if (lines.size() <= headerNameRow) {
+            return beans;
+        }
 
         long startTime = System.currentTimeMillis();
-        String[] headerNameLine = lines.get(headerNameRow);
+        BeanField[] columnFields = getColumnFieldsByHeaderName(lines.get(headerNameRow), beanClass);
         for (int lineCnt = headerRows; lineCnt < lines.size()-trailerRows; lineCnt++) {
-            T bean = beanClass.newInstance();
-
-            String[] currentLine = lines.get(lineCnt);
-            int fieldsToProcess = Math.min(nameDataFieldIdMap.size(), headerNameLine.length);
-
-            Set<String> keySet = nameDataFieldIdMap.keySet();
-            String[] headerKeys = nameDataFieldIdMap.keySet().toArray(new String[0]);
-
-            HashMap<String, String> lineMap = new HashMap<>();
-            for (int x = 1; x < headerNameLine.length; x++) {
-                lineMap.put(headerNameLine[x], currentLine[x]);
-            }
-
-            int fieldCnt = 0;
-            for (fieldCnt = 0; fieldCnt < fieldsToProcess; fieldCnt++) {
-
-                BeanField beanField;
-                String beanFieldStringValue;
-
-                try {
-                    beanField = nameDataFieldIdMap.get(headerKeys[fieldCnt]);
-                    beanFieldStringValue = lineMap.get(headerKeys[fieldCnt]);
-                    setBeanField(bean, beanField, beanFieldStringValue);
-                }
-                catch (Exception e) {
-                    logger.error("Field name {} is invalid\r\n"  +
-                                    "in file {}\r\n" +
-                                    "current line is {}\r\n" +
-                                    "number of data records in object {}  = {}\r\n" +
-                                    "Number of records in line is {}",
-                            headerNameLine[fieldCnt],
-                            filename,
-                            lineCnt,
-                            beanClass.getName(),
-                            nameDataFieldIdMap.size(),
-                            currentLine.length);
-                    throw e;
-                }
-
-            }
-            beans.add(bean);
+            beans.add(getBeanFromLineByColumn(lines.get(lineCnt), beanClass, columnFields, filename, lineCnt));
         }
         logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
         return beans;
     }
 
     public <K, V> HashMap<K,V> getRecordMapByHeaderNameFromFile(String filename, Class<V> beanClass, Function methodFunction) throws Exception {
-        TreeMap<String, BeanField> nameDataFieldIdMap = getNameDataFieldMapByClass(beanClass);
-
-        HashMap<K, V> beans = new HashMap<K, V>();
         if (!FileUtility.fileExists(filename)) {
-            return beans;
+            return new HashMap<K, V>();
         }
 
         List<String[]> lines = parseFileToList(filename);
+        HashMap<K, V> beans = HashMap.newHashMap(Math.max(0, lines.size() - headerRows - trailerRows));
+        if (lines.size() <= headerNameRow) {
+            return beans;
+        }
 
         long startTime = System.currentTimeMillis();
-        String[] headerNameLine = lines.get(headerNameRow);
+        BeanField[] columnFields = getColumnFieldsByHeaderName(lines.get(headerNameRow), beanClass);
         for (int lineCnt = headerRows; lineCnt < lines.size()-trailerRows; lineCnt++) {
-            V bean = beanClass.newInstance();
+            V bean = getBeanFromLineByColumn(lines.get(lineCnt), beanClass, columnFields, filename, lineCnt);
+            var key = (K) methodFunction.apply(bean);
+            beans.put(key, bean);
+        }
+        logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
+        return beans;
+    }
 
-            String[] currentLine = lines.get(lineCnt);
-            int fieldsToProcess = Math.min(nameDataFieldIdMap.size(), headerNameLine.length);
+    /*
+     * Index builders for joins on large files, beans go from the parser straight into the index, so the file is never
+     * held as a list. The index is sized up front from expectedSize, or from estimateRecordCount when it is not given,
+     * and only grows if the file has more records than that. Duplicate keys are kept, where getRecordMapBy*FromFile
+     * keeps only the last bean for a key.
+     */
+    public <V> LongRecordIndex<V> getLongRecordIndexByPositionFromFile(String filename, Class<V> beanClass, ToLongFunction<? super V> keyFunction) throws Exception {
+        return getLongRecordIndexByPositionFromFile(filename, beanClass, estimateRecordCount(filename), keyFunction);
+    }
 
-            Set<String> keySet = nameDataFieldIdMap.keySet();
-            String[] headerKeys = nameDataFieldIdMap.keySet().toArray(new String[0]);
+    public <V> LongRecordIndex<V> getLongRecordIndexByPositionFromFile(String filename, Class<V> beanClass, int expectedSize, ToLongFunction<? super V> keyFunction) throws Exception {
+        LongRecordIndex<V> index = new LongRecordIndex<V>(keyFunction, expectedSize);
+        forEachRecordByPositionFromFile(filename, beanClass, index::add);
+        return index;
+    }
 
-            HashMap<String, String> lineMap = new HashMap<>();
-            for (int x = 1; x < headerNameLine.length; x++) {
-                lineMap.put(headerNameLine[x], currentLine[x]);
-            }
+    public <V> LongRecordIndex<V> getLongRecordIndexByHeaderNameFromFile(String filename, Class<V> beanClass, ToLongFunction<? super V> keyFunction) throws Exception {
+        return getLongRecordIndexByHeaderNameFromFile(filename, beanClass, estimateRecordCount(filename), keyFunction);
+    }
 
-            int fieldCnt = 0;
-            for (fieldCnt = 0; fieldCnt < fieldsToProcess; fieldCnt++) {
+    public <V> LongRecordIndex<V> getLongRecordIndexByHeaderNameFromFile(String filename, Class<V> beanClass, int expectedSize, ToLongFunction<? super V> keyFunction) throws Exception {
+        LongRecordIndex<V> index = new LongRecordIndex<V>(keyFunction, expectedSize);
+        forEachRecordByHeaderNameFromFile(filename, beanClass, index::add);
+        return index;
+    }
 
-                BeanField beanField;
-                String beanFieldStringValue;
+    @SafeVarargs
+    public final <V> RecordIndex<V> getRecordIndexByPositionFromFile(String filename, Class<V> beanClass, Function<? super V, ?>... keyFunctions) throws Exception {
+        return getRecordIndexByPositionFromFile(filename, beanClass, estimateRecordCount(filename), keyFunctions);
+    }
 
-                try {
-                    beanField = nameDataFieldIdMap.get(headerKeys[fieldCnt]);
-                    beanFieldStringValue = lineMap.get(headerKeys[fieldCnt]);
-                    setBeanField(bean, beanField, beanFieldStringValue);
-                }
-                catch (Exception e) {
-                    logger.error("Field name {} is invalid\r\n"  +
-                                    "in file {}\r\n" +
-                                    "current line is {}\r\n" +
-                                    "number of data records in object {}  = {}\r\n" +
-                                    "Number of records in line is {}",
-                            headerNameLine[fieldCnt],
-                            filename,
-                            lineCnt,
-                            beanClass.getName(),
-                            nameDataFieldIdMap.size(),
-                            currentLine.length);
-                    throw e;
-                }
+    @SafeVarargs
+    public final <V> RecordIndex<V> getRecordIndexByPositionFromFile(String filename, Class<V> beanClass, int expectedSize, Function<? super V, ?>... keyFunctions) throws Exception {
+        RecordIndex<V> index = new RecordIndex<V>(expectedSize, keyFunctions);
+        forEachRecordByPositionFromFile(filename, beanClass, index::add);
+        return index;
+    }
 
-            }
-            var key = (K) methodFunction.apply(bean);
-            beans.put(key, bean);
-        }
-        logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
-        return beans;
+    @SafeVarargs
+    public final <V> RecordIndex<V> getRecordIndexByHeaderNameFromFile(String filename, Class<V> beanClass, Function<? super V, ?>... keyFunctions) throws Exception {
+        return getRecordIndexByHeaderNameFromFile(filename, beanClass, estimateRecordCount(filename), keyFunctions);
     }
 
+    @SafeVarargs
+    public final <V> RecordIndex<V> getRecordIndexByHeaderNameFromFile(String filename, Class<V> beanClass, int expectedSize, Function<? super V, ?>... keyFunctions) throws Exception {
+        RecordIndex<V> index = new RecordIndex<V>(expectedSize, keyFunctions);
+        forEachRecordByHeaderNameFromFile(filename, beanClass, index::add);
+        return index;
+    }
 
-    public void writeRecordListToDelimitedFile(String filename, List<? extends Object> beanList) throws IOException {
+    /*
+     * Data rows in the file, from its size over the average length of the lines in the first 64KB, plus an eighth so an
+     * index sized from it rarely has to grow. Exact when the file fits in the sample, records with quoted line breaks
+     * count once per line.
+     */
+    int estimateRecordCount(String filename) throws IOException {
+        if (!FileUtility.fileExists(filename)) {
+            return 0;
+        }
 
-        Path outputPath = Paths.get(filename);
-        BufferedWriter writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8);
+        Path path = Paths.get(filename);
+        long fileSize = Files.size(path);
+        byte[] sample;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            sample = inputStream.readNBytes(ESTIMATE_SAMPLE_SIZE);
+        }
 
-        try {
-            if (headerIdRows > 0) {
-                outputHeaderIdRow(writer, beanList.get(0).getClass());
+        int headerLines = 0;
+        int dataStart = 0;
+        int dataLines = 0;
+        for (int position = 0; position < sample.length; position++) {
+            if (sample[position] != '\n') continue;
+            if (headerLines < headerRows) {
+                headerLines++;
+                dataStart = position + 1;
             }
-
-            if (headerRows > 0) {
-                outputHeaderRow(writer, beanList.get(0).getClass());
+            else {
+                dataLines++;
             }
+        }
 
-            TreeMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanList.get(0).getClass());
-
-            for (Object bean : beanList) {
-
-                boolean first = true;
-                for (BeanField beanField : idDataFieldIdMap.values()) {
-
-                    if (beanField.dataField.output() == true) {
-
-                        if (!first) writer.write(delimiterChar);
-                        else first = false;
-
-                        Object object = beanField.field.get(bean);
-
-                        if (object != null) {
-                            if (object.getClass() == BigDecimal.class) {
-                                BigDecimal bigDecimal = (BigDecimal) object;
-                                if (beanField.dataField.round() == true || roundDecimals == true) {
-                                    bigDecimal = bigDecimal.setScale(beanField.dataField.scale(), RoundingMode.HALF_UP);
-                                }
-
-                                writer.write(bigDecimal.toPlainString());
-                            } else if (object.getClass() == Double.class || object.getClass() == double.class) {
-                                BigDecimal bigDecimal = new BigDecimal((Double) object);
-                                if (beanField.dataField.round() == true || roundDecimals == true) {
-                                    bigDecimal = bigDecimal.setScale(beanField.dataField.scale(), RoundingMode.HALF_UP);
-                                }
-                                writer.write(bigDecimal.toPlainString());
-                            } else if (object.getClass() == LocalDate.class) {
-                                LocalDate localDate = (LocalDate) object;
-                                DateTimeFormatter dtf = DateTimeFormatter.ofPattern(beanField.dataField.dateFormat());
-                                writer.write(localDate.format(dtf));
-                            } else if (object.getClass() == LocalDateTime.class) {
-                                LocalDateTime localDateTime = (LocalDateTime) object;
-                                DateTimeFormatter dtf = DateTimeFormatter.ofPattern(beanField.dataField.dateFormat());
-                                writer.write(localDateTime.format(dtf));
-                            } else if (object.getClass() == Timestamp.class) {
-                                Timestamp timestamp = (Timestamp) object;
-                                DateTimeFormatter dtf = DateTimeFormatter.ofPattern(beanField.dataField.dateFormat());
-                                writer.write(timestamp.toLocalDateTime().format(dtf));
-                            } else if (object.getClass() == String.class) {
-                                if (quoteChar != null && ((String) object).contains(String.valueOf(delimiterChar))) writer.write(quoteChar);
-                                writer.write(object.toString());
-                                if (quoteChar != null && object.toString().contains(String.valueOf(delimiterChar))) writer.write(quoteChar);
-                            } else {
-                                writer.write(object.toString());
-                            }
-                        }  //not null object
-                    } //end annotation for output is true
-                }
-                writer.write(lineSeparator);
+        if (sample.length == fileSize) {
+            if (sample.length > dataStart && sample[sample.length - 1] != '\n') dataLines++;
+            return Math.max(0, dataLines - trailerRows);
+        }
+        if (dataLines == 0) {
+            return 0;
+        }
+
+        long estimate = (fileSize - dataStart) * dataLines / (sample.length - dataStart);
+        return (int) Math.min(MAX_ESTIMATED_RECORDS, estimate + estimate / 8);
+    }
+
+    /* columnFields comes from getColumnFieldsByHeaderName, resolved once per file */
+    <T> T getBeanFromLineByColumn(String[] currentLine, Class<T> beanClass, BeanField[] columnFields, String filename, int lineCnt) throws Exception {
+        T bean = beanClass.newInstance();
+
+        int columnCount = Math.min(columnFields.length, currentLine.length);
+        for (int column = 0; column < columnCount; column++) {
+            BeanField beanField = columnFields[column];
+            if (beanField == null) continue;
+
+            try {
+                setBeanField(bean, beanField, currentLine[column]);
             }
+            catch (Exception e) {
+                logger.error("Field name {} is invalid\r\n"  +
+                                "in file {}\r\n" +
+                                "current line is {}\r\n" +
+                                "column is {}\r\n" +
+                                "Number of records in line is {}",
+                        beanField.dataField.name(),
+                        filename,
+                        lineCnt,
+                        column,
+                        currentLine.length);
+                throw e;
+            }
+        }
+        return bean;
+    }
+
+
+    public void writeRecordListToDelimitedFile(String filename, List<? extends Object> beanList) throws IOException {
+
+        if (beanList.isEmpty()) {
+            Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8).close();
+            logger.warn("Cannot write empty list to file {}, the file is left empty", filename);
+            return;
+        }
+
+        try (RecordWriter<Object> writer = openRecordWriter(filename, (Class<Object>) beanList.get(0).getClass())) {
+            writer.writeAll(beanList);
         } catch (Exception e) {
             logger.error("Error", e);
-        } finally {
-            writer.close();
+        }
+    }
+
+    public <T> RecordWriter<T> openRecordWriter(String filename, Class<T> beanClass) throws IOException {
+        return new RecordWriter<T>(this, filename, beanClass, RecordWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    public <T> long writeRecordStreamToDelimitedFile(String filename, Class<T> beanClass, Stream<? extends T> beans) throws IOException {
+        try (RecordWriter<T> writer = openRecordWriter(filename, beanClass)) {
+            return writer.writeAll(beans);
         }
     }
 
     protected void outputHeaderIdRow(BufferedWriter writer, Class beanClass) throws IOException {
-        TreeMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        writer.write(getHeaderIdRow(beanClass));
+        writer.newLine();
+    }
+
+    protected void outputHeaderRow(BufferedWriter writer, Class beanClass) throws IOException {
+        writer.write(getHeaderNameRow(beanClass));
+        writer.newLine();
+    }
+
+    String getHeaderIdRow(Class beanClass) {
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        StringBuilder headerRow = new StringBuilder();
 
         boolean first = true;
         for (BeanField beanField : idDataFieldIdMap.values()) {
             if (beanField.dataField.output() == true) {
-                if (!first) writer.write(delimiterChar);
+                if (!first) headerRow.append(delimiterChar);
                 else first = false;
 
-                writer.write(Integer.toString(beanField.dataField.id()));
+                headerRow.append(beanField.dataField.id());
             }
         }
-        writer.newLine();
+        return headerRow.toString();
     }
 
-    protected void outputHeaderRow(BufferedWriter writer, Class beanClass) throws IOException {
-        TreeMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+    String getHeaderNameRow(Class beanClass) {
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        StringBuilder headerRow = new StringBuilder();
 
         boolean first = true;
         for (BeanField beanField : idDataFieldIdMap.values()) {
             if (beanField.dataField.output() == true) {
-                if (!first) writer.write(delimiterChar);
+                if (!first) headerRow.append(delimiterChar);
                 else first = false;
 
-                writer.write(beanField.dataField.name());
+                headerRow.append(beanField.dataField.name());
             }
         }
-        writer.newLine();
+        return headerRow.toString();
     }
 
     public List<String[]> parseFileToList(String filename) throws Exception {
-        CsvParserSettings parserSettings = new CsvParserSettings();
-        parserSettings.setLineSeparatorDetectionEnabled(true);
-        parserSettings.setDelimiterDetectionEnabled(true, ',', '|', '\t');
-        parserSettings.setAutoConfigurationEnabled(true);
-        parserSettings.setHeaderExtractionEnabled(false);
-        parserSettings.setCommentProcessingEnabled(false);
-        parserSettings.setMaxColumns(5000);
-
-        CsvParser parser = new CsvParser(parserSettings);
+        CsvParser parser = new CsvParser(createParserSettings());
 
         long startTime = System.currentTimeMillis();
         List<String[]> lines = parser.parseAll(new File(filename));
@@ -419,58 +648,15 @@ public class DelimitedRecordFactory extends RecordFactory {
         return lines;
     }
 
-    protected <T> TreeMap<Integer, BeanField> getIdDataFieldMapByClass(Class<T> beanClass ) {
-
-        Class clazz = beanClass;
-        TreeMap<Integer, BeanField> idDataFieldIdMap = IdCachedFieldsByClassMap.get(beanClass.getName());
-
-        if (idDataFieldIdMap == null) {
-            idDataFieldIdMap = new TreeMap<Integer, BeanField>();
-
-            do {
-                for (Field field : clazz.getDeclaredFields()) {
-                    DataField annotation = (DataField) field.getAnnotation(DataField.class);
-                    if (annotation != null) {
-                        BeanField beanField = new BeanField();
-                        beanField.field = field;
-                        beanField.dataField = annotation;
-                        idDataFieldIdMap.put(annotation.id(), beanField);
-                    }
-                }
-                clazz = clazz.getSuperclass();
-
-            } while (clazz != null);
-
-            IdCachedFieldsByClassMap.put(beanClass.getName(), idDataFieldIdMap);
-        }
-        return idDataFieldIdMap;
-    }
-
-    protected <T> TreeMap<String, BeanField> getNameDataFieldMapByClass(Class<T> beanClass ) {
-
-        Class clazz = beanClass;
-        TreeMap<String, BeanField> nameDataFieldIdMap = NameCachedFieldsByClassMap.get(beanClass.getName());
-
-        if (nameDataFieldIdMap == null) {
-            nameDataFieldIdMap = new TreeMap<String, BeanField>();
-
-            do {
-                for (Field field : clazz.getDeclaredFields()) {
-                    DataField annotation = (DataField) field.getAnnotation(DataField.class);
-                    if (annotation != null) {
-                        BeanField beanField = new BeanField();
-                        beanField.field = field;
-                        beanField.dataField = annotation;
-                        nameDataFieldIdMap.put(annotation.name(), beanField);
-                    }
-                }
-                clazz = clazz.getSuperclass();
-
-            } while (clazz != null);
-
-            IdCachedFieldsByClassMap.put(beanClass.getName(), nameDataFieldIdMap);
-        }
-        return nameDataFieldIdMap;
+    protected CsvParserSettings createParserSettings() {
+        CsvParserSettings parserSettings = new CsvParserSettings();
+        parserSettings.setLineSeparatorDetectionEnabled(true);
+        parserSettings.setDelimiterDetectionEnabled(true, ',', '|', '\t');
+        parserSettings.setAutoConfigurationEnabled(true);
+        parserSettings.setHeaderExtractionEnabled(false);
+        parserSettings.setCommentProcessingEnabled(false);
+        parserSettings.setMaxColumns(5000);
+        return parserSettings;
     }
 
     public int getHeaderRows() {
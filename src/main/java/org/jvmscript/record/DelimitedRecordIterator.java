@@ -0,0 +1,122 @@
+package org.jvmscript.record;
+
+import com.univocity.parsers.csv.CsvParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jvmscript.record.RecordFactory.BeanField;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+
+/*
+ * Pulls one record at a time from a delimited file and binds it to a bean by position, or by the header
+ * names in row headerNameRow.
+ * Only trailerRows + 1 parsed lines are held in memory, the lookahead buffer is what keeps
+ * trailer rows from being bound without knowing the line count up front.
+ */
+public class DelimitedRecordIterator<T> implements Iterator<T>, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(DelimitedRecordIterator.class);
+
+    private final DelimitedRecordFactory recordFactory;
+    private final String filename;
+    private final Class<T> beanClass;
+    private final SortedMap<Integer, BeanField> idDataFieldIdMap;
+    private final CsvParser parser;
+    private final ArrayDeque<String[]> lookahead;
+    private final int trailerRows;
+    private BeanField[] columnFields;
+
+    private boolean endOfFile = false;
+    private int lineCnt;
+
+    DelimitedRecordIterator(DelimitedRecordFactory recordFactory, String filename, Class<T> beanClass) {
+        this(recordFactory, filename, beanClass, false);
+    }
+
+    DelimitedRecordIterator(DelimitedRecordFactory recordFactory, String filename, Class<T> beanClass, boolean byHeaderName) {
+        if (byHeaderName && recordFactory.headerNameRow >= recordFactory.headerRows) {
+            throw new IllegalArgumentException("headerNameRow " + recordFactory.headerNameRow + " must be one of the " + recordFactory.headerRows + " header rows");
+        }
+
+        this.recordFactory = recordFactory;
+        this.filename = filename;
+        this.beanClass = beanClass;
+        this.idDataFieldIdMap = recordFactory.getIdDataFieldMapByClass(beanClass);
+        this.trailerRows = recordFactory.trailerRows;
+        this.lookahead = new ArrayDeque<>(trailerRows + 1);
+
+        parser = new CsvParser(recordFactory.createParserSettings());
+        parser.beginParsing(new File(filename));
+
+        for (lineCnt = 0; lineCnt < recordFactory.headerRows; lineCnt++) {
+            String[] line = parser.parseNext();
+            if (line == null) {
+                endOfFile = true;
+                break;
+            }
+            if (byHeaderName && lineCnt == recordFactory.headerNameRow) {
+                columnFields = recordFactory.getColumnFieldsByHeaderName(line, beanClass);
+            }
+        }
+        fill();
+    }
+
+    private void fill() {
+        while (!endOfFile && lookahead.size() <= trailerRows) {
+            String[] line = parser.parseNext();
+            if (line == null) {
+                endOfFile = true;
+            }
+            else {
+                lookahead.addLast(line);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lookahead.size() > trailerRows;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more records in file " + filename);
+        }
+
+        String[] currentLine = lookahead.pollFirst();
+        fill();
+
+        try {
+            if (columnFields != null) {
+                return recordFactory.getBeanFromLineByColumn(currentLine, beanClass, columnFields, filename, lineCnt++);
+            }
+            return recordFactory.getBeanFromLineByPosition(currentLine, beanClass, idDataFieldIdMap, filename, lineCnt++);
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IllegalStateException("Unable to create " + beanClass.getName() + " from file " + filename, e);
+        }
+    }
+
+    public int getLineCount() {
+        return lineCnt;
+    }
+
+    @Override
+    public void close() {
+        if (!endOfFile) {
+            logger.debug("Closing {} before end of file at line {}", filename, lineCnt);
+            endOfFile = true;
+        }
+        lookahead.clear();
+        parser.stopParsing();
+    }
+}
@@ -1,4 +1,188 @@
 package org.jvmscript.record;
 
-public class ExcelRecordFactory {
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jvmscript.file.FileUtility;
+import org.jvmscript.record.ExcelSheetReader.ExcelRow;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Reads @DataField beans straight from an xlsx sheet, column A is id 0, or by matching the header row to the field names.
+ * The sheet is streamed, memory is one row plus the workbook's shared strings (spilled to a temp file above
+ * sharedStringsInMemoryLimit chars). Cells with a date style bind to LocalDate / LocalDateTime fields directly and are
+ * formatted with the field's dateFormat for String fields, everything else binds from its text like a delimited file.
+ * headerRows, headerNameRow and trailerRows count the rows stored in the sheet, empty rows excel never wrote are not counted.
+ */
+public class ExcelRecordFactory extends RecordFactory {
+
+    private static final Logger logger = LogManager.getLogger(ExcelRecordFactory.class);
+
+    public String sheetName = null;
+    public int sheetIndex = 0;
+    public long sharedStringsInMemoryLimit = 16 * 1024 * 1024;
+
+    public <T> ArrayList<T> getRecordListByPositionFromFile(String filename, Class<T> beanClass) throws Exception {
+        ArrayList<T> beans = new ArrayList<T>();
+        if (!FileUtility.fileExists(filename)) {
+            return beans;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try (ExcelRecordIterator<T> iterator = openRecordIteratorByPosition(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                beans.add(iterator.next());
+            }
+        }
+        logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
+        return beans;
+    }
+
+    public <T> ArrayList<T> getRecordListByHeaderNameFromFile(String filename, Class<T> beanClass) throws Exception {
+        ArrayList<T> beans = new ArrayList<T>();
+        if (!FileUtility.fileExists(filename)) {
+            return beans;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try (ExcelRecordIterator<T> iterator = openRecordIteratorByHeaderName(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                beans.add(iterator.next());
+            }
+        }
+        logger.debug("Object Creating Time = {}", System.currentTimeMillis() - startTime);
+        return beans;
+    }
+
+    public <K, V> HashMap<K,V> getRecordMapByPositionFromFile(String filename, Class<V> beanClass, Function methodFunction) throws Exception {
+        HashMap<K, V> beans = new HashMap<K, V>();
+        if (!FileUtility.fileExists(filename)) {
+            return beans;
+        }
+
+        try (ExcelRecordIterator<V> iterator = openRecordIteratorByPosition(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                V bean = iterator.next();
+                beans.put((K) methodFunction.apply(bean), bean);
+            }
+        }
+        return beans;
+    }
+
+    public <K, V> HashMap<K,V> getRecordMapByHeaderNameFromFile(String filename, Class<V> beanClass, Function methodFunction) throws Exception {
+        HashMap<K, V> beans = new HashMap<K, V>();
+        if (!FileUtility.fileExists(filename)) {
+            return beans;
+        }
+
+        try (ExcelRecordIterator<V> iterator = openRecordIteratorByHeaderName(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                V bean = iterator.next();
+                beans.put((K) methodFunction.apply(bean), bean);
+            }
+        }
+        return beans;
+    }
+
+    public <T> ExcelRecordIterator<T> openRecordIteratorByPosition(String filename, Class<T> beanClass) {
+        return new ExcelRecordIterator<T>(this, filename, beanClass, false);
+    }
+
+    public <T> ExcelRecordIterator<T> openRecordIteratorByHeaderName(String filename, Class<T> beanClass) {
+        return new ExcelRecordIterator<T>(this, filename, beanClass, true);
+    }
+
+    public <T> Stream<T> streamRecordsByPositionFromFile(String filename, Class<T> beanClass) {
+        if (!FileUtility.fileExists(filename)) {
+            return Stream.empty();
+        }
+        return stream(openRecordIteratorByPosition(filename, beanClass));
+    }
+
+    public <T> Stream<T> streamRecordsByHeaderNameFromFile(String filename, Class<T> beanClass) {
+        if (!FileUtility.fileExists(filename)) {
+            return Stream.empty();
+        }
+        return stream(openRecordIteratorByHeaderName(filename, beanClass));
+    }
+
+    private static <T> Stream<T> stream(ExcelRecordIterator<T> iterator) {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    public <T> long forEachRecordByPositionFromFile(String filename, Class<T> beanClass, Consumer<? super T> consumer) {
+        long recordCount = 0;
+        if (!FileUtility.fileExists(filename)) {
+            return recordCount;
+        }
+
+        try (ExcelRecordIterator<T> iterator = openRecordIteratorByPosition(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                recordCount++;
+            }
+        }
+        return recordCount;
+    }
+
+    <T> T getBeanFromRow(ExcelRow row, Class<T> beanClass, BeanField[] columnFields, ExcelSheetReader sheetReader, String filename) throws Exception {
+        T bean = beanClass.getDeclaredConstructor().newInstance();
+
+        int columnCount = Math.min(columnFields.length, row.values.length);
+        for (int column = 0; column < columnCount; column++) {
+            BeanField beanField = columnFields[column];
+            String value = row.values[column];
+            if (beanField == null || value == null) continue;
+
+            try {
+                if (row.isDate(column)) {
+                    setDateBeanField(bean, beanField, sheetReader.toLocalDateTime(value), value);
+                }
+                else {
+                    setBeanField(bean, beanField, value);
+                }
+            }
+            catch (Exception e) {
+                logger.error("Field {} is invalid\r\n" +
+                                "in file {}\r\n" +
+                                "sheet row is {}\r\n" +
+                                "column is {}\r\n" +
+                                "value is {}",
+                        beanField.dataField.name().isEmpty() ? beanField.dataField.id() : beanField.dataField.name(),
+                        filename,
+                        row.rowNumber,
+                        column,
+                        value);
+                throw e;
+            }
+        }
+        return bean;
+    }
+
+    private void setDateBeanField(Object bean, BeanField beanField, LocalDateTime dateTime, String serial) throws Exception {
+        Class<?> type = beanField.field.getType();
+
+        if (type == LocalDate.class) {
+            beanField.binder().setObject(bean, dateTime.toLocalDate());
+        }
+        else if (type == LocalDateTime.class) {
+            beanField.binder().setObject(bean, dateTime);
+        }
+        else if (type == String.class) {
+            setBeanField(bean, beanField, beanField.dateFieldFormat().format(dateTime));
+        }
+        else {
+            setBeanField(bean, beanField, serial);
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package org.jvmscript.record;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jvmscript.record.ExcelSheetReader.ExcelRow;
+import org.jvmscript.record.RecordFactory.BeanField;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * Pulls one record at a time from an xlsx sheet and binds it to a bean, by column id or by header name.
+ * Either way the columns are resolved once, before the first record, into an array indexed by column.
+ * Only trailerRows + 1 rows are held in memory, the same lookahead DelimitedRecordIterator uses.
+ */
+public class ExcelRecordIterator<T> implements Iterator<T>, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ExcelRecordIterator.class);
+
+    private final ExcelRecordFactory recordFactory;
+    private final String filename;
+    private final Class<T> beanClass;
+    private final ExcelSheetReader sheetReader;
+    private final ArrayDeque<ExcelRow> lookahead;
+    private final int trailerRows;
+    private BeanField[] columnFields;
+
+    private boolean endOfSheet = false;
+    private int rowCnt;
+
+    ExcelRecordIterator(ExcelRecordFactory recordFactory, String filename, Class<T> beanClass, boolean byHeaderName) {
+        this.recordFactory = recordFactory;
+        this.filename = filename;
+        this.beanClass = beanClass;
+        this.trailerRows = recordFactory.trailerRows;
+        this.lookahead = new ArrayDeque<>(trailerRows + 1);
+
+        if (byHeaderName && recordFactory.headerNameRow >= recordFactory.headerRows) {
+            throw new IllegalArgumentException("headerNameRow " + recordFactory.headerNameRow + " must be one of the " +
+                    recordFactory.headerRows + " header rows");
+        }
+
+        try {
+            sheetReader = new ExcelSheetReader(filename, recordFactory.sheetName, recordFactory.sheetIndex, recordFactory.sharedStringsInMemoryLimit);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (XMLStreamException e) {
+            throw new IllegalStateException("Unable to read workbook " + filename, e);
+        }
+
+        try {
+            if (!byHeaderName) {
+                columnFields = recordFactory.getColumnFieldsById(beanClass);
+            }
+
+            for (rowCnt = 0; rowCnt < recordFactory.headerRows; rowCnt++) {
+                ExcelRow row = sheetReader.nextRow();
+                if (row == null) {
+                    endOfSheet = true;
+                    break;
+                }
+                if (byHeaderName && rowCnt == recordFactory.headerNameRow) {
+                    columnFields = recordFactory.getColumnFieldsByHeaderName(row.values, beanClass);
+                }
+            }
+
+            if (columnFields == null) {
+                columnFields = new BeanField[0];
+            }
+            fill();
+        }
+        catch (XMLStreamException e) {
+            close();
+            throw new IllegalStateException("Unable to read workbook " + filename, e);
+        }
+        catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void fill() {
+        try {
+            while (!endOfSheet && lookahead.size() <= trailerRows) {
+                ExcelRow row = sheetReader.nextRow();
+                if (row == null) {
+                    endOfSheet = true;
+                }
+                else {
+                    lookahead.addLast(row);
+                }
+            }
+        }
+        catch (XMLStreamException e) {
+            throw new IllegalStateException("Unable to read workbook " + filename + " after row " + rowCnt, e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lookahead.size() > trailerRows;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more records in file " + filename);
+        }
+
+        ExcelRow currentRow = lookahead.pollFirst();
+        fill();
+
+        try {
+            rowCnt++;
+            return recordFactory.getBeanFromRow(currentRow, beanClass, columnFields, sheetReader, filename);
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IllegalStateException("Unable to create " + beanClass.getName() + " from file " + filename, e);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCnt;
+    }
+
+    @Override
+    public void close() {
+        if (!endOfSheet) {
+            logger.debug("Closing {} before end of sheet at row {}", filename, rowCnt);
+            endOfSheet = true;
+        }
+        lookahead.clear();
+
+        try {
+            sheetReader.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.jvmscript.record;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * The xl/sharedStrings.xml table of an xlsx workbook, cells of type s hold an index into it.
+ * Strings are kept on the heap until their total length passes inMemoryLimit chars, after that every string
+ * is written UTF-8 to a temp file and only its offset stays in memory. Lookups from the file go through a small
+ * direct mapped cache since the same few strings (side, currency, account type ...) repeat on most rows.
+ */
+final class ExcelSharedStrings implements Closeable {
+
+    private static final int CACHE_SIZE = 4096;
+
+    private final long inMemoryLimit;
+    private ArrayList<String> strings = new ArrayList<>();
+    private long inMemoryChars = 0;
+    private int count = 0;
+
+    private Path spillFile;
+    private OutputStream spillOutput;
+    private FileChannel spillChannel;
+    /* string n is the bytes from offsets[n] to offsets[n + 1] */
+    private long[] offsets;
+    private long spillPosition = 0;
+    private int spilled = 0;
+
+    private String[] cache;
+    private int[] cacheIndexes;
+
+    ExcelSharedStrings(long inMemoryLimit) {
+        this.inMemoryLimit = inMemoryLimit;
+    }
+
+    static ExcelSharedStrings read(InputStream inputStream, long inMemoryLimit) throws IOException, XMLStreamException {
+        ExcelSharedStrings sharedStrings = new ExcelSharedStrings(inMemoryLimit);
+        XMLStreamReader reader = ExcelSheetReader.createXmlReader(inputStream);
+
+        try {
+            StringBuilder text = new StringBuilder();
+            int phoneticDepth = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("si".equals(name)) {
+                        text.setLength(0);
+                    }
+                    else if ("rPh".equals(name)) {
+                        phoneticDepth++;
+                    }
+                    else if ("t".equals(name) && phoneticDepth == 0) {
+                        text.append(reader.getElementText());
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("si".equals(name)) {
+                        sharedStrings.add(text.toString());
+                    }
+                    else if ("rPh".equals(name)) {
+                        phoneticDepth--;
+                    }
+                }
+            }
+        }
+        catch (IOException | XMLStreamException | RuntimeException e) {
+            sharedStrings.close();
+            throw e;
+        }
+        finally {
+            reader.close();
+        }
+
+        sharedStrings.finish();
+        return sharedStrings;
+    }
+
+    void add(String value) throws IOException {
+        if (spillOutput == null && inMemoryChars + value.length() > inMemoryLimit) {
+            startSpill();
+        }
+
+        if (spillOutput == null) {
+            strings.add(value);
+            inMemoryChars += value.length();
+        }
+        else {
+            writeSpill(value);
+        }
+        count++;
+    }
+
+    private void startSpill() throws IOException {
+        spillFile = Files.createTempFile("jvmscript-shared-strings", ".tmp");
+        spillOutput = new BufferedOutputStream(Files.newOutputStream(spillFile), 64 * 1024);
+        offsets = new long[Math.max(1024, count * 2)];
+
+        ArrayList<String> inMemory = strings;
+        strings = null;
+        for (String value : inMemory) {
+            writeSpill(value);
+        }
+    }
+
+    private void writeSpill(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (spilled + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        spillOutput.write(bytes);
+        spillPosition += bytes.length;
+        offsets[++spilled] = spillPosition;
+    }
+
+    private void finish() throws IOException {
+        if (spillOutput == null) {
+            strings.trimToSize();
+            return;
+        }
+
+        spillOutput.close();
+        spillOutput = null;
+        spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ);
+        cache = new String[CACHE_SIZE];
+        cacheIndexes = new int[CACHE_SIZE];
+        Arrays.fill(cacheIndexes, -1);
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    String get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Shared string " + index + " of " + count);
+        }
+        if (strings != null) {
+            return strings.get(index);
+        }
+
+        int slot = index & (CACHE_SIZE - 1);
+        if (cacheIndexes[slot] == index) {
+            return cache[slot];
+        }
+
+        String value = readSpill(index);
+        cache[slot] = value;
+        cacheIndexes[slot] = index;
+        return value;
+    }
+
+    private String readSpill(int index) {
+        long start = offsets[index];
+        ByteBuffer buffer = ByteBuffer.allocate((int) (offsets[index + 1] - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (spillChannel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of shared strings file " + spillFile);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (spillOutput != null) spillOutput.close();
+            if (spillChannel != null) spillChannel.close();
+        }
+        finally {
+            spillOutput = null;
+            spillChannel = null;
+            if (spillFile != null) Files.deleteIfExists(spillFile);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package org.jvmscript.record;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+ * Reads one worksheet of an xlsx file a row at a time with a StAX cursor over the sheet xml inside the zip,
+ * only the current row, the shared strings table and the date styles are held in memory.
+ * Values come back as the text the cell holds: shared and inline strings resolved, booleans as true / false,
+ * numbers as written in the xml (dates stay excel serial numbers, the row marks which cells have a date style).
+ */
+final class ExcelSheetReader implements Closeable {
+
+    private static final String WORKBOOK = "xl/workbook.xml";
+    private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels";
+    private static final String DEFAULT_SHARED_STRINGS = "xl/sharedStrings.xml";
+    private static final String DEFAULT_STYLES = "xl/styles.xml";
+
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    /* excel day 0 for the 1900 date system, 1900-02-29 does not exist but excel counts it, serial 60 */
+    private static final LocalDateTime EPOCH_1900 = LocalDateTime.of(1899, 12, 30, 0, 0);
+    private static final LocalDateTime EPOCH_1904 = LocalDateTime.of(1904, 1, 1, 0, 0);
+
+    static final class ExcelRow {
+        final int rowNumber;
+        final String[] values;
+        final boolean[] dates;
+
+        ExcelRow(int rowNumber, String[] values, boolean[] dates) {
+            this.rowNumber = rowNumber;
+            this.values = values;
+            this.dates = dates;
+        }
+
+        String get(int column) {
+            return column < values.length ? values[column] : null;
+        }
+
+        boolean isDate(int column) {
+            return column < dates.length && dates[column];
+        }
+    }
+
+    private final String filename;
+    private final ZipFile zipFile;
+    private final ExcelSharedStrings sharedStrings;
+    private final boolean[] dateStyles;
+    private final boolean date1904;
+    private final InputStream sheetInput;
+    private final XMLStreamReader reader;
+
+    private String[] values = new String[64];
+    private boolean[] dates = new boolean[64];
+    private final StringBuilder inlineText = new StringBuilder();
+    private boolean endOfSheet = false;
+
+    /* sheetName wins when set, otherwise sheetIndex counts from 0 in workbook order */
+    ExcelSheetReader(String filename, String sheetName, int sheetIndex, long sharedStringsInMemoryLimit) throws IOException, XMLStreamException {
+        this.filename = filename;
+        this.zipFile = new ZipFile(filename);
+
+        ExcelSharedStrings strings = null;
+        try {
+            HashMap<String, String> relationships = new HashMap<>();
+            String sharedStringsPart = DEFAULT_SHARED_STRINGS;
+            String stylesPart = DEFAULT_STYLES;
+
+            try (InputStream inputStream = openPart(WORKBOOK_RELS)) {
+                XMLStreamReader relsReader = createXmlReader(inputStream);
+                while (relsReader.hasNext()) {
+                    if (relsReader.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(relsReader.getLocalName())) {
+                        String type = relsReader.getAttributeValue(null, "Type");
+                        String target = toPartName(relsReader.getAttributeValue(null, "Target"));
+                        relationships.put(relsReader.getAttributeValue(null, "Id"), target);
+
+                        if (type != null && type.endsWith("/sharedStrings")) sharedStringsPart = target;
+                        else if (type != null && type.endsWith("/styles")) stylesPart = target;
+                    }
+                }
+                relsReader.close();
+            }
+
+            ArrayList<String> sheetNames = new ArrayList<>();
+            ArrayList<String> sheetParts = new ArrayList<>();
+            boolean workbookDate1904 = false;
+
+            try (InputStream inputStream = openPart(WORKBOOK)) {
+                XMLStreamReader workbookReader = createXmlReader(inputStream);
+                while (workbookReader.hasNext()) {
+                    if (workbookReader.next() != XMLStreamConstants.START_ELEMENT) continue;
+
+                    if ("workbookPr".equals(workbookReader.getLocalName())) {
+                        String value = workbookReader.getAttributeValue(null, "date1904");
+                        workbookDate1904 = "1".equals(value) || "true".equals(value);
+                    }
+                    else if ("sheet".equals(workbookReader.getLocalName())) {
+                        sheetNames.add(workbookReader.getAttributeValue(null, "name"));
+                        sheetParts.add(relationships.get(getRelationshipId(workbookReader)));
+                    }
+                }
+                workbookReader.close();
+            }
+            date1904 = workbookDate1904;
+
+            int sheet = sheetName != null ? sheetNames.indexOf(sheetName) : sheetIndex;
+            if (sheet < 0 || sheet >= sheetParts.size() || sheetParts.get(sheet) == null) {
+                throw new IllegalArgumentException("No sheet " + (sheetName != null ? sheetName : String.valueOf(sheetIndex)) +
+                        " in " + filename + ", sheets are " + sheetNames);
+            }
+
+            dateStyles = zipFile.getEntry(stylesPart) == null ? new boolean[0] : readDateStyles(stylesPart);
+            if (zipFile.getEntry(sharedStringsPart) != null) {
+                try (InputStream inputStream = openPart(sharedStringsPart)) {
+                    strings = ExcelSharedStrings.read(inputStream, sharedStringsInMemoryLimit);
+                }
+            }
+            sharedStrings = strings;
+
+            sheetInput = openPart(sheetParts.get(sheet));
+            reader = createXmlReader(sheetInput);
+        }
+        catch (IOException | XMLStreamException | RuntimeException e) {
+            if (strings != null) strings.close();
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    static XMLStreamReader createXmlReader(InputStream inputStream) throws XMLStreamException {
+        return xmlInputFactory.createXMLStreamReader(inputStream);
+    }
+
+    private InputStream openPart(String partName) throws IOException {
+        ZipEntry entry = zipFile.getEntry(partName);
+        if (entry == null) {
+            throw new FileNotFoundException(partName + " not found in " + filename + ", not an xlsx workbook");
+        }
+        return zipFile.getInputStream(entry);
+    }
+
+    /* relationship targets are relative to xl/ unless they start with / */
+    private static String toPartName(String target) {
+        if (target == null) return null;
+        return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+    }
+
+    /* r:id, the prefix and namespace differ between transitional and strict workbooks */
+    private static String getRelationshipId(XMLStreamReader reader) {
+        for (int attribute = 0; attribute < reader.getAttributeCount(); attribute++) {
+            String namespace = reader.getAttributeNamespace(attribute);
+            if ("id".equals(reader.getAttributeLocalName(attribute)) && namespace != null && !namespace.isEmpty()) {
+                return reader.getAttributeValue(attribute);
+            }
+        }
+        return null;
+    }
+
+    /* index is the cell style (s attribute), true when its number format shows a date or time */
+    private boolean[] readDateStyles(String stylesPart) throws IOException, XMLStreamException {
+        HashMap<Integer, String> numberFormats = new HashMap<>();
+        ArrayList<Integer> cellFormats = new ArrayList<>();
+
+        try (InputStream inputStream = openPart(stylesPart)) {
+            XMLStreamReader stylesReader = createXmlReader(inputStream);
+            boolean inCellXfs = false;
+
+            while (stylesReader.hasNext()) {
+                int event = stylesReader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = stylesReader.getLocalName();
+                    if ("numFmt".equals(name)) {
+                        numberFormats.put(Integer.parseInt(stylesReader.getAttributeValue(null, "numFmtId")),
+                                          stylesReader.getAttributeValue(null, "formatCode"));
+                    }
+                    else if ("cellXfs".equals(name)) {
+                        inCellXfs = true;
+                    }
+                    else if ("xf".equals(name) && inCellXfs) {
+                        String numFmtId = stylesReader.getAttributeValue(null, "numFmtId");
+                        cellFormats.add(numFmtId == null ? 0 : Integer.parseInt(numFmtId));
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT && "cellXfs".equals(stylesReader.getLocalName())) {
+                    inCellXfs = false;
+                }
+            }
+            stylesReader.close();
+        }
+
+        boolean[] styles = new boolean[cellFormats.size()];
+        for (int style = 0; style < styles.length; style++) {
+            int numFmtId = cellFormats.get(style);
+            String formatCode = numberFormats.get(numFmtId);
+            styles[style] = formatCode != null ? isDateFormat(formatCode) : isBuiltInDateFormat(numFmtId);
+        }
+        return styles;
+    }
+
+    static boolean isBuiltInDateFormat(int numFmtId) {
+        return (numFmtId >= 14 && numFmtId <= 22) || (numFmtId >= 27 && numFmtId <= 36) ||
+               (numFmtId >= 45 && numFmtId <= 47) || (numFmtId >= 50 && numFmtId <= 58);
+    }
+
+    /* a date or time token (y m d h s) outside quoted text, escapes and [color] / [$-409] sections */
+    static boolean isDateFormat(String formatCode) {
+        int section = formatCode.indexOf(';');
+        String format = section < 0 ? formatCode : formatCode.substring(0, section);
+
+        for (int position = 0; position < format.length(); position++) {
+            char c = format.charAt(position);
+            if (c == '"') {
+                int end = format.indexOf('"', position + 1);
+                position = end < 0 ? format.length() : end;
+            }
+            else if (c == '\\' || c == '_' || c == '*') {
+                position++;
+            }
+            else if (c == '[') {
+                int end = format.indexOf(']', position + 1);
+                position = end < 0 ? format.length() : end;
+            }
+            else {
+                char lower = Character.toLowerCase(c);
+                if (lower == 'y' || lower == 'm' || lower == 'd' || lower == 'h' || lower == 's') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    LocalDateTime toLocalDateTime(String serialText) {
+        double serial = Double.parseDouble(serialText);
+        long days = (long) Math.floor(serial);
+        long millis = Math.round((serial - days) * 86_400_000d);
+
+        LocalDateTime epoch = date1904 ? EPOCH_1904 : EPOCH_1900;
+        if (!date1904 && days < 60) {
+            epoch = epoch.plusDays(1);
+        }
+        return epoch.plusDays(days).plus(millis, ChronoUnit.MILLIS);
+    }
+
+    /* null at the end of the sheet, rows excel did not store (never used) are skipped, not returned empty */
+    ExcelRow nextRow() throws XMLStreamException {
+        if (endOfSheet) return null;
+
+        int rowNumber = 0;
+        int columnCount = 0;
+        int column = -1;
+        String cellType = null;
+        int cellStyle = 0;
+        String cellValue = null;
+        boolean inRow = false;
+        boolean inInlineString = false;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+
+                if ("row".equals(name)) {
+                    inRow = true;
+                    String r = reader.getAttributeValue(null, "r");
+                    rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                }
+                else if ("c".equals(name) && inRow) {
+                    String r = reader.getAttributeValue(null, "r");
+                    column = r != null ? columnIndex(r) : column + 1;
+                    cellType = reader.getAttributeValue(null, "t");
+                    String s = reader.getAttributeValue(null, "s");
+                    cellStyle = s != null ? Integer.parseInt(s) : 0;
+                    cellValue = null;
+                }
+                else if ("v".equals(name) && inRow) {
+                    cellValue = reader.getElementText();
+                }
+                else if ("is".equals(name) && inRow) {
+                    inInlineString = true;
+                    inlineText.setLength(0);
+                }
+                else if ("t".equals(name) && inInlineString) {
+                    inlineText.append(reader.getElementText());
+                }
+                else if ("rPh".equals(name) && inInlineString) {
+                    skipElement();
+                }
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = reader.getLocalName();
+
+                if ("is".equals(name)) {
+                    inInlineString = false;
+                    cellValue = inlineText.toString();
+                }
+                else if ("c".equals(name) && inRow && column >= 0) {
+                    if (column >= values.length) {
+                        int capacity = Math.max(values.length * 2, column + 1);
+                        values = Arrays.copyOf(values, capacity);
+                        dates = Arrays.copyOf(dates, capacity);
+                    }
+                    values[column] = toText(cellType, cellValue);
+                    dates[column] = cellType == null && cellValue != null && cellStyle < dateStyles.length && dateStyles[cellStyle];
+                    columnCount = Math.max(columnCount, column + 1);
+                }
+                else if ("row".equals(name)) {
+                    ExcelRow row = new ExcelRow(rowNumber, Arrays.copyOf(values, columnCount), Arrays.copyOf(dates, columnCount));
+                    Arrays.fill(values, 0, columnCount, null);
+                    Arrays.fill(dates, 0, columnCount, false);
+                    return row;
+                }
+                else if ("sheetData".equals(name)) {
+                    break;
+                }
+            }
+        }
+
+        endOfSheet = true;
+        return null;
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT) depth--;
+        }
+    }
+
+    private String toText(String cellType, String cellValue) {
+        if (cellValue == null) return null;
+        if (cellType == null || "n".equals(cellType)) return cellValue;
+
+        switch (cellType) {
+            case "s":
+                return sharedStrings.get(Integer.parseInt(cellValue.trim()));
+            case "b":
+                return "1".equals(cellValue) || "true".equals(cellValue) ? "true" : "false";
+            default:
+                /* str (formula result), inlineStr, e (#N/A ...), d (iso date in strict workbooks) */
+                return cellValue;
+        }
+    }
+
+    /* AB12 -> 27, letters only, 0 based */
+    static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int position = 0; position < cellReference.length(); position++) {
+            char c = cellReference.charAt(position);
+            if (c < 'A' || c > 'Z') break;
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        endOfSheet = true;
+        try {
+            reader.close();
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Unable to close sheet of " + filename, e);
+        }
+        finally {
+            try {
+                sheetInput.close();
+                if (sharedStrings != null) sharedStrings.close();
+            }
+            finally {
+                zipFile.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,626 @@
+package org.jvmscript.record;
+
+import com.univocity.parsers.csv.CsvFormat;
+import com.univocity.parsers.csv.CsvParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jvmscript.record.FixedWidthRecordFactory.FixedWidthBeanField;
+import org.jvmscript.record.RecordFactory.BeanField;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/*
+ * Sorts a delimited or fixed width file by @DataField / @FixedWidthField columns without loading it.
+ * Records are read into runs of at most memoryBudget / (parallelism + 1), each run is sorted on its own thread
+ * and spilled to a temp file, then the runs are merged with a heap, in several passes when there are more runs
+ * than the budget gives read buffers for. A file that fits in one run is sorted in memory with no temp files.
+ * Lines are copied as read, header rows go first and trailer rows last, the sort is stable.
+ * Empty key values sort before every other value, or after them for a descending key.
+ * Delimited records may span lines inside quotes, quotes inside a value must be escaped by doubling them,
+ * the line breaks inside a record are kept as they are in the file and the one ending it is written as lineSeparator.
+ * Run files hold each line with its parsed keys, so the keys are parsed once and not again in every merge pass.
+ */
+public class ExternalRecordSorter {
+
+    private static final Logger logger = LogManager.getLogger(ExternalRecordSorter.class);
+
+    private static final int MERGE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_MERGE_WIDTH = 512;
+    private static final long MIN_RUN_BUDGET = 1024 * 1024;
+    private static final int END_OF_RUN = -1;
+
+    public enum KeyType { STRING, LONG, DECIMAL, DATE }
+
+    static final class SortKey {
+        final String name;
+        final KeyType type;
+        final boolean descending;
+        final int column;
+        final int start;
+        final int length;
+        final DateFieldFormat dateFieldFormat;
+
+        SortKey(String name, KeyType type, boolean descending, int column, int start, int length, DateFieldFormat dateFieldFormat) {
+            this.name = name;
+            this.type = type;
+            this.descending = descending;
+            this.column = column;
+            this.start = start;
+            this.length = length;
+            this.dateFieldFormat = dateFieldFormat;
+        }
+    }
+
+    static final class SortRecord {
+        final String line;
+        final Comparable[] keys;
+
+        SortRecord(String line, Comparable[] keys) {
+            this.line = line;
+            this.keys = keys;
+        }
+    }
+
+    private interface LineSink {
+        void write(String line) throws IOException;
+    }
+
+    private interface RecordSink {
+        void write(SortRecord sortRecord) throws IOException;
+    }
+
+    public long memoryBudget = 256L * 1024 * 1024;
+    public int parallelism = Runtime.getRuntime().availableProcessors();
+    public String tempDirectory = System.getProperty("java.io.tmpdir");
+    public Charset charset;
+    public String lineSeparator;
+    public int headerRows;
+    public int trailerRows;
+
+    private final DelimitedRecordFactory delimitedRecordFactory;
+    private final FixedWidthRecordFactory fixedWidthRecordFactory;
+    private final Class<?> beanClass;
+    private final ArrayList<SortKey> sortKeys = new ArrayList<>();
+
+    private CsvFormat format;
+    private SortKey[] keys;
+    private Comparator<SortRecord> comparator;
+
+    /* runs spilled and merge passes before the last one, for the last sort */
+    int runCount;
+    int mergePasses;
+
+    ExternalRecordSorter(DelimitedRecordFactory recordFactory, Class<?> beanClass) {
+        this.delimitedRecordFactory = recordFactory;
+        this.fixedWidthRecordFactory = null;
+        this.beanClass = beanClass;
+        this.charset = Charset.defaultCharset();
+        this.lineSeparator = recordFactory.lineSeparator;
+        this.headerRows = recordFactory.headerRows;
+        this.trailerRows = recordFactory.trailerRows;
+    }
+
+    ExternalRecordSorter(FixedWidthRecordFactory recordFactory, Class<?> beanClass) {
+        this.delimitedRecordFactory = null;
+        this.fixedWidthRecordFactory = recordFactory;
+        this.beanClass = beanClass;
+        this.charset = recordFactory.charset;
+        this.lineSeparator = System.lineSeparator();
+        this.headerRows = recordFactory.headerRows;
+        this.trailerRows = recordFactory.trailerRows;
+    }
+
+    /* key type follows the field type, whole numbers sort as LONG, BigDecimal / double as DECIMAL, LocalDate as DATE */
+    public ExternalRecordSorter orderBy(String fieldName) {
+        return orderBy(fieldName, null, false);
+    }
+
+    public ExternalRecordSorter orderByDescending(String fieldName) {
+        return orderBy(fieldName, null, true);
+    }
+
+    /* fieldName is the annotation name or the java field name, a null type follows the field type */
+    public ExternalRecordSorter orderBy(String fieldName, KeyType type, boolean descending) {
+        if (delimitedRecordFactory != null) {
+            BeanField beanField = delimitedRecordFactory.getNameDataFieldMapByClass(beanClass).get(fieldName);
+            if (beanField == null) {
+                beanField = delimitedRecordFactory.getIdDataFieldMapByClass(beanClass).values().stream()
+                        .filter(field -> field.field.getName().equals(fieldName))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("No @DataField " + fieldName + " in " + beanClass.getName()));
+            }
+            KeyType keyType = type != null ? type : keyTypeOf(beanField.field.getType());
+            sortKeys.add(new SortKey(fieldName, keyType, descending,
+                    beanField.dataField.id(), 0, 0, keyType == KeyType.DATE ? beanField.dateFieldFormat() : null));
+        }
+        else {
+            FixedWidthBeanField beanField = fixedWidthRecordFactory.getFixedWidthDataFieldMapByClass(beanClass).values().stream()
+                    .filter(field -> field.fixedWidthField.name().equals(fieldName) || field.field.getName().equals(fieldName))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No @FixedWidthField " + fieldName + " in " + beanClass.getName()));
+            KeyType keyType = type != null ? type : keyTypeOf(beanField.field.getType());
+            sortKeys.add(new SortKey(fieldName, keyType, descending,
+                    -1, beanField.fixedWidthField.start(), beanField.fixedWidthField.length(), keyType == KeyType.DATE ? beanField.dateFieldFormat() : null));
+        }
+        return this;
+    }
+
+    static KeyType keyTypeOf(Class<?> type) {
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class || type == short.class || type == Short.class) return KeyType.LONG;
+        else if (type == BigDecimal.class || type == double.class || type == Double.class || type == float.class || type == Float.class) return KeyType.DECIMAL;
+        else if (type == LocalDate.class) return KeyType.DATE;
+        else return KeyType.STRING;
+    }
+
+    /* returns the number of records sorted, header and trailer rows not counted */
+    public long sort(String inputFilename, String outputFilename) throws Exception {
+        if (sortKeys.isEmpty()) {
+            throw new IllegalStateException("No sort keys, call orderBy before sort");
+        }
+
+        keys = sortKeys.toArray(new SortKey[0]);
+        comparator = (first, second) -> compareKeys(first.keys, second.keys, keys);
+        runCount = 0;
+        mergePasses = 0;
+        format = delimitedRecordFactory != null ? delimitedRecordFactory.detectFormat(inputFilename) : null;
+        char quote = format != null ? format.getQuote() : 0;
+
+        long runBudget = Math.max(MIN_RUN_BUDGET, memoryBudget / (parallelism + 1));
+        ArrayList<String> headerLines = new ArrayList<>();
+        ArrayDeque<String> lookahead = new ArrayDeque<>(trailerRows + 1);
+        ArrayList<Future<Path>> runFutures = new ArrayList<>();
+        ArrayList<Path> runFiles = new ArrayList<>();
+        ArrayList<String> run = new ArrayList<>();
+        long recordCount = 0;
+
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore runPermits = new Semaphore(parallelism);
+        try {
+            try (RecordReader reader = new RecordReader(Files.newBufferedReader(Paths.get(inputFilename), charset), quote)) {
+                String record;
+                long runBytes = 0;
+                while ((record = reader.readRecord()) != null) {
+                    if (headerLines.size() < headerRows) {
+                        headerLines.add(record);
+                        continue;
+                    }
+
+                    lookahead.addLast(record);
+                    if (lookahead.size() > trailerRows) {
+                        String line = lookahead.pollFirst();
+                        run.add(line);
+                        runBytes += estimateSize(line, keys.length);
+                        recordCount++;
+
+                        if (runBytes >= runBudget) {
+                            runFutures.add(submitRun(pool, runPermits, run));
+                            run = new ArrayList<>();
+                            runBytes = 0;
+                        }
+                    }
+                }
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFilename), charset)) {
+                LineSink output = line -> {
+                    writer.write(line);
+                    writer.write(lineSeparator);
+                };
+                for (String headerLine : headerLines) {
+                    output.write(headerLine);
+                }
+
+                if (runFutures.isEmpty()) {
+                    for (SortRecord sortRecord : sortRun(run)) {
+                        output.write(sortRecord.line);
+                    }
+                }
+                else {
+                    if (!run.isEmpty()) runFutures.add(submitRun(pool, runPermits, run));
+                    run = null;
+
+                    for (Future<Path> runFuture : runFutures) {
+                        runFiles.add(getRunFile(runFuture));
+                    }
+                    runCount = runFiles.size();
+                    logger.debug("Run Time = {} runs = {}", System.currentTimeMillis() - startTime, runFiles.size());
+                    mergeRuns(runFiles, output);
+                }
+
+                for (String trailerLine : lookahead) {
+                    output.write(trailerLine);
+                }
+            }
+        }
+        finally {
+            pool.shutdownNow();
+            for (Future<Path> runFuture : runFutures) {
+                if (runFuture.state() == Future.State.SUCCESS) {
+                    Files.deleteIfExists(runFuture.resultNow());
+                }
+            }
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+
+        logger.debug("Sort Time = {} records = {}", System.currentTimeMillis() - startTime, recordCount);
+        return recordCount;
+    }
+
+    private Future<Path> submitRun(ForkJoinPool pool, Semaphore runPermits, ArrayList<String> run) throws InterruptedException {
+        /* bounds the runs held in memory to the one being read plus one per thread */
+        runPermits.acquire();
+        return pool.submit(() -> {
+            try {
+                Path runFile = Files.createTempFile(Paths.get(tempDirectory), "sort", ".run");
+                try (RunWriter runWriter = new RunWriter(runFile, keys)) {
+                    for (SortRecord sortRecord : sortRun(run)) {
+                        runWriter.write(sortRecord);
+                    }
+                }
+                catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(runFile);
+                    throw e;
+                }
+                return runFile;
+            }
+            finally {
+                runPermits.release();
+            }
+        });
+    }
+
+    private static Path getRunFile(Future<Path> runFuture) throws Exception {
+        try {
+            return runFuture.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    private SortRecord[] sortRun(List<String> run) {
+        KeyParser keyParser = new KeyParser();
+        SortRecord[] sortRecords = new SortRecord[run.size()];
+        for (int recordCnt = 0; recordCnt < sortRecords.length; recordCnt++) {
+            String line = run.get(recordCnt);
+            sortRecords[recordCnt] = new SortRecord(line, keyParser.parse(line));
+        }
+        Arrays.sort(sortRecords, comparator);
+        return sortRecords;
+    }
+
+    /* merges consecutive runs so equal keys keep their input order */
+    private void mergeRuns(List<Path> runFiles, LineSink output) throws IOException {
+        int mergeWidth = (int) Math.max(2, Math.min(MAX_MERGE_WIDTH, memoryBudget / (2L * MERGE_BUFFER_SIZE)));
+
+        while (runFiles.size() > mergeWidth) {
+            ArrayList<Path> mergedRunFiles = new ArrayList<>();
+            for (int runCnt = 0; runCnt < runFiles.size(); runCnt += mergeWidth) {
+                List<Path> group = runFiles.subList(runCnt, Math.min(runFiles.size(), runCnt + mergeWidth));
+                if (group.size() == 1) {
+                    mergedRunFiles.add(group.get(0));
+                    continue;
+                }
+
+                Path mergedRunFile = Files.createTempFile(Paths.get(tempDirectory), "sort", ".run");
+                try (RunWriter runWriter = new RunWriter(mergedRunFile, keys)) {
+                    merge(group, runWriter::write);
+                }
+                catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(mergedRunFile);
+                    mergedRunFiles.forEach(this::deleteQuietly);
+                    throw e;
+                }
+                mergedRunFiles.add(mergedRunFile);
+                for (Path runFile : group) {
+                    Files.deleteIfExists(runFile);
+                }
+            }
+            logger.debug("Merge pass {} runs to {} runs", runFiles.size(), mergedRunFiles.size());
+            mergePasses++;
+            runFiles.clear();
+            runFiles.addAll(mergedRunFiles);
+        }
+        merge(runFiles, sortRecord -> output.write(sortRecord.line));
+    }
+
+    private void deleteQuietly(Path runFile) {
+        try {
+            Files.deleteIfExists(runFile);
+        }
+        catch (IOException e) {
+            logger.warn("Unable to delete sort run {}", runFile, e);
+        }
+    }
+
+    private void merge(List<Path> runFiles, RecordSink output) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(runFiles.size(), (first, second) -> {
+            int compare = comparator.compare(first.current, second.current);
+            return compare != 0 ? compare : Integer.compare(first.runIndex, second.runIndex);
+        });
+
+        ArrayList<RunReader> runReaders = new ArrayList<>(runFiles.size());
+        try {
+            for (int runCnt = 0; runCnt < runFiles.size(); runCnt++) {
+                RunReader runReader = new RunReader(runFiles.get(runCnt), runCnt, keys);
+                runReaders.add(runReader);
+                if (runReader.advance()) heap.add(runReader);
+            }
+
+            RunReader runReader;
+            while ((runReader = heap.poll()) != null) {
+                output.write(runReader.current);
+                if (runReader.advance()) heap.add(runReader);
+            }
+        }
+        finally {
+            for (RunReader reader : runReaders) {
+                reader.close();
+            }
+        }
+    }
+
+    private int compareKeys(Comparable[] first, Comparable[] second, SortKey[] keys) {
+        for (int keyCnt = 0; keyCnt < keys.length; keyCnt++) {
+            Comparable firstKey = first[keyCnt];
+            Comparable secondKey = second[keyCnt];
+
+            int compare;
+            if (firstKey == null) compare = secondKey == null ? 0 : -1;
+            else if (secondKey == null) compare = 1;
+            else compare = firstKey.compareTo(secondKey);
+
+            if (compare != 0) return keys[keyCnt].descending ? -compare : compare;
+        }
+        return 0;
+    }
+
+    private static long estimateSize(String line, int keyCount) {
+        return 64 + 2L * line.length() + 32L * keyCount;
+    }
+
+    /* one per thread, the delimited parser is not thread safe */
+    private final class KeyParser {
+        private final CsvParser parser = delimitedRecordFactory != null ? new CsvParser(delimitedRecordFactory.createChunkParserSettings(format)) : null;
+
+        Comparable[] parse(String line) {
+            String[] values = parser != null ? parser.parseLine(line) : null;
+            Comparable[] keys = new Comparable[sortKeys.size()];
+
+            for (int keyCnt = 0; keyCnt < keys.length; keyCnt++) {
+                SortKey sortKey = sortKeys.get(keyCnt);
+                String value;
+                if (parser != null) {
+                    value = values != null && sortKey.column >= 0 && sortKey.column < values.length ? values[sortKey.column] : null;
+                }
+                else {
+                    value = sortKey.start < line.length() ? line.substring(sortKey.start, Math.min(line.length(), sortKey.start + sortKey.length)) : null;
+                }
+
+                try {
+                    keys[keyCnt] = toKey(value, sortKey);
+                }
+                catch (RuntimeException e) {
+                    logger.error("Sort key {} is invalid for value <{}> in line {}", sortKey.name, value, line);
+                    throw e;
+                }
+            }
+            return keys;
+        }
+
+        private Comparable toKey(String value, SortKey sortKey) {
+            if (value == null) return null;
+            value = value.trim();
+            if (value.isEmpty()) return null;
+
+            switch (sortKey.type) {
+                case LONG: {
+                    String number = RecordFactory.cleanNumber(value);
+                    return number == null ? null : Long.valueOf(number);
+                }
+                case DECIMAL: {
+                    String number = RecordFactory.cleanNumber(value);
+                    return number == null ? null : new BigDecimal(number);
+                }
+                case DATE:
+                    return sortKey.dateFieldFormat.parseLocalDate(value);
+                default:
+                    return value;
+            }
+        }
+    }
+
+    /*
+     * Reads one record per call, a delimited record continues past a line break while a quote is open.
+     * The line breaks inside a record are kept, the \n, \r\n or \r ending it is dropped.
+     */
+    private static final class RecordReader implements Closeable {
+        private final Reader reader;
+        private final char quote;
+        private final char[] buffer = new char[MERGE_BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private boolean skipLineFeed = false;
+
+        RecordReader(Reader reader, char quote) {
+            this.reader = reader;
+            this.quote = quote;
+        }
+
+        String readRecord() throws IOException {
+            StringBuilder record = null;
+            boolean quoteOpen = false;
+
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(0, reader.read(buffer, 0, buffer.length));
+                    position = 0;
+                    if (limit == 0) return record != null ? record.toString() : null;
+                }
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n' && ++position == limit) continue;
+                }
+                if (record == null) record = new StringBuilder(128);
+
+                int start = position;
+                for (; position < limit; position++) {
+                    char c = buffer[position];
+                    if (quote != 0 && c == quote) {
+                        quoteOpen = !quoteOpen;
+                    }
+                    else if ((c == '\n' || c == '\r') && !quoteOpen) {
+                        record.append(buffer, start, position - start);
+                        position++;
+                        skipLineFeed = c == '\r';
+                        return record.toString();
+                    }
+                }
+                record.append(buffer, start, position - start);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /*
+     * run files hold each UTF-8 line prefixed by its byte length, so records with line breaks survive the spill,
+     * followed by its keys, a 0 byte for an empty key or 1 and the value
+     */
+    private static final class RunWriter implements Closeable {
+        private final DataOutputStream output;
+        private final SortKey[] keys;
+
+        RunWriter(Path runFile, SortKey[] keys) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(runFile), MERGE_BUFFER_SIZE));
+            this.keys = keys;
+        }
+
+        void write(SortRecord sortRecord) throws IOException {
+            writeBytes(sortRecord.line.getBytes(StandardCharsets.UTF_8));
+
+            for (int keyCnt = 0; keyCnt < keys.length; keyCnt++) {
+                Comparable key = sortRecord.keys[keyCnt];
+                if (key == null) {
+                    output.writeByte(0);
+                    continue;
+                }
+
+                output.writeByte(1);
+                switch (keys[keyCnt].type) {
+                    case LONG:
+                        output.writeLong((Long) key);
+                        break;
+                    case DECIMAL:
+                        output.writeInt(((BigDecimal) key).scale());
+                        writeBytes(((BigDecimal) key).unscaledValue().toByteArray());
+                        break;
+                    case DATE:
+                        output.writeLong(((LocalDate) key).toEpochDay());
+                        break;
+                    default:
+                        writeBytes(((String) key).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.writeInt(END_OF_RUN);
+            output.close();
+        }
+    }
+
+    private static final class RunReader implements Closeable {
+        final int runIndex;
+        private final DataInputStream input;
+        private final SortKey[] keys;
+        SortRecord current;
+
+        RunReader(Path runFile, int runIndex, SortKey[] keys) throws IOException {
+            this.runIndex = runIndex;
+            this.keys = keys;
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile), MERGE_BUFFER_SIZE));
+        }
+
+        boolean advance() throws IOException {
+            int length = input.readInt();
+            if (length == END_OF_RUN) {
+                current = null;
+                return false;
+            }
+
+            String line = new String(readBytes(length), StandardCharsets.UTF_8);
+            Comparable[] values = new Comparable[keys.length];
+            for (int keyCnt = 0; keyCnt < keys.length; keyCnt++) {
+                if (input.readByte() == 0) continue;
+
+                switch (keys[keyCnt].type) {
+                    case LONG:
+                        values[keyCnt] = input.readLong();
+                        break;
+                    case DECIMAL: {
+                        int scale = input.readInt();
+                        values[keyCnt] = new BigDecimal(new BigInteger(readBytes(input.readInt())), scale);
+                        break;
+                    }
+                    case DATE:
+                        values[keyCnt] = LocalDate.ofEpochDay(input.readLong());
+                        break;
+                    default:
+                        values[keyCnt] = new String(readBytes(input.readInt()), StandardCharsets.UTF_8);
+                }
+            }
+            current = new SortRecord(line, values);
+            return true;
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
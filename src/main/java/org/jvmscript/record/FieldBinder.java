@@ -0,0 +1,462 @@
+package org.jvmscript.record;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/*
+ * Type specialized setter for one annotated bean field, built once when the field metadata for a class is cached.
+ * The method handles are adapted to (Object, fieldType) so primitive fields are written without boxing
+ * and no reflective access check happens per value.
+ */
+abstract class FieldBinder {
+
+    final Field field;
+    final MethodHandle setter;
+    final MethodHandle getter;
+    final MethodHandle fieldGetter;
+
+    private static final MethodHandle FIELD_SET;
+
+    static {
+        try {
+            FIELD_SET = MethodHandles.lookup().findVirtual(Field.class, "set", MethodType.methodType(void.class, Object.class, Object.class));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    FieldBinder(Field field) {
+        this.field = field;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            Class<?> valueType = field.getType().isPrimitive() ? field.getType() : Object.class;
+
+            MethodHandle fieldSetter;
+            if (Modifier.isFinal(field.getModifiers())) {
+                /* no setter handle exists for a final field, write it through Field.set the way the reflective binding did */
+                field.setAccessible(true);
+                fieldSetter = FIELD_SET.bindTo(field);
+            }
+            else {
+                fieldSetter = lookup.unreflectSetter(field);
+            }
+            setter = fieldSetter.asType(MethodType.methodType(void.class, Object.class, valueType));
+            fieldGetter = lookup.unreflectGetter(field);
+            getter = fieldGetter.asType(MethodType.methodType(Object.class, Object.class));
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access field " + field.getName() + " of " + field.getDeclaringClass().getName(), e);
+        }
+    }
+
+    static FieldBinder forField(Field field, String dateFormat) {
+        return forField(field, dateFormat, false);
+    }
+
+    /* fixed width files keep the literal text "null" in String fields and parse dates case sensitive, as they always have */
+    static FieldBinder forFixedWidthField(Field field, String dateFormat) {
+        return forField(field, dateFormat, true);
+    }
+
+    private static FieldBinder forField(Field field, String dateFormat, boolean fixedWidth) {
+        Class<?> type = field.getType();
+
+        if (type == String.class) return new StringBinder(field, !fixedWidth);
+        else if (type == Integer.class || type == int.class) return new IntBinder(field);
+        else if (type == Long.class || type == long.class) return new LongBinder(field);
+        else if (type == Double.class || type == double.class) return new DoubleBinder(field);
+        else if (type == Float.class || type == float.class) return new FloatBinder(field);
+        else if (type == BigDecimal.class) return new BigDecimalBinder(field);
+        else if (type == LocalDate.class) return new LocalDateBinder(field, dateFieldFormat(dateFormat, fixedWidth));
+        else if (type == LocalDateTime.class) return new LocalDateTimeBinder(field, dateFieldFormat(dateFormat, fixedWidth));
+        else return new ConstructorBinder(field);
+    }
+
+    /* only date fields compile their pattern, a dateFormat on any other field is never used */
+    private static DateFieldFormat dateFieldFormat(String dateFormat, boolean fixedWidth) {
+        return fixedWidth ? DateFieldFormat.ofCaseSensitive(dateFormat) : DateFieldFormat.of(dateFormat);
+    }
+
+    /* value is already trimmed and not empty */
+    abstract void set(Object bean, String value) throws Exception;
+
+    /* same contract as set, used for values read straight from a byte buffer */
+    void setChars(Object bean, CharSequence value) throws Exception {
+        set(bean, value.toString());
+    }
+
+    void setEmpty(Object bean) throws Exception {
+        setObject(bean, null);
+    }
+
+    final void setObject(Object bean, Object value) throws Exception {
+        try {
+            setter.invokeExact(bean, value);
+        }
+        catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    final Object get(Object bean) throws Exception {
+        try {
+            return (Object) getter.invokeExact(bean);
+        }
+        catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /* getter adapted to (Object)valueType, lets writers read primitive fields without boxing */
+    final MethodHandle getter(Class<?> valueType) {
+        return fieldGetter.asType(MethodType.methodType(valueType, Object.class));
+    }
+
+    static Exception rethrow(Throwable t) {
+        if (t instanceof Exception) return (Exception) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t);
+    }
+
+    static final class StringBinder extends FieldBinder {
+        final boolean nullText;
+
+        /* nullText binds the literal text "null" as a null String */
+        StringBinder(Field field, boolean nullText) {
+            super(field);
+            this.nullText = nullText;
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setObject(bean, nullText && "null".equals(value) ? null : value);
+        }
+    }
+
+    static final class IntBinder extends FieldBinder {
+        final boolean primitive;
+
+        IntBinder(Field field) {
+            super(field);
+            primitive = field.getType().isPrimitive();
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setChars(bean, value);
+        }
+
+        void setCleaned(Object bean, String value) throws Exception {
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) {
+                setEmpty(bean);
+            }
+            else if (primitive) {
+                setInt(bean, Integer.parseInt(number));
+            }
+            else {
+                setObject(bean, Integer.valueOf(number));
+            }
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            long packed = NumberScanner.scan(value);
+            if (!NumberScanner.isInt(packed)) {
+                setCleaned(bean, value.toString());
+            }
+            else if (primitive) {
+                setInt(bean, (int) NumberScanner.signedUnscaled(packed));
+            }
+            else {
+                setObject(bean, Integer.valueOf((int) NumberScanner.signedUnscaled(packed)));
+            }
+        }
+
+        @Override
+        void setEmpty(Object bean) throws Exception {
+            if (primitive) setInt(bean, 0);
+            else setObject(bean, null);
+        }
+
+        void setInt(Object bean, int value) throws Exception {
+            try {
+                setter.invokeExact(bean, value);
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    static final class LongBinder extends FieldBinder {
+        final boolean primitive;
+
+        LongBinder(Field field) {
+            super(field);
+            primitive = field.getType().isPrimitive();
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setChars(bean, value);
+        }
+
+        void setCleaned(Object bean, String value) throws Exception {
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) {
+                setEmpty(bean);
+            }
+            else if (primitive) {
+                setLong(bean, Long.parseLong(number));
+            }
+            else {
+                setObject(bean, Long.valueOf(number));
+            }
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            long packed = NumberScanner.scan(value);
+            if (!NumberScanner.isLong(packed)) {
+                setCleaned(bean, value.toString());
+            }
+            else if (primitive) {
+                setLong(bean, NumberScanner.signedUnscaled(packed));
+            }
+            else {
+                setObject(bean, Long.valueOf(NumberScanner.signedUnscaled(packed)));
+            }
+        }
+
+        @Override
+        void setEmpty(Object bean) throws Exception {
+            if (primitive) setLong(bean, 0L);
+            else setObject(bean, null);
+        }
+
+        void setLong(Object bean, long value) throws Exception {
+            try {
+                setter.invokeExact(bean, value);
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    static final class DoubleBinder extends FieldBinder {
+        final boolean primitive;
+
+        DoubleBinder(Field field) {
+            super(field);
+            primitive = field.getType().isPrimitive();
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setChars(bean, value);
+        }
+
+        void setCleaned(Object bean, String value) throws Exception {
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) {
+                setEmpty(bean);
+                return;
+            }
+
+            String lower = number.toLowerCase(Locale.ROOT);
+            double doubleValue = switch (lower) {
+                case "nan" -> Double.NaN;
+                case "inf", "+inf", "infinity", "+infinity" -> Double.POSITIVE_INFINITY;
+                case "-inf", "-infinity" -> Double.NEGATIVE_INFINITY;
+                default -> Double.parseDouble(lower);
+            };
+
+            if (primitive) setDouble(bean, doubleValue);
+            else setObject(bean, doubleValue);
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            long packed = NumberScanner.scan(value);
+            if (!NumberScanner.isExactDouble(packed)) {
+                setCleaned(bean, value.toString());
+            }
+            else if (primitive) {
+                setDouble(bean, NumberScanner.toDouble(packed));
+            }
+            else {
+                setObject(bean, NumberScanner.toDouble(packed));
+            }
+        }
+
+        @Override
+        void setEmpty(Object bean) throws Exception {
+            if (primitive) setDouble(bean, 0.00);
+            else setObject(bean, null);
+        }
+
+        void setDouble(Object bean, double value) throws Exception {
+            try {
+                setter.invokeExact(bean, value);
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    static final class FloatBinder extends FieldBinder {
+        final boolean primitive;
+
+        FloatBinder(Field field) {
+            super(field);
+            primitive = field.getType().isPrimitive();
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setChars(bean, value);
+        }
+
+        void setCleaned(Object bean, String value) throws Exception {
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) {
+                setEmpty(bean);
+                return;
+            }
+
+            String lower = number.toLowerCase(Locale.ROOT);
+            float floatValue = switch (lower) {
+                case "nan" -> Float.NaN;
+                case "inf", "+inf", "infinity", "+infinity" -> Float.POSITIVE_INFINITY;
+                case "-inf", "-infinity" -> Float.NEGATIVE_INFINITY;
+                default -> Float.parseFloat(lower);
+            };
+
+            if (primitive) setFloat(bean, floatValue);
+            else setObject(bean, floatValue);
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            long packed = NumberScanner.scan(value);
+            if (!NumberScanner.isExactFloat(packed)) {
+                setCleaned(bean, value.toString());
+            }
+            else if (primitive) {
+                setFloat(bean, NumberScanner.toFloat(packed));
+            }
+            else {
+                setObject(bean, NumberScanner.toFloat(packed));
+            }
+        }
+
+        @Override
+        void setEmpty(Object bean) throws Exception {
+            if (primitive) setFloat(bean, 0.00f);
+            else setObject(bean, null);
+        }
+
+        void setFloat(Object bean, float value) throws Exception {
+            try {
+                setter.invokeExact(bean, value);
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    static final class BigDecimalBinder extends FieldBinder {
+        BigDecimalBinder(Field field) {
+            super(field);
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setChars(bean, value);
+        }
+
+        void setCleaned(Object bean, String value) throws Exception {
+            String number = RecordFactory.cleanNumber(value);
+            setObject(bean, number == null ? null : new BigDecimal(number));
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            long packed = NumberScanner.scan(value);
+            if (packed == NumberScanner.NOT_SIMPLE) {
+                setCleaned(bean, value.toString());
+            }
+            else {
+                setObject(bean, BigDecimal.valueOf(NumberScanner.signedUnscaled(packed), NumberScanner.scale(packed)));
+            }
+        }
+    }
+
+    static final class LocalDateBinder extends FieldBinder {
+        final DateFieldFormat dateFieldFormat;
+
+        LocalDateBinder(Field field, DateFieldFormat dateFieldFormat) {
+            super(field);
+            this.dateFieldFormat = dateFieldFormat;
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setObject(bean, dateFieldFormat.parseLocalDate(value));
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            setObject(bean, dateFieldFormat.parseLocalDate(value));
+        }
+    }
+
+    static final class LocalDateTimeBinder extends FieldBinder {
+        final DateFieldFormat dateFieldFormat;
+
+        LocalDateTimeBinder(Field field, DateFieldFormat dateFieldFormat) {
+            super(field);
+            this.dateFieldFormat = dateFieldFormat;
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            setObject(bean, dateFieldFormat.parseLocalDateTime(value));
+        }
+
+        @Override
+        void setChars(Object bean, CharSequence value) throws Exception {
+            setObject(bean, dateFieldFormat.parseLocalDateTime(value));
+        }
+    }
+
+    static final class ConstructorBinder extends FieldBinder {
+        Constructor<?> constructor;
+
+        ConstructorBinder(Field field) {
+            super(field);
+        }
+
+        @Override
+        void set(Object bean, String value) throws Exception {
+            if (constructor == null) {
+                constructor = field.getType().getDeclaredConstructor(String.class);
+            }
+            setObject(bean, constructor.newInstance(value));
+        }
+    }
+}
@@ -17,8 +17,11 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,21 +29,63 @@ import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class FixedWidthRecordFactory extends RecordFactory {
 
     private static final Logger logger = LogManager.getLogger(FixedWidthRecordFactory.class);
 
-    class FixedWidthBeanField {
+    static class FixedWidthBeanField {
         Field field;
         FixedWidthField fixedWidthField;
+        FieldBinder binder;
+        DateFieldFormat dateFieldFormat;
+
+        /* compiled on first use, a dateFormat on a field that is not a date is never parsed */
+        DateFieldFormat dateFieldFormat() {
+            if (dateFieldFormat == null) {
+                dateFieldFormat = DateFieldFormat.ofCaseSensitive(fixedWidthField.dateFormat());
+            }
+            return dateFieldFormat;
+        }
     }
 
-    private static TreeMap<String, TreeMap> CachedFieldsByClassMap = new TreeMap<String, TreeMap>();
+    /* computed once per Class and shared across threads, keyed on the Class so classloaders cannot collide */
+    private static final ClassValue<TreeMap<Integer, FixedWidthBeanField>> CachedFieldsByClass = new ClassValue<>() {
+        @Override
+        protected TreeMap<Integer, FixedWidthBeanField> computeValue(Class<?> beanClass) {
+            Class clazz = beanClass;
+            TreeMap<Integer, FixedWidthBeanField> fixedWidthFieldClassMap = new TreeMap<Integer, FixedWidthBeanField>();
+
+            do {
+                for (Field field : clazz.getDeclaredFields()) {
+                    FixedWidthField annotation = (FixedWidthField) field.getAnnotation(FixedWidthField.class);
+                    if (annotation != null) {
+                        FixedWidthBeanField beanField = new FixedWidthBeanField();
+                        beanField.field = field;
+                        beanField.fixedWidthField = annotation;
+                        beanField.binder = FieldBinder.forFixedWidthField(field, annotation.dateFormat());
+                        fixedWidthFieldClassMap.put(annotation.start(), beanField);
+                    }
+                }
+                clazz = clazz.getSuperclass();
+
+            } while (clazz != null);
+
+            return fixedWidthFieldClassMap;
+        }
+    };
+
+    public Charset charset = StandardCharsets.ISO_8859_1;
+    /* bytes mapped at a time by the mapped iterator, a record may not be longer than this */
+    public long mappedWindowSize = FixedWidthRecordIterator.DEFAULT_WINDOW_SIZE;
 
     public <T> ArrayList<T> getBeanListFromFixedWidthFile(String filename, Class<T> beanClass) throws Exception {
 
@@ -55,6 +100,43 @@ public class FixedWidthRecordFactory extends RecordFactory {
 
         return beans;
     }
+
+    public <T> FixedWidthRecordIterator<T> openMappedRecordIterator(String filename, Class<T> beanClass) throws IOException {
+        if (mappedWindowSize <= 0 || mappedWindowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("mappedWindowSize must be between 1 and " + Integer.MAX_VALUE + ", was " + mappedWindowSize);
+        }
+        return new FixedWidthRecordIterator<T>(this, filename, beanClass, charset, mappedWindowSize);
+    }
+
+    public <T> Stream<T> streamBeansFromFixedWidthFile(String filename, Class<T> beanClass) throws IOException {
+        FixedWidthRecordIterator<T> iterator = openMappedRecordIterator(filename, beanClass);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                iterator.close();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public <T> long forEachBeanFromFixedWidthFile(String filename, Class<T> beanClass, Consumer<? super T> consumer) throws IOException {
+        long recordCount = 0;
+        try (FixedWidthRecordIterator<T> iterator = openMappedRecordIterator(filename, beanClass)) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                recordCount++;
+            }
+        }
+        return recordCount;
+    }
+
+    /* sorts a file too large to load by the class's @FixedWidthField columns, see ExternalRecordSorter */
+    public ExternalRecordSorter createFileSorter(Class<?> beanClass) {
+        return new ExternalRecordSorter(this, beanClass);
+    }
+
     public <T> T getBeanFromFixedWidthBuffer(String buffer, Class<T> beanClass) throws Exception {
 
         T bean = beanClass.newInstance();
@@ -72,33 +154,18 @@ public class FixedWidthRecordFactory extends RecordFactory {
                     fieldString = buffer.substring(annotation.start(), endPosition).trim();
                 }
 
-                if (!"".equals(fieldString) && fieldString != null) {
-                    if (fixedWidthBeanField.field.getType() == String.class) {
-                        fixedWidthBeanField.field.set(bean, fieldString);
-                    } else if (fixedWidthBeanField.field.getType() == BigDecimal.class) {
-                        try {
-                            fixedWidthBeanField.field.set(bean, new BigDecimal(cleanNumberString(fieldString)));
-                        }
-                        catch (Exception e) {
-                            logger.error("field string = {} annotation name  = {} annotation start = {}", fieldString, annotation.name(), annotation.start());
-                            throw e;
-                        }
-                    } else if (fixedWidthBeanField.field.getType() == Integer.class) {
-                        fixedWidthBeanField.field.set(bean, Integer.valueOf(cleanNumberString(fieldString)));
-                    } else if (fixedWidthBeanField.field.getType() == LocalDate.class) {
-                        DateTimeFormatter dtf = DateTimeFormatter.ofPattern(annotation.dateFormat());
-                        fixedWidthBeanField.field.set(bean, LocalDate.parse(fieldString, dtf));
-                    } else if (fixedWidthBeanField.field.getType() == LocalDateTime.class) {
-                        DateTimeFormatter dtf = DateTimeFormatter.ofPattern(annotation.dateFormat());
-                        fixedWidthBeanField.field.set(bean, LocalDateTime.parse(fieldString, dtf));
-                    } else {
-                        Object object = fixedWidthBeanField.field.getType().getDeclaredConstructor(String.class).newInstance(fieldString);
-                        fixedWidthBeanField.field.set(bean, object);
+                try {
+                    if (!"".equals(fieldString) && fieldString != null) {
+                        fixedWidthBeanField.binder.set(bean, fieldString);
+                    }
+                    else {
+                        //empty
+                        fixedWidthBeanField.binder.setEmpty(bean);
                     }
                 }
-                else {
-                    //empty
-                    fixedWidthBeanField.field.set(bean, null);
+                catch (Exception e) {
+                    logger.error("field string = {} annotation name  = {} annotation start = {}", fieldString, annotation.name(), annotation.start());
+                    throw e;
                 }
             }
         }
@@ -112,30 +179,7 @@ public class FixedWidthRecordFactory extends RecordFactory {
     }
 
     <T> TreeMap<Integer,FixedWidthBeanField> getFixedWidthDataFieldMapByClass(Class<T> beanClass) {
-
-            Class clazz = beanClass;
-            TreeMap<Integer, FixedWidthBeanField> fixedWidthFieldClassMap = CachedFieldsByClassMap.get(beanClass.getName());
-
-            if (fixedWidthFieldClassMap == null) {
-                fixedWidthFieldClassMap = new TreeMap<Integer, FixedWidthBeanField>();
-
-                do {
-                    for (Field field : clazz.getDeclaredFields()) {
-                        FixedWidthField annotation = (FixedWidthField) field.getAnnotation(FixedWidthField.class);
-                        if (annotation != null) {
-                            FixedWidthBeanField beanField = new FixedWidthBeanField();
-                            beanField.field = field;
-                            beanField.fixedWidthField = annotation;
-                            fixedWidthFieldClassMap.put(annotation.start(), beanField);
-                        }
-                    }
-                    clazz = clazz.getSuperclass();
-
-                } while (clazz != null);
-
-                CachedFieldsByClassMap.put(beanClass.getName(), fixedWidthFieldClassMap);
-            }
-            return fixedWidthFieldClassMap;
+        return CachedFieldsByClass.get(beanClass);
     }
     public void writeFixedWidthBeanListToFile(String filename, ArrayList<? extends Object> fixedWidthBeanList) throws Exception {
 
@@ -243,8 +287,7 @@ public class FixedWidthRecordFactory extends RecordFactory {
     }
 
     String convertLocalDateTimeToFixedWidth(LocalDateTime localDateTime, String name, String dateFormat, int maxLength) throws Exception {
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern(dateFormat);
-        String dateString = localDateTime.format(dtf);
+        String dateString = DateFieldFormat.of(dateFormat).format(localDateTime);
         checkStringLength(dateString, name, maxLength);
         return rightPadFixedString(dateString, maxLength);
 
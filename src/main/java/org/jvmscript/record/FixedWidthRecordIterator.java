@@ -0,0 +1,202 @@
+package org.jvmscript.record;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jvmscript.record.FixedWidthRecordFactory.FixedWidthBeanField;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * Reads a fixed width file through a sliding memory mapped window and binds each line straight from the mapped bytes.
+ * Field offsets are byte offsets, so the file must use a single byte charset (ASCII, ISO-8859-1, windows-1252 ...).
+ * Only the offsets of trailerRows + 1 lines are held back, files larger than the heap can be read.
+ */
+public class FixedWidthRecordIterator<T> implements Iterator<T>, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(FixedWidthRecordIterator.class);
+
+    static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final String filename;
+    private final Class<T> beanClass;
+    private final FixedWidthBeanField[] beanFields;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long windowSize;
+    private final ByteSlice slice;
+
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private long windowEnd = 0;
+
+    private final long[] lineStarts;
+    private final int[] lineLengths;
+    private int pendingHead = 0;
+    private int pendingCount = 0;
+    private final int trailerRows;
+
+    private long nextLineStart = 0;
+    private int lineCnt = 0;
+
+    FixedWidthRecordIterator(FixedWidthRecordFactory recordFactory, String filename, Class<T> beanClass, Charset charset, long windowSize) throws IOException {
+        this.filename = filename;
+        this.beanClass = beanClass;
+        this.beanFields = recordFactory.getFixedWidthDataFieldMapByClass(beanClass).values().toArray(new FixedWidthBeanField[0]);
+        this.slice = new ByteSlice(charset);
+        this.windowSize = windowSize;
+        this.trailerRows = recordFactory.trailerRows;
+        this.lineStarts = new long[trailerRows + 1];
+        this.lineLengths = new int[trailerRows + 1];
+
+        channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+        fileSize = channel.size();
+
+        for (int headerCnt = 0; headerCnt < recordFactory.headerRows && nextLineStart < fileSize; headerCnt++) {
+            readLine();
+            lineCnt++;
+        }
+        fill();
+    }
+
+    /* locates the next line, stores it in the lookahead ring and returns false at end of file */
+    private boolean readLine() throws IOException {
+        if (nextLineStart >= fileSize) {
+            return false;
+        }
+
+        long lineStart = nextLineStart;
+        long position = lineStart;
+
+        while (true) {
+            if (position >= windowEnd) {
+                if (position >= fileSize) {
+                    break;
+                }
+                map(lineStart);
+            }
+
+            byte b = window.get((int) (position - windowStart));
+            if (b == '\n') {
+                break;
+            }
+            position++;
+        }
+
+        nextLineStart = position + 1;
+
+        long lineEnd = position;
+        if (lineEnd > lineStart && byteAt(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+
+        int slot = (pendingHead + pendingCount) % lineStarts.length;
+        lineStarts[slot] = lineStart;
+        lineLengths[slot] = (int) (lineEnd - lineStart);
+        return true;
+    }
+
+    private byte byteAt(long position) {
+        return window.get((int) (position - windowStart));
+    }
+
+    private void map(long start) throws IOException {
+        if (start == windowStart && windowEnd == Math.min(fileSize, start + windowSize) && window != null) {
+            throw new IOException("Line starting at " + start + " in " + filename + " is longer than the mapped window of " + windowSize + " bytes");
+        }
+        windowStart = start;
+        windowEnd = Math.min(fileSize, start + windowSize);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+    }
+
+    private void fill() {
+        try {
+            while (pendingCount <= trailerRows && readLine()) {
+                pendingCount++;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pendingCount > trailerRows;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more records in file " + filename);
+        }
+
+        try {
+            long lineStart = lineStarts[pendingHead];
+            int lineLength = lineLengths[pendingHead];
+
+            if (lineStart < windowStart || lineStart + lineLength > windowEnd) {
+                map(lineStart);
+            }
+
+            T bean = getBeanFromWindow((int) (lineStart - windowStart), lineLength);
+
+            pendingHead = (pendingHead + 1) % lineStarts.length;
+            pendingCount--;
+            lineCnt++;
+            fill();
+            return bean;
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IllegalStateException("Unable to create " + beanClass.getName() + " from file " + filename + " line " + lineCnt, e);
+        }
+    }
+
+    private T getBeanFromWindow(int lineOffset, int lineLength) throws Exception {
+        T bean = beanClass.newInstance();
+
+        for (FixedWidthBeanField fixedWidthBeanField : beanFields) {
+            FixedWidthField annotation = fixedWidthBeanField.fixedWidthField;
+            int endPosition = annotation.start() + annotation.length();
+
+            try {
+                if (endPosition <= lineLength) {
+                    slice.set(window, lineOffset + annotation.start(), annotation.length()).trim();
+                }
+                else {
+                    slice.set(window, lineOffset, 0);
+                }
+
+                if (slice.length() > 0) {
+                    fixedWidthBeanField.binder.setChars(bean, slice);
+                }
+                else {
+                    fixedWidthBeanField.binder.setEmpty(bean);
+                }
+            }
+            catch (Exception e) {
+                logger.error("field string = {} annotation name  = {} annotation start = {} line = {}", slice, annotation.name(), annotation.start(), lineCnt);
+                throw e;
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pendingCount = 0;
+        window = null;
+        channel.close();
+    }
+}
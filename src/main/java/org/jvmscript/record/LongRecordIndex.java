@@ -0,0 +1,150 @@
+package org.jvmscript.record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/*
+ * Beans indexed by a primitive long key, for numeric keys such as account or trade ids.
+ * Open addressing over long[] keys, sized up front from expectedSize. The key slots double when they pass 2/3 full
+ * and the bean arrays double when full, so only an expectedSize below the final count costs a rehash.
+ * Duplicate keys are kept, every bean with the key is returned in the order it was added.
+ */
+public final class LongRecordIndex<V> {
+
+    private final ToLongFunction<? super V> keyFunction;
+
+    private long[] slotKeys;
+    private int[] slotHeads;
+    private int[] slotTails;
+    private int keyCount = 0;
+
+    private Object[] values;
+    private int[] nextValues;
+    private int size = 0;
+
+    public LongRecordIndex(ToLongFunction<? super V> keyFunction, int expectedSize) {
+        this.keyFunction = keyFunction;
+        this.values = new Object[Math.max(16, expectedSize)];
+        this.nextValues = new int[values.length];
+        allocateSlots(tableSizeFor(values.length));
+    }
+
+    static int tableSizeFor(int keyCount) {
+        /* load factor at most 2/3 */
+        long slots = Math.max(16, (long) keyCount * 3 / 2 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(slots - 1) << 1);
+    }
+
+    static int mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    private void allocateSlots(int tableSize) {
+        slotKeys = new long[tableSize];
+        slotHeads = new int[tableSize];
+        slotTails = new int[tableSize];
+        Arrays.fill(slotHeads, -1);
+    }
+
+    private int findSlot(long key) {
+        int mask = slotHeads.length - 1;
+        int slot = mix(key) & mask;
+        while (slotHeads[slot] >= 0 && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    public void add(V value) {
+        long key = keyFunction.applyAsLong(value);
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            nextValues = Arrays.copyOf(nextValues, size * 2);
+        }
+        int entry = size++;
+        values[entry] = value;
+        nextValues[entry] = -1;
+
+        int slot = findSlot(key);
+        if (slotHeads[slot] < 0) {
+            slotKeys[slot] = key;
+            slotHeads[slot] = entry;
+            slotTails[slot] = entry;
+            if (++keyCount * 3 > slotHeads.length * 2) {
+                rehash(slotHeads.length * 2);
+            }
+        }
+        else {
+            nextValues[slotTails[slot]] = entry;
+            slotTails[slot] = entry;
+        }
+    }
+
+    public void addAll(Iterable<? extends V> values) {
+        for (V value : values) {
+            add(value);
+        }
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = slotKeys;
+        int[] oldHeads = slotHeads;
+        int[] oldTails = slotTails;
+        allocateSlots(tableSize);
+
+        for (int oldSlot = 0; oldSlot < oldHeads.length; oldSlot++) {
+            if (oldHeads[oldSlot] < 0) continue;
+            int slot = findSlot(oldKeys[oldSlot]);
+            slotKeys[slot] = oldKeys[oldSlot];
+            slotHeads[slot] = oldHeads[oldSlot];
+            slotTails[slot] = oldTails[oldSlot];
+        }
+    }
+
+    /* first bean added with the key, null when there is none */
+    public V get(long key) {
+        int head = slotHeads[findSlot(key)];
+        return head < 0 ? null : (V) values[head];
+    }
+
+    public List<V> getAll(long key) {
+        ArrayList<V> matches = new ArrayList<>();
+        forEach(key, matches::add);
+        return matches;
+    }
+
+    public void forEach(long key, Consumer<? super V> consumer) {
+        for (int entry = slotHeads[findSlot(key)]; entry >= 0; entry = nextValues[entry]) {
+            consumer.accept((V) values[entry]);
+        }
+    }
+
+    public int count(long key) {
+        int count = 0;
+        for (int entry = slotHeads[findSlot(key)]; entry >= 0; entry = nextValues[entry]) {
+            count++;
+        }
+        return count;
+    }
+
+    public boolean containsKey(long key) {
+        return slotHeads[findSlot(key)] >= 0;
+    }
+
+    /* number of beans added */
+    public int size() {
+        return size;
+    }
+
+    /* number of distinct keys, less than size() when there are duplicates */
+    public int keyCount() {
+        return keyCount;
+    }
+}
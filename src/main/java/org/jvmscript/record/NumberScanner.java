@@ -0,0 +1,149 @@
+package org.jvmscript.record;
+
+/*
+ * Single pass replacement for cleanNumberString followed by Integer.valueOf / Long.valueOf / Double.parseDouble / new BigDecimal
+ * that works over a CharSequence without creating intermediate Strings.
+ * The result is packed into one long so the scan stays allocation free and thread safe:
+ * bit 0 is the sign, bits 1-5 the scale and the remaining bits the unscaled value (at most 17 digits).
+ * NOT_SIMPLE is returned for anything outside the supported grammar, callers then take the String path.
+ */
+final class NumberScanner {
+
+    static final long NOT_SIMPLE = -1L;
+
+    private static final int MAX_DIGITS = 17;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private NumberScanner() {
+    }
+
+    /*
+     * Applies the RecordFactory.cleanNumberString rules in the same pass:
+     * ',', '$' and ' ' are skipped, a trailing '-' makes the number negative wherever the other hyphens are,
+     * a single leading '-' is a sign and hyphens inside the digits are dropped.
+     * Exponents, '+', a trailing '.', NaN/Infinity, "null" and values over 17 digits return NOT_SIMPLE.
+     */
+    static long scan(CharSequence value) {
+        int length = value.length();
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        int hyphens = 0;
+        char first = 0;
+        char last = 0;
+
+        for (int position = 0; position < length; position++) {
+            char c = value.charAt(position);
+
+            if (c == ',' || c == '$' || c == ' ') {
+                continue;
+            }
+
+            if (first == 0) {
+                first = c;
+            }
+            last = c;
+
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return NOT_SIMPLE;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            else if (c == '.' && scale < 0) {
+                scale = 0;
+            }
+            else if (c == '-') {
+                hyphens++;
+            }
+            else {
+                return NOT_SIMPLE;
+            }
+        }
+
+        if (digits == 0 || scale == 0) {
+            return NOT_SIMPLE;
+        }
+
+        boolean negative;
+        if (last == '-') {
+            negative = true;
+        }
+        else if (first == '-') {
+            if (hyphens > 1) {
+                return NOT_SIMPLE;
+            }
+            negative = true;
+        }
+        else {
+            negative = false;
+        }
+
+        return pack(unscaled, Math.max(scale, 0), negative);
+    }
+
+    static long pack(long unscaled, int scale, boolean negative) {
+        return (unscaled << 6) | ((long) scale << 1) | (negative ? 1 : 0);
+    }
+
+    static long unscaled(long packed) {
+        return packed >>> 6;
+    }
+
+    static int scale(long packed) {
+        return (int) (packed >>> 1) & 0x1f;
+    }
+
+    static boolean isNegative(long packed) {
+        return (packed & 1) != 0;
+    }
+
+    static long signedUnscaled(long packed) {
+        return isNegative(packed) ? -unscaled(packed) : unscaled(packed);
+    }
+
+    static boolean isLong(long packed) {
+        return packed != NOT_SIMPLE && scale(packed) == 0;
+    }
+
+    static boolean isInt(long packed) {
+        if (!isLong(packed)) {
+            return false;
+        }
+        long value = signedUnscaled(packed);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    static boolean isExactDouble(long packed) {
+        return packed != NOT_SIMPLE && unscaled(packed) <= MAX_EXACT_DOUBLE && scale(packed) < DOUBLE_POWERS_OF_TEN.length;
+    }
+
+    /* both operands are exact so the single division is correctly rounded, same result as Double.parseDouble */
+    static double toDouble(long packed) {
+        double value = (double) unscaled(packed) / DOUBLE_POWERS_OF_TEN[scale(packed)];
+        return isNegative(packed) ? -value : value;
+    }
+
+    static boolean isExactFloat(long packed) {
+        return packed != NOT_SIMPLE && unscaled(packed) <= MAX_EXACT_FLOAT && scale(packed) < FLOAT_POWERS_OF_TEN.length;
+    }
+
+    static float toFloat(long packed) {
+        float value = (float) unscaled(packed) / FLOAT_POWERS_OF_TEN[scale(packed)];
+        return isNegative(packed) ? -value : value;
+    }
+}
@@ -6,23 +6,80 @@ import org.apache.logging.log4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
 import java.util.ArrayList;
-import java.util.Locale;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import jakarta.persistence.Entity;
 
 public class RecordFactory {
 
-    public class BeanField {
+    public static class BeanField {
         public Field field;
         public DataField dataField;
+        FieldBinder binder;
+        DateFieldFormat dateFieldFormat;
+
+        FieldBinder binder() {
+            if (binder == null) {
+                binder = FieldBinder.forField(field, dataField.dateFormat());
+            }
+            return binder;
+        }
+
+        DateFieldFormat dateFieldFormat() {
+            if (dateFieldFormat == null) {
+                dateFieldFormat = DateFieldFormat.of(dataField.dateFormat());
+            }
+            return dateFieldFormat;
+        }
     }
 
+    static BeanField newBeanField(Field field, DataField dataField) {
+        BeanField beanField = new BeanField();
+        beanField.field = field;
+        beanField.dataField = dataField;
+        beanField.binder = FieldBinder.forField(field, dataField.dateFormat());
+        return beanField;
+    }
+
+    /*
+     * Field metadata is computed once per Class and shared by every factory and thread, the maps are read only.
+     * ClassValue gives lock free reads and keys on the Class itself, not its name, so classloaders cannot collide.
+     */
+    private static final ClassValue<SortedMap<Integer, BeanField>> IdCachedFieldsByClass = new ClassValue<>() {
+        @Override
+        protected SortedMap<Integer, BeanField> computeValue(Class<?> beanClass) {
+            TreeMap<Integer, BeanField> idDataFieldIdMap = new TreeMap<Integer, BeanField>();
+            for (BeanField beanField : getBeanFieldsByClass(beanClass)) {
+                idDataFieldIdMap.put(beanField.dataField.id(), beanField);
+            }
+            return Collections.unmodifiableSortedMap(idDataFieldIdMap);
+        }
+    };
+
+    private static final ClassValue<SortedMap<String, BeanField>> NameCachedFieldsByClass = new ClassValue<>() {
+        @Override
+        protected SortedMap<String, BeanField> computeValue(Class<?> beanClass) {
+            TreeMap<String, BeanField> nameDataFieldIdMap = new TreeMap<String, BeanField>();
+            for (BeanField beanField : getBeanFieldsByClass(beanClass)) {
+                nameDataFieldIdMap.put(beanField.dataField.name(), beanField);
+            }
+            return Collections.unmodifiableSortedMap(nameDataFieldIdMap);
+        }
+    };
+
+    /*
+     * The old class name keyed caches, kept so subclasses that name them still compile. They are no longer filled,
+     * a class name key would pin the bean class and let two classloaders' classes overwrite each other.
+     * Use getIdDataFieldMapByClass and getNameDataFieldMapByClass instead.
+     */
+    @Deprecated
+    protected static TreeMap<String, TreeMap> IdCachedFieldsByClassMap = new TreeMap<String, TreeMap>();
+    @Deprecated
+    protected static TreeMap<String, TreeMap> NameCachedFieldsByClassMap = new TreeMap<String, TreeMap>();
+
     public int headerRows = 1;
     public int headerIdRows = 0;
     public int trailerRows = 0;
@@ -58,110 +115,65 @@ public class RecordFactory {
         return annotation.name();
     }
 
+    /* read only, shared across threads */
+    protected <T> SortedMap<Integer, BeanField> getIdDataFieldMapByClass(Class<T> beanClass ) {
+        return IdCachedFieldsByClass.get(beanClass);
+    }
+
+    protected <T> SortedMap<String, BeanField> getNameDataFieldMapByClass(Class<T> beanClass ) {
+        return NameCachedFieldsByClass.get(beanClass);
+    }
+
+    static ArrayList<BeanField> getBeanFieldsByClass(Class<?> beanClass) {
+        ArrayList<BeanField> beanFields = new ArrayList<BeanField>();
+        Class clazz = beanClass;
+
+        do {
+            for (Field field : clazz.getDeclaredFields()) {
+                DataField annotation = (DataField) field.getAnnotation(DataField.class);
+                if (annotation != null) {
+                    beanFields.add(newBeanField(field, annotation));
+                }
+            }
+            clazz = clazz.getSuperclass();
+
+        } while (clazz != null);
+
+        return beanFields;
+    }
+
+    /* index is the column, null where no field has that id */
+    <T> BeanField[] getColumnFieldsById(Class<T> beanClass) {
+        SortedMap<Integer, BeanField> idDataFieldIdMap = getIdDataFieldMapByClass(beanClass);
+        BeanField[] columnFields = new BeanField[idDataFieldIdMap.isEmpty() ? 0 : idDataFieldIdMap.lastKey() + 1];
+        for (BeanField beanField : idDataFieldIdMap.values()) {
+            if (beanField.dataField.id() >= 0) columnFields[beanField.dataField.id()] = beanField;
+        }
+        return columnFields;
+    }
+
+    /*
+     * Header names resolved once per file, index is the column, null where the header names no field,
+     * so each row is bound by position with no lookups by name.
+     */
+    <T> BeanField[] getColumnFieldsByHeaderName(String[] headerNameLine, Class<T> beanClass) {
+        SortedMap<String, BeanField> nameDataFieldIdMap = getNameDataFieldMapByClass(beanClass);
+        BeanField[] columnFields = new BeanField[headerNameLine.length];
+        for (int column = 0; column < headerNameLine.length; column++) {
+            if (headerNameLine[column] != null) {
+                columnFields[column] = nameDataFieldIdMap.get(headerNameLine[column].trim());
+            }
+        }
+        return columnFields;
+    }
+
     void setBeanField(Object bean, BeanField beanField, String value) throws Exception {
 
         try {
             if (value != null && !"".equals(value)) {
-
-                value = value.trim();
-                beanField.field.setAccessible(true);
-
-                if (beanField.field.getType() == String.class) {
-                    if ("null".equals(value)) {
-                        beanField.field.set(bean, null);
-                    }
-                    else {
-                        beanField.field.set(bean, value);
-                    }
-                } else if (beanField.field.getType() == Integer.class || beanField.field.getType() == int.class) {
-                    value = cleanNumberString(value);
-                    if (value == null && beanField.field.getType() == int.class) {
-                        beanField.field.set(bean, 0);
-                    }
-                    else if (value == null && beanField.field.getType() == Integer.class) {
-                        beanField.field.set(bean, null);
-                    }
-                    else {
-                        beanField.field.set(bean, Integer.valueOf(value));
-                    }
-                } else if (beanField.field.getType() == Long.class || beanField.field.getType() == long.class) {
-                    value = cleanNumberString(value);
-                    if (value == null && beanField.field.getType() == long.class) {
-                        beanField.field.set(bean, 0);
-                    }
-                    else if (value == null && beanField.field.getType() == Long.class) {
-                        beanField.field.set(bean, null);
-                    }
-                    else {
-                        beanField.field.set(bean, Long.valueOf(value));
-                    }
-                } else if (beanField.field.getType() == Double.class || beanField.field.getType() == double.class) {
-                    value = cleanNumberString(value);
-                    if (value == null && beanField.field.getType() == double.class) {
-                        beanField.field.set(bean, 0.00);
-                    }
-                    else {
-                        String lower = value.toLowerCase(java.util.Locale.ROOT);
-
-                        var floatValue =  switch (lower) {
-                            case "nan" -> Double.NaN;
-                            case "inf", "+inf", "infinity", "+infinity" -> Double.POSITIVE_INFINITY;
-                            case "-inf", "-infinity" -> Double.NEGATIVE_INFINITY;
-                            default -> Double.parseDouble(lower);
-                        };
-
-                        beanField.field.set(bean, floatValue);
-                    }
-                } else if (beanField.field.getType() == Float.class || beanField.field.getType() == float.class) {
-                    value = cleanNumberString(value);
-                    if (value == null && beanField.field.getType() == float.class) {
-                        beanField.field.set(bean, 0.00);
-                    }
-                    else {
-                        String lower = value.toLowerCase(java.util.Locale.ROOT);
-
-                        var floatValue =  switch (lower) {
-                            case "nan" -> Float.NaN;
-                            case "inf", "+inf", "infinity", "+infinity" -> Float.POSITIVE_INFINITY;
-                            case "-inf", "-infinity" -> Float.NEGATIVE_INFINITY;
-                            default -> Float.parseFloat(lower);
-                        };
-
-                        beanField.field.set(bean, floatValue);
-                    }
-                } else if (beanField.field.getType() == BigDecimal.class) {
-                    value = cleanNumberString(value);
-                    if (value == null) {
-                        beanField.field.set(bean, null);
-                    }
-                    else {
-                        beanField.field.set(bean, new BigDecimal(value));
-                    }
-                } else if (beanField.field.getType() == LocalDate.class) {
-
-//                    DateTimeFormatter dtf = DateTimeFormatter.ofPattern(beanField.dataField.dateFormat());
-                    DateTimeFormatter dtf = new DateTimeFormatterBuilder().parseCaseInsensitive()
-                                                                          .appendPattern(beanField.dataField.dateFormat())
-                                                                          .toFormatter(Locale.ENGLISH);
-
-                    beanField.field.set(bean, LocalDate.parse(value, dtf));
-                } else if (beanField.field.getType() == LocalDateTime.class) {
-                    DateTimeFormatter dtf = DateTimeFormatter.ofPattern(beanField.dataField.dateFormat());
-                    beanField.field.set(bean, LocalDateTime.parse(value, dtf));
-                } else {
-                    Object object = beanField.field.getType().getDeclaredConstructor(String.class).newInstance(value);
-                    beanField.field.set(bean, object);
-                }
+                beanField.binder().set(bean, value.trim());
             } else if (beanField.field != null) {
-                if (beanField.field.getType() == double.class || beanField.field.getType() == float.class) {
-                    beanField.field.set(bean, 0.00);
-                }
-                else if (beanField.field.getType() == int.class || beanField.field.getType() == long.class){
-                    beanField.field.set(bean, 0);
-                }
-                else {
-                    beanField.field.set(bean, null);
-                }
+                beanField.binder().setEmpty(bean);
             }
             else {
                 throw new Exception("Invalid Field ID " + beanField.dataField.id() + " for class " + bean.getClass().getName());
@@ -174,6 +186,10 @@ public class RecordFactory {
     }
 
     public String cleanNumberString(String numberString) {
+        return cleanNumber(numberString);
+    }
+
+    static String cleanNumber(String numberString) {
 
         numberString = StringUtils.replace(numberString, ",", "");
         numberString = StringUtils.replace(numberString, "$", "");
@@ -0,0 +1,197 @@
+package org.jvmscript.record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Beans indexed by one or more key values, account + cusip for example, without building a combined key.
+ * The slots hold the key hash and the first bean, a probe is compared by applying the key functions
+ * to that bean, so no key object is kept per row. Probe values must be of the type the key function returns.
+ * Sized and grown like LongRecordIndex, duplicate keys are kept in the order they were added.
+ */
+public final class RecordIndex<V> {
+
+    private final Function<? super V, ?>[] keyFunctions;
+
+    private int[] slotHashes;
+    private int[] slotHeads;
+    private int[] slotTails;
+    private int keyCount = 0;
+
+    private Object[] values;
+    private int[] nextValues;
+    private int size = 0;
+
+    @SafeVarargs
+    public RecordIndex(int expectedSize, Function<? super V, ?>... keyFunctions) {
+        if (keyFunctions.length == 0) {
+            throw new IllegalArgumentException("At least one key function is required");
+        }
+        this.keyFunctions = keyFunctions;
+        this.values = new Object[Math.max(16, expectedSize)];
+        this.nextValues = new int[values.length];
+        allocateSlots(LongRecordIndex.tableSizeFor(values.length));
+    }
+
+    private void allocateSlots(int tableSize) {
+        slotHashes = new int[tableSize];
+        slotHeads = new int[tableSize];
+        slotTails = new int[tableSize];
+        Arrays.fill(slotHeads, -1);
+    }
+
+    private int hashOf(V value) {
+        long hash = 0;
+        for (Function<? super V, ?> keyFunction : keyFunctions) {
+            hash = hash * 31 + Objects.hashCode(keyFunction.apply(value));
+        }
+        return LongRecordIndex.mix(hash);
+    }
+
+    private int hashOf(Object[] key) {
+        long hash = 0;
+        for (Object keyValue : key) {
+            hash = hash * 31 + Objects.hashCode(keyValue);
+        }
+        return LongRecordIndex.mix(hash);
+    }
+
+    private boolean sameKey(V stored, V value) {
+        for (Function<? super V, ?> keyFunction : keyFunctions) {
+            if (!Objects.equals(keyFunction.apply(stored), keyFunction.apply(value))) return false;
+        }
+        return true;
+    }
+
+    private boolean sameKey(V stored, Object[] key) {
+        for (int keyCnt = 0; keyCnt < keyFunctions.length; keyCnt++) {
+            if (!Objects.equals(keyFunctions[keyCnt].apply(stored), key[keyCnt])) return false;
+        }
+        return true;
+    }
+
+    private int findSlot(V value, int hash) {
+        int mask = slotHeads.length - 1;
+        int slot = hash & mask;
+        int head;
+        while ((head = slotHeads[slot]) >= 0 && (slotHashes[slot] != hash || !sameKey((V) values[head], value))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /* -1 when the key is not in the index */
+    private int findHead(Object[] key) {
+        if (key.length != keyFunctions.length) {
+            throw new IllegalArgumentException("Index has " + keyFunctions.length + " key values, " + key.length + " given");
+        }
+
+        int hash = hashOf(key);
+        int mask = slotHeads.length - 1;
+        int slot = hash & mask;
+        int head;
+        while ((head = slotHeads[slot]) >= 0) {
+            if (slotHashes[slot] == hash && sameKey((V) values[head], key)) return head;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public void add(V value) {
+        int hash = hashOf(value);
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            nextValues = Arrays.copyOf(nextValues, size * 2);
+        }
+        int entry = size++;
+        values[entry] = value;
+        nextValues[entry] = -1;
+
+        int slot = findSlot(value, hash);
+        if (slotHeads[slot] < 0) {
+            slotHashes[slot] = hash;
+            slotHeads[slot] = entry;
+            slotTails[slot] = entry;
+            if (++keyCount * 3 > slotHeads.length * 2) {
+                rehash(slotHeads.length * 2);
+            }
+        }
+        else {
+            nextValues[slotTails[slot]] = entry;
+            slotTails[slot] = entry;
+        }
+    }
+
+    public void addAll(Iterable<? extends V> values) {
+        for (V value : values) {
+            add(value);
+        }
+    }
+
+    /* stored hashes are reused, the key functions are not applied again */
+    private void rehash(int tableSize) {
+        int[] oldHashes = slotHashes;
+        int[] oldHeads = slotHeads;
+        int[] oldTails = slotTails;
+        allocateSlots(tableSize);
+
+        int mask = tableSize - 1;
+        for (int oldSlot = 0; oldSlot < oldHeads.length; oldSlot++) {
+            if (oldHeads[oldSlot] < 0) continue;
+            int slot = oldHashes[oldSlot] & mask;
+            while (slotHeads[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotHashes[slot] = oldHashes[oldSlot];
+            slotHeads[slot] = oldHeads[oldSlot];
+            slotTails[slot] = oldTails[oldSlot];
+        }
+    }
+
+    /* first bean added with the key values, null when there is none */
+    public V get(Object... key) {
+        int head = findHead(key);
+        return head < 0 ? null : (V) values[head];
+    }
+
+    public List<V> getAll(Object... key) {
+        ArrayList<V> matches = new ArrayList<>();
+        for (int entry = findHead(key); entry >= 0; entry = nextValues[entry]) {
+            matches.add((V) values[entry]);
+        }
+        return matches;
+    }
+
+    public void forEach(Object[] key, Consumer<? super V> consumer) {
+        for (int entry = findHead(key); entry >= 0; entry = nextValues[entry]) {
+            consumer.accept((V) values[entry]);
+        }
+    }
+
+    public int count(Object... key) {
+        int count = 0;
+        for (int entry = findHead(key); entry >= 0; entry = nextValues[entry]) {
+            count++;
+        }
+        return count;
+    }
+
+    public boolean containsKey(Object... key) {
+        return findHead(key) >= 0;
+    }
+
+    /* number of beans added */
+    public int size() {
+        return size;
+    }
+
+    /* number of distinct keys, less than size() when there are duplicates */
+    public int keyCount() {
+        return keyCount;
+    }
+}
@@ -0,0 +1,883 @@
+package org.jvmscript.record;
+
+import org.jvmscript.record.RecordFactory.BeanField;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.SortedMap;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/*
+ * Column oriented read target for @DataField classes, the file is parsed straight into primitive vectors and no bean is created.
+ * int / long fields are held in int[] / long[], double and float in double[], BigDecimal as a long scaled to the field's
+ * DataField.scale (rounded half up past that), LocalDate as an int epoch day and String as int codes into a dictionary
+ * of the distinct values. Other types are kept as objects.
+ * Columns are in DataField id order and named by DataField name, or the field name when the annotation has none.
+ * Filters return row numbers, sums and group by run over the vectors without boxing.
+ */
+public class RecordTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    public abstract static class RecordColumn {
+        public final String name;
+        final BeanField beanField;
+        final BitSet nulls = new BitSet();
+
+        RecordColumn(String name, BeanField beanField) {
+            this.name = name;
+            this.beanField = beanField;
+        }
+
+        /* value is trimmed and not empty */
+        abstract void append(String value, int row) throws Exception;
+
+        abstract void grow(int capacity);
+
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        public abstract Object getObject(int row);
+
+        /* the value a group by key compares, only called for rows that are not null */
+        long groupKey(int row) {
+            throw new IllegalArgumentException("Column " + name + " can not be grouped on");
+        }
+
+        double getDoubleValue(int row) {
+            throw new IllegalArgumentException("Column " + name + " is not numeric");
+        }
+    }
+
+    public static final class IntColumn extends RecordColumn {
+        int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn(String name, BeanField beanField) {
+            super(name, beanField);
+        }
+
+        @Override
+        void append(String value, int row) {
+            long packed = NumberScanner.scan(value);
+            if (NumberScanner.isInt(packed)) {
+                values[row] = (int) NumberScanner.signedUnscaled(packed);
+                return;
+            }
+
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) nulls.set(row);
+            else values[row] = Integer.parseInt(number);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        long groupKey(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDoubleValue(int row) {
+            return values[row];
+        }
+    }
+
+    public static final class LongColumn extends RecordColumn {
+        long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(String name, BeanField beanField) {
+            super(name, beanField);
+        }
+
+        @Override
+        void append(String value, int row) {
+            long packed = NumberScanner.scan(value);
+            if (NumberScanner.isLong(packed)) {
+                values[row] = NumberScanner.signedUnscaled(packed);
+                return;
+            }
+
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) nulls.set(row);
+            else values[row] = Long.parseLong(number);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        long groupKey(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDoubleValue(int row) {
+            return values[row];
+        }
+    }
+
+    public static final class DoubleColumn extends RecordColumn {
+        double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn(String name, BeanField beanField) {
+            super(name, beanField);
+        }
+
+        @Override
+        void append(String value, int row) {
+            long packed = NumberScanner.scan(value);
+            if (NumberScanner.isExactDouble(packed)) {
+                values[row] = NumberScanner.toDouble(packed);
+                return;
+            }
+
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) nulls.set(row);
+            else values[row] = Double.parseDouble(number);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        long groupKey(int row) {
+            return Double.doubleToLongBits(values[row]);
+        }
+
+        @Override
+        double getDoubleValue(int row) {
+            return values[row];
+        }
+    }
+
+    /*
+     * Fixed point, value = unscaled / 10^scale with the scale of the field's DataField.scale, 6 unless set.
+     * Values with more decimals are rounded half up to the scale when read, so 1.0000005 is held as 1.000001.
+     * The unscaled value is a long, so at most about 9.2e12 at scale 6 (Long.MAX_VALUE / 10^scale), a larger value
+     * fails the read with an ArithmeticException, as does a sum past that. Use a lower scale for larger amounts.
+     */
+    public static final class DecimalColumn extends RecordColumn {
+        public final int scale;
+        long[] unscaled = new long[INITIAL_CAPACITY];
+
+        DecimalColumn(String name, BeanField beanField, int scale) {
+            super(name, beanField);
+            if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+                throw new IllegalArgumentException("Scale " + scale + " of column " + name + " does not fit a long");
+            }
+            this.scale = scale;
+        }
+
+        @Override
+        void append(String value, int row) {
+            long packed = NumberScanner.scan(value);
+            if (packed != NumberScanner.NOT_SIMPLE && NumberScanner.scale(packed) <= scale) {
+                int shift = scale - NumberScanner.scale(packed);
+                long signedUnscaled = NumberScanner.signedUnscaled(packed);
+                long product = signedUnscaled * POWERS_OF_TEN[shift];
+                if (Math.multiplyHigh(signedUnscaled, POWERS_OF_TEN[shift]) == (product >> 63)) {
+                    unscaled[row] = product;
+                    return;
+                }
+            }
+
+            String number = RecordFactory.cleanNumber(value);
+            if (number == null) {
+                nulls.set(row);
+                return;
+            }
+
+            try {
+                unscaled[row] = new BigDecimal(number).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            }
+            catch (ArithmeticException e) {
+                throw new ArithmeticException("Value " + value + " of column " + name + " is outside +/-" +
+                        BigDecimal.valueOf(Long.MAX_VALUE, scale).toPlainString() + ", the limit at scale " + scale);
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            unscaled = Arrays.copyOf(unscaled, capacity);
+        }
+
+        public long getUnscaled(int row) {
+            return unscaled[row];
+        }
+
+        public BigDecimal getBigDecimal(int row) {
+            return isNull(row) ? null : BigDecimal.valueOf(unscaled[row], scale);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getBigDecimal(row);
+        }
+
+        @Override
+        long groupKey(int row) {
+            return unscaled[row];
+        }
+
+        @Override
+        double getDoubleValue(int row) {
+            return (double) unscaled[row] / POWERS_OF_TEN[scale];
+        }
+    }
+
+    public static final class StringColumn extends RecordColumn {
+        int[] codes = new int[INITIAL_CAPACITY];
+        final ArrayList<String> dictionary = new ArrayList<>();
+        private final HashMap<String, Integer> dictionaryCodes = new HashMap<>();
+
+        StringColumn(String name, BeanField beanField) {
+            super(name, beanField);
+        }
+
+        @Override
+        void append(String value, int row) {
+            if ("null".equals(value)) {
+                appendNull(row);
+                return;
+            }
+
+            Integer code = dictionaryCodes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryCodes.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        void appendNull(int row) {
+            nulls.set(row);
+            codes[row] = -1;
+        }
+
+        @Override
+        void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        public String getString(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        /* -1 for null, equal strings have equal codes */
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        /* -1 when the value does not occur in the column */
+        public int findCode(String value) {
+            Integer code = dictionaryCodes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        public int getDistinctCount() {
+            return dictionary.size();
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getString(row);
+        }
+
+        @Override
+        long groupKey(int row) {
+            return codes[row];
+        }
+    }
+
+    public static final class DateColumn extends RecordColumn {
+        int[] epochDays = new int[INITIAL_CAPACITY];
+
+        DateColumn(String name, BeanField beanField) {
+            super(name, beanField);
+        }
+
+        @Override
+        void append(String value, int row) {
+            epochDays[row] = (int) beanField.dateFieldFormat().parseLocalDate(value).toEpochDay();
+        }
+
+        @Override
+        void grow(int capacity) {
+            epochDays = Arrays.copyOf(epochDays, capacity);
+        }
+
+        public int getEpochDay(int row) {
+            return epochDays[row];
+        }
+
+        public LocalDate getLocalDate(int row) {
+            return isNull(row) ? null : LocalDate.ofEpochDay(epochDays[row]);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getLocalDate(row);
+        }
+
+        @Override
+        long groupKey(int row) {
+            return epochDays[row];
+        }
+    }
+
+    public static final class ObjectColumn extends RecordColumn {
+        Object[] values = new Object[INITIAL_CAPACITY];
+
+        ObjectColumn(String name, BeanField beanField) {
+            super(name, beanField);
+        }
+
+        @Override
+        void append(String value, int row) throws Exception {
+            Class<?> type = beanField.field.getType();
+            if (type == LocalDateTime.class) values[row] = beanField.dateFieldFormat().parseLocalDateTime(value);
+            else if (type == String.class) values[row] = value;
+            else values[row] = type.getDeclaredConstructor(String.class).newInstance(value);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return values[row];
+        }
+    }
+
+    /*
+     * Group ids for the selected rows, groups are numbered in order of first appearance.
+     * Rows with a null key column form their own group, distinct from every value.
+     */
+    public final class Groups {
+        private final RecordColumn[] keyColumns;
+        private final int[] rows;
+        private final int[] rowGroups;
+        private final int[] firstRows;
+        private final int groupCount;
+
+        private Groups(RecordColumn[] keyColumns, int[] rows) {
+            this.keyColumns = keyColumns;
+            this.rows = rows;
+            this.rowGroups = new int[rows.length];
+
+            /* open addressing over the key tuples, the last slot of a tuple holds the null flags */
+            int width = keyColumns.length + 1;
+            int tableSize = Integer.highestOneBit(Math.max(16, rows.length / 4) * 2);
+            int[] table = new int[tableSize];
+            Arrays.fill(table, -1);
+            long[] groupKeys = new long[16 * width];
+            int[] groupFirstRows = new int[16];
+            long[] key = new long[width];
+            int groups = 0;
+
+            for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                int row = rows[rowCnt];
+                long nullFlags = 0;
+                long hash = 0;
+                for (int keyCnt = 0; keyCnt < keyColumns.length; keyCnt++) {
+                    RecordColumn column = keyColumns[keyCnt];
+                    if (column.isNull(row)) {
+                        key[keyCnt] = 0;
+                        nullFlags |= 1L << keyCnt;
+                    }
+                    else {
+                        key[keyCnt] = column.groupKey(row);
+                    }
+                    hash = hash * 0x9E3779B97F4A7C15L + key[keyCnt];
+                }
+                key[keyColumns.length] = nullFlags;
+                hash = mix(hash + nullFlags);
+
+                int mask = table.length - 1;
+                int slot = (int) hash & mask;
+                int group;
+                while ((group = table[slot]) >= 0 && !Arrays.equals(groupKeys, group * width, group * width + width, key, 0, width)) {
+                    slot = (slot + 1) & mask;
+                }
+
+                if (group < 0) {
+                    group = groups++;
+                    if (groups * width > groupKeys.length) {
+                        groupKeys = Arrays.copyOf(groupKeys, groupKeys.length * 2);
+                        groupFirstRows = Arrays.copyOf(groupFirstRows, groupFirstRows.length * 2);
+                    }
+                    System.arraycopy(key, 0, groupKeys, group * width, width);
+                    groupFirstRows[group] = row;
+                    table[slot] = group;
+
+                    if (groups * 2 > table.length) {
+                        table = rehash(groupKeys, groups, width, table.length * 2);
+                    }
+                }
+                rowGroups[rowCnt] = group;
+            }
+
+            this.groupCount = groups;
+            this.firstRows = Arrays.copyOf(groupFirstRows, groups);
+        }
+
+        private int[] rehash(long[] groupKeys, int groups, int width, int tableSize) {
+            int[] table = new int[tableSize];
+            Arrays.fill(table, -1);
+            int mask = tableSize - 1;
+
+            for (int group = 0; group < groups; group++) {
+                long hash = 0;
+                for (int keyCnt = 0; keyCnt < width - 1; keyCnt++) {
+                    hash = hash * 0x9E3779B97F4A7C15L + groupKeys[group * width + keyCnt];
+                }
+                int slot = (int) mix(hash + groupKeys[group * width + width - 1]) & mask;
+                while (table[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = group;
+            }
+            return table;
+        }
+
+        public int getGroupCount() {
+            return groupCount;
+        }
+
+        /* key column values of the group, in the order the columns were given */
+        public Object[] getKey(int group) {
+            Object[] key = new Object[keyColumns.length];
+            for (int keyCnt = 0; keyCnt < keyColumns.length; keyCnt++) {
+                key[keyCnt] = keyColumns[keyCnt].getObject(firstRows[group]);
+            }
+            return key;
+        }
+
+        /* group of the n-th selected row */
+        public int getGroup(int rowCnt) {
+            return rowGroups[rowCnt];
+        }
+
+        public long[] count() {
+            long[] counts = new long[groupCount];
+            for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                counts[rowGroups[rowCnt]]++;
+            }
+            return counts;
+        }
+
+        /* int and long columns, nulls are skipped */
+        public long[] sumLong(String column) {
+            RecordColumn recordColumn = getColumn(column);
+            long[] sums = new long[groupCount];
+
+            if (recordColumn instanceof LongColumn) {
+                long[] values = ((LongColumn) recordColumn).values;
+                for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                    int row = rows[rowCnt];
+                    if (!recordColumn.isNull(row)) sums[rowGroups[rowCnt]] += values[row];
+                }
+            }
+            else if (recordColumn instanceof IntColumn) {
+                int[] values = ((IntColumn) recordColumn).values;
+                for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                    int row = rows[rowCnt];
+                    if (!recordColumn.isNull(row)) sums[rowGroups[rowCnt]] += values[row];
+                }
+            }
+            else {
+                throw new IllegalArgumentException("Column " + column + " is not an int or long column");
+            }
+            return sums;
+        }
+
+        /* any numeric column, nulls are skipped */
+        public double[] sumDouble(String column) {
+            RecordColumn recordColumn = getColumn(column);
+            double[] sums = new double[groupCount];
+
+            if (recordColumn instanceof DoubleColumn) {
+                double[] values = ((DoubleColumn) recordColumn).values;
+                for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                    int row = rows[rowCnt];
+                    if (!recordColumn.isNull(row)) sums[rowGroups[rowCnt]] += values[row];
+                }
+            }
+            else {
+                for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                    int row = rows[rowCnt];
+                    if (!recordColumn.isNull(row)) sums[rowGroups[rowCnt]] += recordColumn.getDoubleValue(row);
+                }
+            }
+            return sums;
+        }
+
+        /* decimal columns summed exactly as scaled longs */
+        public BigDecimal[] sumDecimal(String column) {
+            DecimalColumn decimalColumn = getDecimalColumn(column);
+            long[] unscaled = decimalColumn.unscaled;
+            long[] sums = new long[groupCount];
+
+            for (int rowCnt = 0; rowCnt < rows.length; rowCnt++) {
+                int row = rows[rowCnt];
+                if (!decimalColumn.isNull(row)) {
+                    int group = rowGroups[rowCnt];
+                    sums[group] = Math.addExact(sums[group], unscaled[row]);
+                }
+            }
+
+            BigDecimal[] decimals = new BigDecimal[groupCount];
+            for (int group = 0; group < groupCount; group++) {
+                decimals[group] = BigDecimal.valueOf(sums[group], decimalColumn.scale);
+            }
+            return decimals;
+        }
+    }
+
+    final RecordColumn[] columns;
+    private final int[] sourceColumns;
+    private final HashMap<String, Integer> columnIndexes = new HashMap<>();
+    private int rowCount = 0;
+    private int capacity = INITIAL_CAPACITY;
+
+    /* sourceColumns[n] is the position in the file line read into column n, -1 for none */
+    RecordTable(RecordColumn[] columns, int[] sourceColumns) {
+        this.columns = columns;
+        this.sourceColumns = sourceColumns;
+        for (int columnCnt = columns.length - 1; columnCnt >= 0; columnCnt--) {
+            columnIndexes.put(columns[columnCnt].name.toLowerCase(), columnCnt);
+        }
+    }
+
+    /* columns for every @DataField of the class, read from the line position given by the DataField id */
+    static RecordTable forClass(SortedMap<Integer, BeanField> idDataFieldIdMap) {
+        RecordColumn[] columns = new RecordColumn[idDataFieldIdMap.size()];
+        int[] sourceColumns = new int[columns.length];
+
+        int columnCnt = 0;
+        for (BeanField beanField : idDataFieldIdMap.values()) {
+            sourceColumns[columnCnt] = beanField.dataField.id();
+            columns[columnCnt++] = newColumn(beanField);
+        }
+        return new RecordTable(columns, sourceColumns);
+    }
+
+    /* same columns, read from the line position whose header matched the field, -1 when none did */
+    static RecordTable forHeader(SortedMap<Integer, BeanField> idDataFieldIdMap, BeanField[] columnFields) {
+        RecordTable table = forClass(idDataFieldIdMap);
+        Arrays.fill(table.sourceColumns, -1);
+        for (int position = 0; position < columnFields.length; position++) {
+            if (columnFields[position] == null) continue;
+            for (int columnCnt = 0; columnCnt < table.columns.length; columnCnt++) {
+                if (table.columns[columnCnt].beanField.field.equals(columnFields[position].field)) table.sourceColumns[columnCnt] = position;
+            }
+        }
+        return table;
+    }
+
+    static RecordColumn newColumn(BeanField beanField) {
+        String name = beanField.dataField.name().isEmpty() ? beanField.field.getName() : beanField.dataField.name();
+        Class<?> type = beanField.field.getType();
+
+        if (type == int.class || type == Integer.class || type == short.class || type == Short.class) return new IntColumn(name, beanField);
+        else if (type == long.class || type == Long.class) return new LongColumn(name, beanField);
+        else if (type == double.class || type == Double.class || type == float.class || type == Float.class) return new DoubleColumn(name, beanField);
+        else if (type == BigDecimal.class) return new DecimalColumn(name, beanField, beanField.dataField.scale());
+        else if (type == String.class) return new StringColumn(name, beanField);
+        else if (type == LocalDate.class) return new DateColumn(name, beanField);
+        else return new ObjectColumn(name, beanField);
+    }
+
+    void appendLine(String[] line) throws Exception {
+        if (rowCount == capacity) {
+            capacity = capacity * 2;
+            for (RecordColumn column : columns) {
+                column.grow(capacity);
+            }
+        }
+
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            int position = sourceColumns[columnCnt];
+            String value = position >= 0 && position < line.length ? line[position] : null;
+            if (value != null) value = value.trim();
+
+            RecordColumn column = columns[columnCnt];
+            if (value == null || value.isEmpty()) {
+                if (column instanceof StringColumn) ((StringColumn) column).appendNull(rowCount);
+                else column.nulls.set(rowCount);
+            }
+            else {
+                column.append(value, rowCount);
+            }
+        }
+        rowCount++;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /* case insensitive, -1 when there is no such column */
+    public int findColumnIndex(String name) {
+        Integer index = columnIndexes.get(name.toLowerCase());
+        return index == null ? -1 : index;
+    }
+
+    public int getColumnIndex(String name) {
+        int index = findColumnIndex(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column " + name + " in table");
+        }
+        return index;
+    }
+
+    public RecordColumn getColumn(int index) {
+        return columns[index];
+    }
+
+    public RecordColumn getColumn(String name) {
+        return columns[getColumnIndex(name)];
+    }
+
+    public String[] getColumnNames() {
+        String[] columnNames = new String[columns.length];
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            columnNames[columnCnt] = columns[columnCnt].name;
+        }
+        return columnNames;
+    }
+
+    private DecimalColumn getDecimalColumn(String name) {
+        RecordColumn column = getColumn(name);
+        if (!(column instanceof DecimalColumn)) {
+            throw new IllegalArgumentException("Column " + name + " is not a BigDecimal column");
+        }
+        return (DecimalColumn) column;
+    }
+
+    /* 0 to rowCount - 1 */
+    public int[] allRows() {
+        int[] rows = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            rows[row] = row;
+        }
+        return rows;
+    }
+
+    /* rows of int, long and LocalDate (as epoch day) columns matching the predicate, nulls never match */
+    public int[] filterLong(String column, LongPredicate predicate) {
+        RecordColumn recordColumn = getColumn(column);
+        int[] rows = new int[rowCount];
+        int matches = 0;
+
+        if (recordColumn instanceof LongColumn) {
+            long[] values = ((LongColumn) recordColumn).values;
+            for (int row = 0; row < rowCount; row++) {
+                if (!recordColumn.isNull(row) && predicate.test(values[row])) rows[matches++] = row;
+            }
+        }
+        else if (recordColumn instanceof IntColumn || recordColumn instanceof DateColumn) {
+            for (int row = 0; row < rowCount; row++) {
+                if (!recordColumn.isNull(row) && predicate.test(recordColumn.groupKey(row))) rows[matches++] = row;
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Column " + column + " is not an int, long or LocalDate column");
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    /* rows of any numeric column matching the predicate, nulls never match */
+    public int[] filterDouble(String column, DoublePredicate predicate) {
+        RecordColumn recordColumn = getColumn(column);
+        int[] rows = new int[rowCount];
+        int matches = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            if (!recordColumn.isNull(row) && predicate.test(recordColumn.getDoubleValue(row))) rows[matches++] = row;
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    /* the predicate runs once per distinct value, the rows are then matched by code */
+    public int[] filterString(String column, Predicate<String> predicate) {
+        RecordColumn recordColumn = getColumn(column);
+        if (!(recordColumn instanceof StringColumn)) {
+            throw new IllegalArgumentException("Column " + column + " is not a String column");
+        }
+
+        StringColumn stringColumn = (StringColumn) recordColumn;
+        boolean[] matchingCodes = new boolean[stringColumn.getDistinctCount()];
+        for (int code = 0; code < matchingCodes.length; code++) {
+            matchingCodes[code] = predicate.test(stringColumn.dictionary.get(code));
+        }
+
+        int[] codes = stringColumn.codes;
+        int[] rows = new int[rowCount];
+        int matches = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int code = codes[row];
+            if (code >= 0 && matchingCodes[code]) rows[matches++] = row;
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    public int[] filterEquals(String column, String value) {
+        return filterString(column, value::equals);
+    }
+
+    public long sumLong(String column) {
+        return sumLong(column, null);
+    }
+
+    /* int and long columns, nulls are skipped, a null rows array sums every row */
+    public long sumLong(String column, int[] rows) {
+        RecordColumn recordColumn = getColumn(column);
+        int count = rows == null ? rowCount : rows.length;
+        long sum = 0;
+
+        if (recordColumn instanceof LongColumn) {
+            long[] values = ((LongColumn) recordColumn).values;
+            for (int rowCnt = 0; rowCnt < count; rowCnt++) {
+                int row = rows == null ? rowCnt : rows[rowCnt];
+                if (!recordColumn.isNull(row)) sum += values[row];
+            }
+        }
+        else if (recordColumn instanceof IntColumn) {
+            int[] values = ((IntColumn) recordColumn).values;
+            for (int rowCnt = 0; rowCnt < count; rowCnt++) {
+                int row = rows == null ? rowCnt : rows[rowCnt];
+                if (!recordColumn.isNull(row)) sum += values[row];
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Column " + column + " is not an int or long column");
+        }
+        return sum;
+    }
+
+    public double sumDouble(String column) {
+        return sumDouble(column, null);
+    }
+
+    /* any numeric column, nulls are skipped, a null rows array sums every row */
+    public double sumDouble(String column, int[] rows) {
+        RecordColumn recordColumn = getColumn(column);
+        int count = rows == null ? rowCount : rows.length;
+        double sum = 0;
+
+        if (recordColumn instanceof DoubleColumn) {
+            double[] values = ((DoubleColumn) recordColumn).values;
+            for (int rowCnt = 0; rowCnt < count; rowCnt++) {
+                int row = rows == null ? rowCnt : rows[rowCnt];
+                if (!recordColumn.isNull(row)) sum += values[row];
+            }
+        }
+        else {
+            for (int rowCnt = 0; rowCnt < count; rowCnt++) {
+                int row = rows == null ? rowCnt : rows[rowCnt];
+                if (!recordColumn.isNull(row)) sum += recordColumn.getDoubleValue(row);
+            }
+        }
+        return sum;
+    }
+
+    public BigDecimal sumDecimal(String column) {
+        return sumDecimal(column, null);
+    }
+
+    /* decimal columns summed exactly as scaled longs, a null rows array sums every row */
+    public BigDecimal sumDecimal(String column, int[] rows) {
+        DecimalColumn decimalColumn = getDecimalColumn(column);
+        long[] unscaled = decimalColumn.unscaled;
+        int count = rows == null ? rowCount : rows.length;
+        long sum = 0;
+
+        for (int rowCnt = 0; rowCnt < count; rowCnt++) {
+            int row = rows == null ? rowCnt : rows[rowCnt];
+            if (!decimalColumn.isNull(row)) sum = Math.addExact(sum, unscaled[row]);
+        }
+        return BigDecimal.valueOf(sum, decimalColumn.scale);
+    }
+
+    public Groups groupBy(String... keyColumns) {
+        return groupBy(allRows(), keyColumns);
+    }
+
+    /* no key columns puts every selected row in group 0 */
+    public Groups groupBy(int[] rows, String... keyColumns) {
+        if (keyColumns.length > 63) {
+            throw new IllegalArgumentException("At most 63 group by columns");
+        }
+
+        RecordColumn[] keys = new RecordColumn[keyColumns.length];
+        for (int keyCnt = 0; keyCnt < keyColumns.length; keyCnt++) {
+            keys[keyCnt] = getColumn(keyColumns[keyCnt]);
+        }
+        return new Groups(keys, rows);
+    }
+}
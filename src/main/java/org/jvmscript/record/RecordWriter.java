@@ -0,0 +1,373 @@
+package org.jvmscript.record;
+
+import org.jvmscript.record.RecordFactory.BeanField;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/*
+ * Incremental delimited writer, beans are encoded one at a time into a reusable byte buffer as UTF-8
+ * and the buffer is written to a FileChannel when full, memory use does not depend on the number of records.
+ * Output is the same as DelimitedRecordFactory.writeRecordListToDelimitedFile.
+ */
+public class RecordWriter<T> implements Closeable, Flushable {
+
+    static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private final FieldEncoder[] encoders;
+    private final char delimiterChar;
+    private final Character quoteChar;
+    private final String lineSeparator;
+    private final boolean roundDecimals;
+
+    private int count = 0;
+    private long recordCount = 0;
+
+    RecordWriter(DelimitedRecordFactory recordFactory, String filename, Class<T> beanClass, int bufferSize) throws IOException {
+        this.delimiterChar = recordFactory.delimiterChar;
+        this.quoteChar = recordFactory.quoteChar;
+        this.lineSeparator = recordFactory.lineSeparator;
+        this.roundDecimals = recordFactory.roundDecimals;
+
+        ArrayList<FieldEncoder> fieldEncoders = new ArrayList<>();
+        for (BeanField beanField : recordFactory.getIdDataFieldMapByClass(beanClass).values()) {
+            if (beanField.dataField.output() == true) {
+                fieldEncoders.add(FieldEncoder.forField(beanField));
+            }
+        }
+        this.encoders = fieldEncoders.toArray(new FieldEncoder[0]);
+
+        this.bytes = new byte[bufferSize];
+        this.buffer = ByteBuffer.wrap(bytes);
+
+        Path outputPath = Paths.get(filename);
+        channel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        try {
+            if (recordFactory.headerIdRows > 0) {
+                putString(recordFactory.getHeaderIdRow(beanClass));
+                putString(System.lineSeparator());
+            }
+
+            if (recordFactory.headerRows > 0) {
+                putString(recordFactory.getHeaderNameRow(beanClass));
+                putString(System.lineSeparator());
+            }
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void write(T bean) throws IOException {
+        try {
+            for (int fieldCnt = 0; fieldCnt < encoders.length; fieldCnt++) {
+                if (fieldCnt > 0) putChar(delimiterChar);
+                encoders[fieldCnt].encode(bean, this);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException("Unable to write record " + recordCount, e);
+        }
+        putString(lineSeparator);
+        recordCount++;
+    }
+
+    public long writeAll(Iterable<? extends T> beans) throws IOException {
+        long startCount = recordCount;
+        for (T bean : beans) {
+            write(bean);
+        }
+        return recordCount - startCount;
+    }
+
+    public long writeAll(Stream<? extends T> beans) throws IOException {
+        long startCount = recordCount;
+        try {
+            beans.forEachOrdered(bean -> {
+                try {
+                    write(bean);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return recordCount - startCount;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.limit(count).position(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        count = 0;
+    }
+
+    void putChar(char c) throws IOException {
+        if (count + 4 > bytes.length) {
+            flushBuffer();
+        }
+
+        if (c < 0x80) {
+            bytes[count++] = (byte) c;
+        }
+        else if (c < 0x800) {
+            bytes[count++] = (byte) (0xc0 | (c >> 6));
+            bytes[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+        else if (Character.isSurrogate(c)) {
+            bytes[count++] = '?';
+        }
+        else {
+            bytes[count++] = (byte) (0xe0 | (c >> 12));
+            bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    void putString(String value) throws IOException {
+        int length = value.length();
+        for (int index = 0; index < length; index++) {
+            char c = value.charAt(index);
+
+            if (c < 0x80 && count < bytes.length) {
+                bytes[count++] = (byte) c;
+            }
+            else if (Character.isHighSurrogate(c) && index + 1 < length && Character.isLowSurrogate(value.charAt(index + 1))) {
+                if (count + 4 > bytes.length) {
+                    flushBuffer();
+                }
+                int codePoint = Character.toCodePoint(c, value.charAt(++index));
+                bytes[count++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3f));
+            }
+            else {
+                putChar(c);
+            }
+        }
+    }
+
+    void putLong(long value) throws IOException {
+        if (count + 20 > bytes.length) {
+            flushBuffer();
+        }
+        if (value == Long.MIN_VALUE) {
+            putString(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            bytes[count++] = '-';
+            value = -value;
+        }
+
+        int end = count + digitCount(value);
+        for (int index = end - 1; index >= count; index--) {
+            bytes[index] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    void putQuotedString(String value) throws IOException {
+        boolean quote = quoteChar != null && value.indexOf(delimiterChar) >= 0;
+        if (quote) putChar(quoteChar);
+        putString(value);
+        if (quote) putChar(quoteChar);
+    }
+
+    void putBigDecimal(BigDecimal bigDecimal, DataField dataField) throws IOException {
+        if (dataField.round() == true || roundDecimals == true) {
+            bigDecimal = bigDecimal.setScale(dataField.scale(), RoundingMode.HALF_UP);
+        }
+        putString(bigDecimal.toPlainString());
+    }
+
+    /* new BigDecimal(double).toPlainString() of a whole number below 2^53 is its digits, no BigDecimal needed */
+    void putDouble(double value, DataField dataField) throws IOException {
+        if (dataField.round() == false && roundDecimals == false && value == Math.rint(value) && Math.abs(value) < MAX_EXACT_DOUBLE) {
+            putLong((long) value);
+        }
+        else {
+            putBigDecimal(new BigDecimal(value), dataField);
+        }
+    }
+
+    abstract static class FieldEncoder {
+        final BeanField beanField;
+
+        FieldEncoder(BeanField beanField) {
+            this.beanField = beanField;
+        }
+
+        static FieldEncoder forField(BeanField beanField) {
+            Class<?> type = beanField.field.getType();
+
+            if (type == long.class || type == int.class || type == short.class || type == byte.class) return new LongEncoder(beanField);
+            else if (type == double.class) return new DoubleEncoder(beanField);
+            else if (type == String.class) return new StringEncoder(beanField);
+            else return new ObjectEncoder(beanField);
+        }
+
+        abstract void encode(Object bean, RecordWriter<?> writer) throws Exception;
+    }
+
+    static final class LongEncoder extends FieldEncoder {
+        final MethodHandle getter;
+
+        LongEncoder(BeanField beanField) {
+            super(beanField);
+            getter = beanField.binder().getter(long.class);
+        }
+
+        @Override
+        void encode(Object bean, RecordWriter<?> writer) throws Exception {
+            try {
+                writer.putLong((long) getter.invokeExact(bean));
+            }
+            catch (Throwable t) {
+                throw FieldBinder.rethrow(t);
+            }
+        }
+    }
+
+    static final class DoubleEncoder extends FieldEncoder {
+        final MethodHandle getter;
+
+        DoubleEncoder(BeanField beanField) {
+            super(beanField);
+            getter = beanField.binder().getter(double.class);
+        }
+
+        @Override
+        void encode(Object bean, RecordWriter<?> writer) throws Exception {
+            try {
+                writer.putDouble((double) getter.invokeExact(bean), beanField.dataField);
+            }
+            catch (Throwable t) {
+                throw FieldBinder.rethrow(t);
+            }
+        }
+    }
+
+    static final class StringEncoder extends FieldEncoder {
+        final MethodHandle getter;
+
+        StringEncoder(BeanField beanField) {
+            super(beanField);
+            getter = beanField.binder().getter(String.class);
+        }
+
+        @Override
+        void encode(Object bean, RecordWriter<?> writer) throws Exception {
+            try {
+                String value = (String) getter.invokeExact(bean);
+                if (value != null) writer.putQuotedString(value);
+            }
+            catch (Throwable t) {
+                throw FieldBinder.rethrow(t);
+            }
+        }
+    }
+
+    /* boxed and other declared types, dispatches on the runtime class the same way the list writer always has */
+    static final class ObjectEncoder extends FieldEncoder {
+
+        ObjectEncoder(BeanField beanField) {
+            super(beanField);
+        }
+
+        @Override
+        void encode(Object bean, RecordWriter<?> writer) throws Exception {
+            Object object = beanField.binder().get(bean);
+            if (object == null) {
+                return;
+            }
+
+            Class<?> valueClass = object.getClass();
+            if (valueClass == BigDecimal.class) {
+                writer.putBigDecimal((BigDecimal) object, beanField.dataField);
+            }
+            else if (valueClass == Double.class) {
+                writer.putDouble((Double) object, beanField.dataField);
+            }
+            else if (valueClass == Long.class || valueClass == Integer.class) {
+                writer.putLong(((Number) object).longValue());
+            }
+            else if (valueClass == LocalDate.class) {
+                writer.putString(beanField.dateFieldFormat().format((LocalDate) object));
+            }
+            else if (valueClass == LocalDateTime.class) {
+                writer.putString(beanField.dateFieldFormat().format((LocalDateTime) object));
+            }
+            else if (valueClass == Timestamp.class) {
+                writer.putString(beanField.dateFieldFormat().format(((Timestamp) object).toLocalDateTime()));
+            }
+            else if (valueClass == String.class) {
+                writer.putQuotedString((String) object);
+            }
+            else {
+                writer.putString(object.toString());
+            }
+        }
+    }
+}
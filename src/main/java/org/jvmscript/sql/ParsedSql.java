@@ -0,0 +1,218 @@
+package org.jvmscript.sql;
+
+import org.sql2o.converters.Convert;
+import org.sql2o.converters.Converter;
+
+import java.lang.reflect.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Named parameter sql (where field1 = :p1 AND field2 = :p2) rewritten to jdbc ? placeholders so a PreparedStatement
+ * can be created directly with the cursor options sql2o does not expose.
+ * Parameters are bound the same way Connection.createQueryWithParams binds them, the n-th value is :pn, and a Collection
+ * or array value is expanded to one ? per element for in (:p1). Only the list free sql is cached, the sql with a
+ * list expanded is built for the call.
+ * Quoted text, comments and postgres :: casts are left alone.
+ */
+final class ParsedSql {
+
+    private static final LocalDateConverter localDateConverter = new LocalDateConverter();
+
+    static final int MAX_CACHED = 256;
+
+    /* parsed sql is immutable so one cache is shared by every connection */
+    private static final Map<String, ParsedSql> parsedSqlCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
+            return size() > MAX_CACHED;
+        }
+    });
+
+    final String sql;
+    final String jdbcSql;
+    final String[] parameterNames;
+    private final int[] placeholderPositions;
+    private String fingerprint;
+
+    private ParsedSql(String sql, String jdbcSql, String[] parameterNames, int[] placeholderPositions) {
+        this.sql = sql;
+        this.jdbcSql = jdbcSql;
+        this.parameterNames = parameterNames;
+        this.placeholderPositions = placeholderPositions;
+    }
+
+    static ParsedSql of(String sql) {
+        ParsedSql parsedSql = parsedSqlCache.get(sql);
+        if (parsedSql == null) {
+            parsedSql = parse(sql);
+            parsedSqlCache.put(sql, parsedSql);
+        }
+        return parsedSql;
+    }
+
+    static ParsedSql parse(String sql) {
+        StringBuilder jdbcSql = new StringBuilder(sql.length());
+        ArrayList<String> parameterNames = new ArrayList<>();
+        ArrayList<Integer> placeholderPositions = new ArrayList<>();
+
+        int length = sql.length();
+        int position = 0;
+
+        while (position < length) {
+            char c = sql.charAt(position);
+
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, position + 1);
+                while (end >= 0 && end + 1 < length && sql.charAt(end + 1) == c) {
+                    end = sql.indexOf(c, end + 2);
+                }
+                end = end < 0 ? length : end + 1;
+                jdbcSql.append(sql, position, end);
+                position = end;
+            }
+            else if (c == '-' && position + 1 < length && sql.charAt(position + 1) == '-') {
+                int end = sql.indexOf('\n', position);
+                end = end < 0 ? length : end;
+                jdbcSql.append(sql, position, end);
+                position = end;
+            }
+            else if (c == '/' && position + 1 < length && sql.charAt(position + 1) == '*') {
+                int end = sql.indexOf("*/", position + 2);
+                end = end < 0 ? length : end + 2;
+                jdbcSql.append(sql, position, end);
+                position = end;
+            }
+            else if (c == ':' && position + 1 < length && sql.charAt(position + 1) == ':') {
+                jdbcSql.append("::");
+                position += 2;
+            }
+            else if (c == ':' && position + 1 < length && Character.isJavaIdentifierStart(sql.charAt(position + 1))) {
+                int end = position + 2;
+                while (end < length && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                parameterNames.add(sql.substring(position + 1, end));
+                placeholderPositions.add(jdbcSql.length());
+                jdbcSql.append('?');
+                position = end;
+            }
+            else {
+                jdbcSql.append(c);
+                position++;
+            }
+        }
+
+        return new ParsedSql(sql, jdbcSql.toString(), parameterNames.toArray(new String[0]),
+                placeholderPositions.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /* computed on first use, only needed when SqlMetrics is enabled */
+    String fingerprint() {
+        if (fingerprint == null) {
+            fingerprint = SqlMetrics.fingerprint(jdbcSql);
+        }
+        return fingerprint;
+    }
+
+    /* the cached jdbcSql unless a value is a list, then a ? for every element of it */
+    String jdbcSql(Object... params) {
+        StringBuilder expandedSql = null;
+        int copied = 0;
+
+        for (int parameterCnt = 0; parameterCnt < parameterNames.length; parameterCnt++) {
+            int valueIndex = parameterIndex(parameterNames[parameterCnt]);
+            int listSize = valueIndex >= 0 && valueIndex < params.length ? listSize(params[valueIndex]) : -1;
+            if (listSize < 0) continue;
+
+            if (expandedSql == null) expandedSql = new StringBuilder(jdbcSql.length() + 2 * listSize);
+            int position = placeholderPositions[parameterCnt];
+            expandedSql.append(jdbcSql, copied, position);
+            for (int elementCnt = 0; elementCnt < listSize; elementCnt++) {
+                expandedSql.append(elementCnt == 0 ? "?" : ",?");
+            }
+            copied = position + 1;
+        }
+
+        if (expandedSql == null) return jdbcSql;
+        return expandedSql.append(jdbcSql, copied, jdbcSql.length()).toString();
+    }
+
+    /* binds to the statement prepared from jdbcSql(params) */
+    void bind(PreparedStatement statement, Object... params) throws SQLException {
+        int statementIndex = 1;
+        for (int parameterCnt = 0; parameterCnt < parameterNames.length; parameterCnt++) {
+            int valueIndex = parameterIndex(parameterNames[parameterCnt]);
+            if (valueIndex < 0 || valueIndex >= params.length) {
+                throw new SQLException("No value for parameter :" + parameterNames[parameterCnt] + ", " +
+                        params.length + " values were supplied for :p1 to :p" + params.length);
+            }
+
+            Object value = params[valueIndex];
+            int listSize = listSize(value);
+            if (listSize < 0) {
+                statement.setObject(statementIndex++, toDatabaseParam(value));
+            }
+            else if (listSize == 0) {
+                throw new SQLException("Parameter :" + parameterNames[parameterCnt] + " is an empty list, in () is not valid sql");
+            }
+            else if (value instanceof Collection) {
+                for (Object element : (Collection<?>) value) {
+                    statement.setObject(statementIndex++, toDatabaseParam(element));
+                }
+            }
+            else {
+                for (int elementCnt = 0; elementCnt < listSize; elementCnt++) {
+                    statement.setObject(statementIndex++, toDatabaseParam(Array.get(value, elementCnt)));
+                }
+            }
+        }
+    }
+
+    /* -1 for a single value, byte[] is a single binary value */
+    private static int listSize(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        else if (value != null && value.getClass().isArray() && value.getClass() != byte[].class) {
+            return Array.getLength(value);
+        }
+        return -1;
+    }
+
+    /* p1 is params[0], anything not named pn has no value */
+    private static int parameterIndex(String name) {
+        if (name.length() < 2 || name.charAt(0) != 'p') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name, 1, name.length(), 10) - 1;
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /*
+     * Same lookup sql2o's Query.addParameter makes through NoQuirks: the LocalDate converter the connection is opened with,
+     * then the globally registered converters, which cover enums, java.util.Date and char.
+     * A value with no converter is bound as is.
+     */
+    static Object toDatabaseParam(Object value) {
+        if (value == null) {
+            return null;
+        }
+        else if (value instanceof LocalDate) {
+            return localDateConverter.toDatabaseParam((LocalDate) value);
+        }
+
+        Converter converter = Convert.getConverterIfExists(value.getClass());
+        return converter == null ? value : converter.toDatabaseParam(value);
+    }
+}
@@ -0,0 +1,124 @@
+package org.jvmscript.sql;
+
+import org.sql2o.Connection;
+import org.sql2o.DefaultResultSetHandlerFactoryBuilder;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Maps rows to beans one at a time from a forward only cursor, with the same column mapping sql2o's executeAndFetch uses.
+ * The statement is closed, and a borrowed pooled connection returned, when the iterator is closed or the last row is read.
+ */
+final class SqlBeanIterator<T> implements Iterator<T>, Closeable {
+
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final ResultSetHandler<T> handler;
+    private final Runnable onClose;
+    private final SqlMetrics.Sample sample;
+    private long rowCount = 0;
+
+    private boolean hasNext;
+    private boolean closed = false;
+
+    SqlBeanIterator(Connection connection, String sqlString, Class<T> clazz, Runnable onClose, Object... params) throws SQLException {
+        this.onClose = onClose;
+        this.sample = SqlMetrics.start(sqlString);
+
+        PreparedStatement preparedStatement = null;
+        try {
+            ParsedSql parsedSql = ParsedSql.of(sqlString);
+            preparedStatement = SqlUtility.prepareStreamingStatement(connection.getJdbcConnection(), parsedSql.jdbcSql(params));
+            parsedSql.bind(preparedStatement, params);
+            resultSet = preparedStatement.executeQuery();
+            sample.executed();
+
+            Sql2o sql2o = connection.getSql2o();
+            DefaultResultSetHandlerFactoryBuilder builder = new DefaultResultSetHandlerFactoryBuilder();
+            builder.setQuirks(sql2o.getQuirks());
+            builder.setColumnMappings(sql2o.getDefaultColumnMappings());
+            builder.setCaseSensitive(sql2o.isDefaultCaseSensitive());
+            builder.setAutoDeriveColumnNames(false);
+            handler = builder.newFactory(clazz).newResultSetHandler(resultSet.getMetaData());
+
+            statement = preparedStatement;
+            hasNext = resultSet.next();
+        }
+        catch (SQLException | RuntimeException e) {
+            sample.close();
+            try {
+                if (preparedStatement != null) preparedStatement.close();
+            }
+            catch (SQLException closeException) {
+                e.addSuppressed(closeException);
+            }
+            finally {
+                onClose.run();
+            }
+            throw e;
+        }
+
+        if (!hasNext) {
+            close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            T bean = handler.handle(resultSet);
+            rowCount++;
+            hasNext = resultSet.next();
+            if (!hasNext) close();
+            return bean;
+        }
+        catch (SQLException e) {
+            close();
+            throw new Sql2oException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        hasNext = false;
+        sample.done(rowCount, 0);
+
+        try {
+            statement.close();
+        }
+        catch (SQLException e) {
+            throw new Sql2oException("Database error: " + e.getMessage(), e);
+        }
+        finally {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.jvmscript.sql;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Transient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jvmscript.record.DataField;
+import org.jvmscript.record.RecordFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+ * Inserts annotated beans with jdbc batching.
+ * The table is the @Entity name (or tableName), the columns are every @DataField or @Column field that is not @Transient,
+ * named by @Column(name), then @DataField(name), then the field name.
+ * rowsPerStatement > 1 builds insert ... values (...), (...) statements for databases that load those faster than batches of single rows.
+ * Rows per statement are cut down so a statement has at most maxParameters bind values, the default is the sql server
+ * limit of 2100, set it to 65535 for postgres or mysql.
+ * Rows are committed every commitInterval rows and at the end, a failure rolls back the uncommitted rows and rethrows.
+ */
+public class SqlBulkLoader<T> {
+
+    private static final Logger logger = LogManager.getLogger(SqlBulkLoader.class);
+
+    static class BulkColumn {
+        String columnName;
+        Field field;
+        MethodHandle getter;
+        int sqlType;
+    }
+
+    private static final ClassValue<BulkColumn[]> CachedColumnsByClass = new ClassValue<>() {
+        @Override
+        protected BulkColumn[] computeValue(Class<?> beanClass) {
+            return getBulkColumnsByClass(beanClass);
+        }
+    };
+
+    public final Class<T> beanClass;
+    public String tableName;
+    public int batchSize = 1000;
+    public int commitInterval = 10000;
+    public int rowsPerStatement = 1;
+    public int maxParameters = 2100;
+
+    private final BulkColumn[] columns;
+
+    public SqlBulkLoader(Class<T> beanClass) {
+        this.beanClass = beanClass;
+        this.columns = CachedColumnsByClass.get(beanClass);
+        if (beanClass.getAnnotation(Entity.class) != null) {
+            this.tableName = RecordFactory.getEntityName(beanClass);
+        }
+    }
+
+    static BulkColumn[] getBulkColumnsByClass(Class<?> beanClass) {
+        ArrayList<BulkColumn> bulkColumns = new ArrayList<>();
+
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                DataField dataField = field.getAnnotation(DataField.class);
+                Column column = field.getAnnotation(Column.class);
+
+                if ((dataField == null && column == null) || field.getAnnotation(Transient.class) != null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                BulkColumn bulkColumn = new BulkColumn();
+                bulkColumn.field = field;
+                bulkColumn.sqlType = getSqlType(field.getType());
+                if (column != null && !column.name().isEmpty()) bulkColumn.columnName = column.name();
+                else if (dataField != null && !dataField.name().isEmpty()) bulkColumn.columnName = dataField.name();
+                else bulkColumn.columnName = field.getName();
+
+                try {
+                    MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+                    bulkColumn.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+                }
+                catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to access field " + field.getName() + " of " + clazz.getName(), e);
+                }
+                bulkColumns.add(bulkColumn);
+            }
+        }
+
+        if (bulkColumns.isEmpty()) {
+            throw new IllegalArgumentException(beanClass.getName() + " has no @DataField or @Column fields to insert");
+        }
+        return bulkColumns.toArray(new BulkColumn[0]);
+    }
+
+    /* typed nulls, some drivers reject setObject(index, null) */
+    static int getSqlType(Class<?> type) {
+        if (type == String.class || type == Character.class || type == char.class) return Types.VARCHAR;
+        else if (type == Integer.class || type == int.class) return Types.INTEGER;
+        else if (type == Long.class || type == long.class) return Types.BIGINT;
+        else if (type == Double.class || type == double.class) return Types.DOUBLE;
+        else if (type == Float.class || type == float.class) return Types.REAL;
+        else if (type == BigDecimal.class) return Types.DECIMAL;
+        else if (type == Boolean.class || type == boolean.class) return Types.BOOLEAN;
+        else if (type == LocalDate.class || type == java.sql.Date.class) return Types.DATE;
+        else if (type == LocalDateTime.class || type == Timestamp.class || type == java.util.Date.class) return Types.TIMESTAMP;
+        else return Types.OTHER;
+    }
+
+    public String[] getColumnNames() {
+        String[] columnNames = new String[columns.length];
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            columnNames[columnCnt] = columns[columnCnt].columnName;
+        }
+        return columnNames;
+    }
+
+    String getInsertSql(int rows) {
+        if (tableName == null || tableName.isEmpty()) {
+            throw new IllegalStateException(beanClass.getName() + " has no @Entity name, set tableName");
+        }
+
+        StringBuilder values = new StringBuilder(columns.length * 2 + 2).append('(');
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            if (columnCnt > 0) values.append(',');
+            values.append('?');
+        }
+        values.append(')');
+
+        StringBuilder sql = new StringBuilder("insert into ").append(tableName)
+                .append(" (").append(String.join(",", getColumnNames())).append(") values ");
+        for (int rowCnt = 0; rowCnt < rows; rowCnt++) {
+            if (rowCnt > 0) sql.append(',');
+            sql.append(values);
+        }
+        return sql.toString();
+    }
+
+    public long load(Connection connection, Iterable<? extends T> beans) throws Exception {
+        return load(connection, beans.iterator());
+    }
+
+    public long load(Connection connection, Stream<? extends T> beans) throws Exception {
+        return load(connection, beans.iterator());
+    }
+
+    int getStatementRows() {
+        if (columns.length > maxParameters) {
+            throw new IllegalStateException(beanClass.getName() + " has " + columns.length + " columns, more than maxParameters " + maxParameters);
+        }
+
+        int statementRows = Math.max(1, rowsPerStatement);
+        if ((long) statementRows * columns.length > maxParameters) {
+            statementRows = maxParameters / columns.length;
+            logger.warn("{} rows of {} columns is more than {} parameters, using {} rows per statement",
+                    rowsPerStatement, columns.length, maxParameters, statementRows);
+        }
+        return statementRows;
+    }
+
+    public long load(Connection connection, Iterator<? extends T> beans) throws Exception {
+        int statementRows = getStatementRows();
+        int statementsPerBatch = Math.max(1, batchSize / statementRows);
+
+        long startTime = System.currentTimeMillis();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        long rowCount = 0;
+        long committedCount = 0;
+        Object[] pending = new Object[statementRows];
+        int pendingCount = 0;
+        int batchCount = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(getInsertSql(statementRows))) {
+            while (beans.hasNext()) {
+                pending[pendingCount++] = beans.next();
+                if (pendingCount < statementRows) {
+                    continue;
+                }
+
+                bindRows(statement, pending, pendingCount);
+                statement.addBatch();
+                rowCount += pendingCount;
+                pendingCount = 0;
+
+                if (++batchCount == statementsPerBatch) {
+                    statement.executeBatch();
+                    batchCount = 0;
+
+                    if (commitInterval > 0 && rowCount - committedCount >= commitInterval) {
+                        connection.commit();
+                        committedCount = rowCount;
+                    }
+                }
+            }
+
+            if (batchCount > 0) {
+                statement.executeBatch();
+            }
+
+            if (pendingCount > 0) {
+                try (PreparedStatement remainder = connection.prepareStatement(getInsertSql(pendingCount))) {
+                    bindRows(remainder, pending, pendingCount);
+                    remainder.executeUpdate();
+                }
+                rowCount += pendingCount;
+            }
+
+            connection.commit();
+        }
+        catch (Exception e) {
+            logger.error("Bulk insert into {} failed after {} rows, rolling back rows after {}", tableName, rowCount, committedCount);
+            try {
+                connection.rollback();
+            }
+            catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        }
+        finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        logger.info("Inserted {} rows into {} in {} ms", rowCount, tableName, System.currentTimeMillis() - startTime);
+        return rowCount;
+    }
+
+    private void bindRows(PreparedStatement statement, Object[] rows, int rowCount) throws SQLException {
+        int parameterIndex = 1;
+        for (int rowCnt = 0; rowCnt < rowCount; rowCnt++) {
+            Object bean = rows[rowCnt];
+            for (BulkColumn column : columns) {
+                Object value = getValue(column, bean);
+                if (value == null) statement.setNull(parameterIndex++, column.sqlType);
+                else statement.setObject(parameterIndex++, ParsedSql.toDatabaseParam(value));
+            }
+            rows[rowCnt] = null;
+        }
+    }
+
+    private static Object getValue(BulkColumn column, Object bean) {
+        try {
+            return (Object) column.getter.invokeExact(bean);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException("Unable to read field " + column.field.getName(), t);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package org.jvmscript.sql;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+import org.sql2o.converters.Convert;
+import org.sql2o.converters.Converter;
+import org.sql2o.quirks.NoQuirks;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/*
+ * A named, pooled database. Every call borrows a connection from the pool and returns it when done,
+ * so any number of threads can share one SqlDataSource. Use inConnection/inTransaction to run several
+ * statements on the same connection.
+ *
+ * Configured from the same properties as SqlUtility.openSqlConnection, a datasource named "warehouse" reads
+ * warehouse.db.url, warehouse.db.user ... and falls back to db.url, db.user ... when the prefixed key is missing.
+ *
+ * db.url, db.user, db.password
+ * db.pool.maxSize              maximum connections, default 10
+ * db.pool.minIdle              idle connections kept open, default 0
+ * db.pool.idleTimeout          ms before an idle connection above minIdle is closed, default 600000
+ * db.pool.maxLifetime          ms before a connection is retired, default 1800000
+ * db.pool.connectionTimeout    ms to wait for a free connection, default 30000
+ * db.pool.validationTimeout    ms allowed for the validation check, default 5000
+ * db.pool.testQuery            validation query for drivers without Connection.isValid, default none
+ */
+public class SqlDataSource implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(SqlDataSource.class);
+
+    public static final String DEFAULT_NAME = "default";
+
+    private static final ConcurrentHashMap<String, SqlDataSource> dataSources = new ConcurrentHashMap<>();
+
+    /* virtual threads block on the driver without holding a platform thread, one per async call */
+    private static final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public interface SqlWork<T> {
+        T apply(Connection connection) throws Exception;
+    }
+
+    public final String name;
+    private final HikariDataSource hikariDataSource;
+    private final Sql2o sql2o;
+    private final Semaphore asyncPermits;
+
+    SqlDataSource(String name, HikariDataSource hikariDataSource) {
+        this.name = name;
+        this.hikariDataSource = hikariDataSource;
+        this.asyncPermits = new Semaphore(hikariDataSource.getMaximumPoolSize(), true);
+
+        final Map<Class, Converter> mappers = new HashMap<>();
+        mappers.put(LocalDate.class, new LocalDateConverter());
+
+        sql2o = new Sql2o(hikariDataSource, new NoQuirks(mappers));
+        Convert.registerConverter(char.class, new SqlUtility.CharConverter());
+    }
+
+    public static SqlDataSource open(String name, String propertyFile) throws Exception {
+        return open(name, SqlUtility.loadProperties(propertyFile));
+    }
+
+    public static SqlDataSource open(String name, Properties properties) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("jvmscript-" + name);
+        config.setJdbcUrl(getProperty(properties, name, "db.url", null));
+        config.setUsername(getProperty(properties, name, "db.user", null));
+        config.setPassword(getProperty(properties, name, "db.password", null));
+        config.setMaximumPoolSize(Integer.parseInt(getProperty(properties, name, "db.pool.maxSize", "10")));
+        config.setMinimumIdle(Integer.parseInt(getProperty(properties, name, "db.pool.minIdle", "0")));
+        config.setIdleTimeout(Long.parseLong(getProperty(properties, name, "db.pool.idleTimeout", "600000")));
+        config.setMaxLifetime(Long.parseLong(getProperty(properties, name, "db.pool.maxLifetime", "1800000")));
+        config.setConnectionTimeout(Long.parseLong(getProperty(properties, name, "db.pool.connectionTimeout", "30000")));
+        config.setValidationTimeout(Long.parseLong(getProperty(properties, name, "db.pool.validationTimeout", "5000")));
+
+        String testQuery = getProperty(properties, name, "db.pool.testQuery", null);
+        if (testQuery != null) config.setConnectionTestQuery(testQuery);
+
+        return open(name, config);
+    }
+
+    public static SqlDataSource open(String name, HikariConfig config) {
+        SqlDataSource dataSource = new SqlDataSource(name, new HikariDataSource(config));
+
+        SqlDataSource previous = dataSources.put(name, dataSource);
+        if (previous != null) {
+            logger.warn("Sql datasource {} reopened, closing previous pool", name);
+            previous.closePool();
+        }
+
+        logger.info("Sql datasource {} opened with maximum pool size {}", name, config.getMaximumPoolSize());
+        return dataSource;
+    }
+
+    public static SqlDataSource get(String name) {
+        SqlDataSource dataSource = dataSources.get(name);
+        if (dataSource == null) {
+            throw new IllegalStateException("Sql datasource " + name + " is not open");
+        }
+        return dataSource;
+    }
+
+    static SqlDataSource find(String name) {
+        return dataSources.get(name);
+    }
+
+    public static void closeAll() {
+        for (SqlDataSource dataSource : new ArrayList<>(dataSources.values())) {
+            dataSource.close();
+        }
+    }
+
+    static String getProperty(Properties properties, String name, String key, String defaultValue) {
+        String value = properties.getProperty(name + "." + key);
+        if (value == null) value = properties.getProperty(key, defaultValue);
+        return value;
+    }
+
+    /* the returned connection goes back to the pool when it is closed */
+    public Connection open() {
+        return sql2o.open();
+    }
+
+    public Connection beginTransaction() {
+        return sql2o.beginTransaction();
+    }
+
+    public <T> T inConnection(SqlWork<T> work) throws Exception {
+        try (Connection connection = sql2o.open()) {
+            return work.apply(connection);
+        }
+    }
+
+    /* commits when work returns, rolls back when it throws */
+    public <T> T inTransaction(SqlWork<T> work) throws Exception {
+        Connection connection = sql2o.beginTransaction();
+        try {
+            T result = work.apply(connection);
+            connection.commit();
+            return result;
+        }
+        catch (Exception e) {
+            connection.rollback();
+            throw e;
+        }
+        finally {
+            connection.close();
+        }
+    }
+
+    /*
+     * Runs work on a virtual thread with its own pooled connection. At most maximum pool size calls run at once,
+     * the rest queue here instead of timing out in the pool, so any number of queries can be fired and joined.
+     * A failure completes the future exceptionally with the original exception as the cause.
+     */
+    public <T> CompletableFuture<T> async(SqlWork<T> work) {
+        return runAsync(() -> inConnection(work));
+    }
+
+    <T> CompletableFuture<T> runAsync(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                asyncPermits.acquire();
+                try {
+                    return task.call();
+                }
+                finally {
+                    asyncPermits.release();
+                }
+            }
+            catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    public <T> CompletableFuture<List<T>> sqlQueryAsync(String sql, Class<T> clazz, Object... params) {
+        return async(connection -> SqlUtility.executeSqlToList(connection, sql, clazz, params));
+    }
+
+    public CompletableFuture<ArrayList<ArrayList<Object>>> genericSqlQueryAsync(String sqlString, Object... params) {
+        return async(connection -> SqlUtility.genericSqlQuery(connection, sqlString, params));
+    }
+
+    public CompletableFuture<SqlResultTable> sqlQueryToTableAsync(String sqlString, Object... params) {
+        return async(connection -> SqlUtility.sqlQueryToTable(connection, sqlString, params));
+    }
+
+    public <T> CompletableFuture<T> sqlFindOneAsync(String sql, Class<T> clazz, Object... params) {
+        return async(connection -> SqlUtility.sqlFindOne(connection, sql, clazz, params));
+    }
+
+    public <T> CompletableFuture<T> sqlExecuteScalarAsync(String sql, Class<T> clazz, Object... params) {
+        return async(connection -> SqlUtility.sqlExecuteScalar(connection, sql, clazz, params));
+    }
+
+    public CompletableFuture<Void> executeSqlAsync(String sqlString, Object... params) {
+        return async(connection -> {
+            SqlUtility.executeSql(connection, sqlString, params);
+            return null;
+        });
+    }
+
+    public void addCustomColumnMapping(HashMap<String,String> columnMap) {
+        sql2o.setDefaultColumnMappings(columnMap);
+    }
+
+    public ArrayList<ArrayList<Object>> genericSqlQuery(String sqlString, Object... params) {
+        try (Connection connection = sql2o.open()) {
+            return SqlUtility.genericSqlQuery(connection, sqlString, params);
+        }
+    }
+
+    public SqlResultTable sqlQueryToTable(String sqlString, Object... params) throws Exception {
+        try (Connection connection = sql2o.open()) {
+            return SqlUtility.sqlQueryToTable(connection, sqlString, params);
+        }
+    }
+
+    public void exportSqlQueryToFile(String filename, String sqlString, Object... params) throws Exception {
+        try (Connection connection = sql2o.open()) {
+            SqlUtility.exportSqlQueryToFile(connection, filename, sqlString, params);
+        }
+    }
+
+    public void exportSqlQueryToExcel(String filename, String sqlString, Object... params) throws Exception {
+        try (Connection connection = sql2o.open()) {
+            SqlUtility.exportSqlQueryToExcel(connection, filename, sqlString, params);
+        }
+    }
+
+    public <T> List<T> executeSqlToList(String sql, Class<T> clazz, Object... params) {
+        try (Connection connection = sql2o.open()) {
+            return SqlUtility.executeSqlToList(connection, sql, clazz, params);
+        }
+    }
+
+    /* the connection is held until the stream is closed */
+    public <T> Stream<T> executeSqlToStream(String sql, Class<T> clazz, Object... params) {
+        Connection connection = sql2o.open();
+        return SqlUtility.openBeanIterator(connection, sql, clazz, connection::close, params).stream();
+    }
+
+    public <T> long executeSqlForEach(String sql, Class<T> clazz, Consumer<? super T> action, Object... params) {
+        Connection connection = sql2o.open();
+        return SqlUtility.executeSqlForEach(SqlUtility.openBeanIterator(connection, sql, clazz, connection::close, params), action);
+    }
+
+    public <K, V> HashMap<K,V> executeSqlToMap(String sql, Class<V> clazz, Function methodFunction, Object... params) {
+        try (Connection connection = sql2o.open()) {
+            return SqlUtility.executeSqlToMap(connection, sql, clazz, methodFunction, params);
+        }
+    }
+
+    public <T> T sqlFindOne(String sql, Class<T> clazz, Object... params) {
+        try (Connection connection = sql2o.open()) {
+            return SqlUtility.sqlFindOne(connection, sql, clazz, params);
+        }
+    }
+
+    public <T> T sqlExecuteScalar(String sql, Class<T> clazz, Object... params) {
+        try (Connection connection = sql2o.open()) {
+            return SqlUtility.sqlExecuteScalar(connection, sql, clazz, params);
+        }
+    }
+
+    public void executeSql(String sqlString, Object... params) throws Exception {
+        try (Connection connection = sql2o.open()) {
+            SqlUtility.executeSql(connection, sqlString, params);
+        }
+    }
+
+    public <T> long bulkInsert(List<T> beans, Class<T> clazz) throws Exception {
+        return bulkInsert(new SqlBulkLoader<>(clazz), beans.stream());
+    }
+
+    public <T> long bulkInsert(SqlBulkLoader<T> bulkLoader, Stream<? extends T> beans) throws Exception {
+        try (Connection connection = sql2o.open()) {
+            return bulkLoader.load(connection.getJdbcConnection(), beans);
+        }
+    }
+
+    public int getMaximumPoolSize() {
+        return hikariDataSource.getMaximumPoolSize();
+    }
+
+    public int getActiveConnections() {
+        return hikariDataSource.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    public int getIdleConnections() {
+        return hikariDataSource.getHikariPoolMXBean().getIdleConnections();
+    }
+
+    private void closePool() {
+        hikariDataSource.close();
+        logger.info("Sql datasource {} closed", name);
+        SqlMetrics.logSummary("sql datasource " + name);
+    }
+
+    @Override
+    public void close() {
+        dataSources.remove(name, this);
+        closePool();
+    }
+}
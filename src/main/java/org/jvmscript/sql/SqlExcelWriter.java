@@ -0,0 +1,145 @@
+package org.jvmscript.sql;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/*
+ * Writes a ResultSet to an xlsx file through an SXSSF workbook, only windowSize rows are held in memory and the rest
+ * are flushed to compressed temp files. Numbers, dates and booleans are written as typed cells, a new sheet is started
+ * (with the header repeated) when a sheet reaches maxRowsPerSheet.
+ */
+final class SqlExcelWriter {
+
+    /* excel keeps 15 significant digits, anything longer is written as text so account numbers and ids survive */
+    private static final int MAX_NUMERIC_DIGITS = 15;
+
+    private final SXSSFWorkbook workbook;
+    private final CellStyle dateStyle;
+    private final CellStyle dateTimeStyle;
+    private final String sheetName;
+    private final boolean header;
+    private final int maxRowsPerSheet;
+
+    private String[] columnNames;
+    private Sheet sheet;
+    private int sheetCount = 0;
+    private int rowId = 0;
+
+    SqlExcelWriter(String sheetName, boolean header, int windowSize, int maxRowsPerSheet, String dateFormat, String dateTimeFormat) {
+        this.sheetName = sheetName;
+        this.header = header;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+
+        workbook = new SXSSFWorkbook(windowSize);
+        workbook.setCompressTempFiles(true);
+
+        DataFormat dataFormat = workbook.createDataFormat();
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(dataFormat.getFormat(dateFormat));
+        dateTimeStyle = workbook.createCellStyle();
+        dateTimeStyle.setDataFormat(dataFormat.getFormat(dateTimeFormat));
+    }
+
+    long write(String filename, ResultSet resultSet) throws Exception {
+        long rowCount = 0;
+
+        try {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            columnNames = new String[columnCount];
+            for (int columnCnt = 0; columnCnt < columnCount; columnCnt++) {
+                columnNames[columnCnt] = metaData.getColumnLabel(columnCnt + 1);
+            }
+
+            nextSheet();
+
+            while (resultSet.next()) {
+                if (rowId >= maxRowsPerSheet) {
+                    nextSheet();
+                }
+
+                Row row = sheet.createRow(rowId++);
+                for (int columnCnt = 0; columnCnt < columnCount; columnCnt++) {
+                    Object object = resultSet.getObject(columnCnt + 1);
+                    if (object != null) {
+                        setCellValue(row.createCell(columnCnt), object);
+                    }
+                }
+                rowCount++;
+            }
+
+            try (FileOutputStream fileOutputStream = new FileOutputStream(filename)) {
+                workbook.write(fileOutputStream);
+            }
+        }
+        finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return rowCount;
+    }
+
+    private void nextSheet() {
+        sheetCount++;
+        sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " " + sheetCount);
+        rowId = 0;
+
+        if (header) {
+            Row row = sheet.createRow(rowId++);
+            for (int columnCnt = 0; columnCnt < columnNames.length; columnCnt++) {
+                row.createCell(columnCnt).setCellValue(columnNames[columnCnt]);
+            }
+        }
+    }
+
+    private void setCellValue(Cell cell, Object object) {
+        if (object instanceof BigDecimal) {
+            BigDecimal bigDecimal = (BigDecimal) object;
+            if (bigDecimal.precision() <= MAX_NUMERIC_DIGITS) cell.setCellValue(bigDecimal.doubleValue());
+            else cell.setCellValue(bigDecimal.toPlainString());
+        }
+        else if (object instanceof Long || object instanceof BigInteger) {
+            String digits = object.toString();
+            if (digits.length() - (digits.charAt(0) == '-' ? 1 : 0) <= MAX_NUMERIC_DIGITS) cell.setCellValue(((Number) object).doubleValue());
+            else cell.setCellValue(digits);
+        }
+        else if (object instanceof Number) {
+            cell.setCellValue(((Number) object).doubleValue());
+        }
+        else if (object instanceof Boolean) {
+            cell.setCellValue((Boolean) object);
+        }
+        else if (object instanceof java.sql.Date) {
+            cell.setCellValue(((java.sql.Date) object).toLocalDate());
+            cell.setCellStyle(dateStyle);
+        }
+        else if (object instanceof Timestamp) {
+            cell.setCellValue(((Timestamp) object).toLocalDateTime());
+            cell.setCellStyle(dateTimeStyle);
+        }
+        else if (object instanceof LocalDate) {
+            cell.setCellValue((LocalDate) object);
+            cell.setCellStyle(dateStyle);
+        }
+        else if (object instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) object);
+            cell.setCellStyle(dateTimeStyle);
+        }
+        else {
+            cell.setCellValue(object.toString());
+        }
+    }
+}
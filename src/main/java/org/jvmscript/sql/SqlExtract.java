@@ -23,6 +23,11 @@ public class SqlExtract {
         cliAddOption("excel", false, false);
         cliAddOption("emailList", true, false);
         cliAddOption("filename", true, false);
+        cliAddOption("partitionColumn", true, false);
+        cliAddOption("partitions", true, false);
+        cliAddOption("partitionMin", true, false);
+        cliAddOption("partitionMax", true, false);
+        cliAddOption("partFiles", false, false);
         cliParse(args);
 
         SqlUtility.delimiter = cliGetOptionValue("delimiterParam", ",").charAt(0);
@@ -37,17 +42,36 @@ public class SqlExtract {
         String filename = cliGetOptionValue("filename", getFileBaseName(sqlFilename) + fileExtension);
         String outputFilename = outputDir + filename;
 
-        if (cliHasOption("propertyFile"))
-            openSqlConnection(cliGetOptionValue("propertyFile"));
-        else
-            openSqlConnection();
+        if (cliHasOption("partitionColumn")) {
+            if (excelOutput) throw new IllegalArgumentException("Partitioned extract writes delimited files only, remove -excel");
 
-        if (excelOutput)
-            exportSqlFileQueryToExcel(sqlFilename, outputFilename);
-        else
-            exportSqlFileQueryToFile(sqlFilename, outputFilename);
+            SqlDataSource dataSource = cliHasOption("propertyFile") ? openSqlPool(cliGetOptionValue("propertyFile")) : openSqlPool();
+            SqlPartitionedExtract partitionedExtract = new SqlPartitionedExtract(dataSource, cliGetOptionValue("partitionColumn"));
+            partitionedExtract.partitions = Integer.parseInt(cliGetOptionValue("partitions", "4"));
+            if (cliHasOption("partitionMin")) partitionedExtract.partitionMin = Long.parseLong(cliGetOptionValue("partitionMin"));
+            if (cliHasOption("partitionMax")) partitionedExtract.partitionMax = Long.parseLong(cliGetOptionValue("partitionMax"));
+            partitionedExtract.partFiles = cliHasOption("partFiles");
 
-        closeSqlConnection();
+            try {
+                partitionedExtract.exportSqlQueryToFile(outputFilename, readSqlFile(sqlFilename));
+            }
+            finally {
+                closeSqlPool();
+            }
+        }
+        else {
+            if (cliHasOption("propertyFile"))
+                openSqlConnection(cliGetOptionValue("propertyFile"));
+            else
+                openSqlConnection();
+
+            if (excelOutput)
+                exportSqlFileQueryToExcel(sqlFilename, outputFilename);
+            else
+                exportSqlFileQueryToFile(sqlFilename, outputFilename);
+
+            closeSqlConnection();
+        }
 
         if (cliHasOption("emailList")) {
             EmailMessage emailMessage = createEmailMessage();
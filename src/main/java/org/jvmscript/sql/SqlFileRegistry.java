@@ -0,0 +1,60 @@
+package org.jvmscript.sql;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Sql files read once and kept by absolute path, an entry is reloaded when the file's modified time or size changes.
+ * The same String instance is returned until then, its hash is computed once and the statement and ParsedSql
+ * caches find it by reference, so a repeated sql file costs a file stat and no reading or hashing.
+ */
+final class SqlFileRegistry {
+
+    private static final ConcurrentHashMap<Path, SqlFile> sqlFiles = new ConcurrentHashMap<>();
+
+    static final class SqlFile {
+        final String sql;
+        final Charset charset;
+        final long lastModified;
+        final long size;
+
+        SqlFile(String sql, Charset charset, long lastModified, long size) {
+            this.sql = sql;
+            this.charset = charset;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+    private SqlFileRegistry() {
+    }
+
+    static String getSql(String sqlFilename, Charset charset) throws IOException {
+        return getSqlFile(sqlFilename, charset).sql;
+    }
+
+    static SqlFile getSqlFile(String sqlFilename, Charset charset) throws IOException {
+        Path path = Paths.get(sqlFilename).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        SqlFile sqlFile = sqlFiles.get(path);
+        if (sqlFile != null && sqlFile.lastModified == lastModified && sqlFile.size == size && sqlFile.charset.equals(charset)) {
+            return sqlFile;
+        }
+
+        sqlFile = new SqlFile(new String(Files.readAllBytes(path), charset), charset, lastModified, size);
+        sqlFiles.put(path, sqlFile);
+        return sqlFile;
+    }
+
+    static void clear() {
+        sqlFiles.clear();
+    }
+}
@@ -0,0 +1,332 @@
+package org.jvmscript.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Timing and volume of every SqlUtility / SqlDataSource query, kept per sql fingerprint, the sql with literals and
+ * parameters replaced by ? and whitespace and case normalized (quoted identifiers keep their case), so the same statement
+ * with different values is one entry.
+ *
+ * execute    ms from sending the statement until the first row (or update count) is available
+ * fetch      ms spent reading and converting the rows, only for the calls that read the ResultSet themselves
+ * rows       rows returned, written or updated
+ * bytes      size of the exported file
+ *
+ * Statements slower than slowQueryMillis are logged as they finish, the summary is logged when a connection or pool is closed.
+ */
+public final class SqlMetrics {
+
+    private static final Logger logger = LogManager.getLogger(SqlMetrics.class);
+
+    public static boolean enabled = true;
+    public static long slowQueryMillis = 10_000;
+    public static boolean logSummaryOnClose = true;
+
+    private static final int MAX_SUMMARY_SQL_LENGTH = 120;
+    private static final String OPERATOR_CHARS = "<>=!|+-*/%:";
+
+    private static final ConcurrentHashMap<String, QueryStats> queryStats = new ConcurrentHashMap<>();
+
+    /*
+     * Log linear histogram, values below 16 are exact, above that every power of two is split into 16 buckets,
+     * so a percentile is within about 6% of the recorded value at any magnitude.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] buckets = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+        private long count = 0;
+        private long sum = 0;
+        private long min = Long.MAX_VALUE;
+        private long max = 0;
+
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long bucketValue(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = index % SUB_BUCKETS;
+            return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        public synchronized void record(long value) {
+            if (value < 0) value = 0;
+            buckets[bucketIndex(value)]++;
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getSum() {
+            return sum;
+        }
+
+        public synchronized long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        public synchronized long getMax() {
+            return max;
+        }
+
+        public synchronized double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /* percentile between 0 and 100, the lower bound of the bucket holding it, or max for the highest bucket */
+        public synchronized long getPercentile(double percentile) {
+            if (count == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int index = 0; index < buckets.length; index++) {
+                seen += buckets[index];
+                if (seen == count) return max;
+                if (seen >= rank) return Math.min(Math.max(bucketValue(index), min), max);
+            }
+            return max;
+        }
+    }
+
+    public static final class QueryStats {
+        public final String fingerprint;
+        public final Histogram executeNanos = new Histogram();
+        public final Histogram fetchNanos = new Histogram();
+        public final Histogram rows = new Histogram();
+        public final Histogram bytes = new Histogram();
+        volatile long errors = 0;
+
+        QueryStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        public long getCount() {
+            return executeNanos.getCount();
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getTotalNanos() {
+            return executeNanos.getSum() + fetchNanos.getSum();
+        }
+    }
+
+    /*
+     * One timed call, opened before the statement is executed and closed after the last row is read.
+     * Closing without done counts the call as an error.
+     */
+    static final class Sample implements AutoCloseable {
+        private final String sql;
+        private final long startNanos;
+        private long executedNanos = 0;
+        private boolean done = false;
+
+        private Sample(String sql) {
+            this.sql = sql;
+            this.startNanos = System.nanoTime();
+        }
+
+        void executed() {
+            executedNanos = System.nanoTime();
+        }
+
+        void done(long rowCount, long byteCount) {
+            if (done || sql == null) return;
+            done = true;
+
+            long endNanos = System.nanoTime();
+            QueryStats stats = getQueryStats(ParsedSql.of(sql).fingerprint());
+
+            if (executedNanos == 0) {
+                stats.executeNanos.record(endNanos - startNanos);
+            }
+            else {
+                stats.executeNanos.record(executedNanos - startNanos);
+                stats.fetchNanos.record(endNanos - executedNanos);
+            }
+            stats.rows.record(rowCount);
+            if (byteCount > 0) stats.bytes.record(byteCount);
+
+            long elapsedMillis = (endNanos - startNanos) / 1_000_000;
+            if (slowQueryMillis > 0 && elapsedMillis >= slowQueryMillis) {
+                logger.warn("Slow sql {} ms, {} rows: {}", elapsedMillis, rowCount, sql);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (done || sql == null) return;
+            done = true;
+
+            QueryStats stats = getQueryStats(ParsedSql.of(sql).fingerprint());
+            synchronized (stats) {
+                stats.errors++;
+            }
+        }
+    }
+
+    /* does nothing, used when metrics are disabled */
+    private static final Sample DISABLED = new Sample(null);
+
+    private SqlMetrics() {
+    }
+
+    static Sample start(String sql) {
+        return enabled ? new Sample(sql) : DISABLED;
+    }
+
+    static QueryStats getQueryStats(String fingerprint) {
+        return queryStats.computeIfAbsent(fingerprint, QueryStats::new);
+    }
+
+    public static QueryStats getStats(String sql) {
+        return queryStats.get(ParsedSql.of(sql).fingerprint());
+    }
+
+    /* slowest total time first */
+    public static List<QueryStats> getStats() {
+        ArrayList<QueryStats> statsList = new ArrayList<>(queryStats.values());
+        statsList.sort(Comparator.comparingLong(QueryStats::getTotalNanos).reversed());
+        return statsList;
+    }
+
+    public static void reset() {
+        queryStats.clear();
+    }
+
+    /*
+     * Lower cased, comments dropped, quoted strings, numbers and jdbc ? placeholders all become ?, and tokens are
+     * re-spaced one way so layout differences do not split an entry
+     * select * from Trade where id=12 and name = 'A' and date = ?   ->   select * from trade where id = ? and name = ? and date = ?
+     */
+    public static String fingerprint(String sql) {
+        StringBuilder fingerprint = new StringBuilder(sql.length());
+        int length = sql.length();
+        int position = 0;
+
+        while (position < length) {
+            char c = sql.charAt(position);
+            int end;
+
+            if (c == '\'') {
+                end = sql.indexOf('\'', position + 1);
+                while (end >= 0 && end + 1 < length && sql.charAt(end + 1) == '\'') {
+                    end = sql.indexOf('\'', end + 2);
+                }
+                end = end < 0 ? length : end + 1;
+                appendToken(fingerprint, "?");
+            }
+            else if (c == '-' && position + 1 < length && sql.charAt(position + 1) == '-') {
+                end = sql.indexOf('\n', position);
+                end = end < 0 ? length : end;
+            }
+            else if (c == '/' && position + 1 < length && sql.charAt(position + 1) == '*') {
+                end = sql.indexOf("*/", position + 2);
+                end = end < 0 ? length : end + 2;
+            }
+            else if (Character.isWhitespace(c)) {
+                end = position + 1;
+            }
+            else if (Character.isDigit(c)) {
+                end = position + 1;
+                while (end < length && (Character.isDigit(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                    end++;
+                }
+                appendToken(fingerprint, "?");
+            }
+            else if (c == '"') {
+                /* quoted identifiers are case sensitive, kept as written */
+                end = sql.indexOf('"', position + 1);
+                end = end < 0 ? length : end + 1;
+                appendToken(fingerprint, sql.substring(position, end));
+            }
+            else if (Character.isJavaIdentifierStart(c)) {
+                end = position + 1;
+                while (end < length && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                appendToken(fingerprint, sql.substring(position, end).toLowerCase());
+            }
+            else if (OPERATOR_CHARS.indexOf(c) >= 0) {
+                end = position + 1;
+                while (end < length && OPERATOR_CHARS.indexOf(sql.charAt(end)) >= 0 && !sql.startsWith("--", end) && !sql.startsWith("/*", end)) {
+                    end++;
+                }
+                appendToken(fingerprint, sql.substring(position, end));
+            }
+            else {
+                end = position + 1;
+                appendToken(fingerprint, String.valueOf(c));
+            }
+            position = end;
+        }
+
+        int last = fingerprint.length() - 1;
+        if (last >= 0 && fingerprint.charAt(last) == ';') fingerprint.setLength(last);
+        return fingerprint.toString();
+    }
+
+    /* a space between tokens, except before , ) . ; and after ( . */
+    private static void appendToken(StringBuilder fingerprint, String token) {
+        int length = fingerprint.length();
+        if (length > 0) {
+            char previous = fingerprint.charAt(length - 1);
+            char first = token.charAt(0);
+            if (previous != '(' && previous != '.' && first != ',' && first != ')' && first != '.' && first != ';') {
+                fingerprint.append(' ');
+            }
+        }
+        fingerprint.append(token);
+    }
+
+    public static String getSummary() {
+        List<QueryStats> statsList = getStats();
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%d sql statements%n", statsList.size()));
+        summary.append(String.format("%8s %6s %10s %9s %9s %9s %9s %9s %12s %12s  %s%n",
+                "count", "errors", "total ms", "mean ms", "p50 ms", "p95 ms", "max ms", "fetch ms", "rows", "bytes", "sql"));
+
+        for (QueryStats stats : statsList) {
+            String sql = stats.fingerprint.length() > MAX_SUMMARY_SQL_LENGTH ?
+                    stats.fingerprint.substring(0, MAX_SUMMARY_SQL_LENGTH) + "..." : stats.fingerprint;
+
+            summary.append(String.format("%8d %6d %10d %9.1f %9.1f %9.1f %9.1f %9d %12d %12d  %s%n",
+                    stats.getCount(),
+                    stats.getErrors(),
+                    stats.getTotalNanos() / 1_000_000,
+                    stats.executeNanos.getMean() / 1_000_000.0,
+                    stats.executeNanos.getPercentile(50) / 1_000_000.0,
+                    stats.executeNanos.getPercentile(95) / 1_000_000.0,
+                    stats.executeNanos.getMax() / 1_000_000.0,
+                    stats.fetchNanos.getSum() / 1_000_000,
+                    stats.rows.getSum(),
+                    stats.bytes.getSum(),
+                    sql));
+        }
+        return summary.toString();
+    }
+
+    static void logSummary(String source) {
+        if (!enabled || !logSummaryOnClose || queryStats.isEmpty()) return;
+        logger.info("Sql metrics at close of {}{}{}", source, System.lineSeparator(), getSummary());
+    }
+}
@@ -0,0 +1,246 @@
+package org.jvmscript.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sql2o.Connection;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Splits a query into range partitions on a numeric column and extracts them concurrently, one pooled connection per partition.
+ * The column range is divided into equal ranges, by default min(partitionColumn) .. max(partitionColumn) of the query.
+ * The first partition has no lower bound and the last no upper bound (and takes the null values) so every row is extracted once.
+ * Partitions are written to part files (name.part001.ext ...) and, unless partFiles is set, appended in order into the output file.
+ * If any partition fails the part files and the partly written output file are deleted before the exception is rethrown.
+ */
+public class SqlPartitionedExtract {
+
+    private static final Logger logger = LogManager.getLogger(SqlPartitionedExtract.class);
+    private static final long TERMINATION_WAIT_SECONDS = 60;
+
+    public final SqlDataSource dataSource;
+    public final String partitionColumn;
+    public int partitions = 4;
+    public Long partitionMin;
+    public Long partitionMax;
+    public boolean partFiles = false;
+
+    static class Partition {
+        int number;
+        Long lowerBound;
+        Long upperBound;
+        String filename;
+        long rowCount;
+        long elapsedTime;
+    }
+
+    public SqlPartitionedExtract(SqlDataSource dataSource, String partitionColumn) {
+        this.dataSource = dataSource;
+        this.partitionColumn = partitionColumn;
+    }
+
+    public long exportSqlQueryToFile(String filename, String sqlString, Object... params) throws Exception {
+        long startTime = System.currentTimeMillis();
+        String subquerySql = getSubquerySql(sqlString);
+        ArrayList<Partition> partitionList = getPartitions(filename, subquerySql, params);
+
+        int threads = Math.min(partitionList.size(), dataSource.getMaximumPoolSize());
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        long rowCount = 0;
+        boolean outputCreated = false;
+
+        try {
+            ArrayList<Future<Partition>> futures = new ArrayList<>();
+            for (Partition partition : partitionList) {
+                futures.add(executorService.submit(() -> exportPartition(partition, subquerySql, params)));
+            }
+
+            FileChannel output = partFiles ? null : FileChannel.open(Paths.get(filename),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            outputCreated = output != null;
+            try {
+                for (Future<Partition> future : futures) {
+                    Partition partition = future.get();
+                    rowCount += partition.rowCount;
+
+                    if (output != null) {
+                        appendPartFile(output, Paths.get(partition.filename));
+                    }
+                }
+            }
+            finally {
+                if (output != null) output.close();
+            }
+        }
+        catch (Exception e) {
+            executorService.shutdownNow();
+            /* a partition still writing would recreate its part file after the delete */
+            try {
+                if (!executorService.awaitTermination(TERMINATION_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("Partitions of {} still running {} seconds after the failure, their part files may be left behind", filename, TERMINATION_WAIT_SECONDS);
+                }
+            }
+            catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                e.addSuppressed(interrupted);
+            }
+            deleteOutputFiles(outputCreated ? filename : null, partitionList, e);
+            throw e;
+        }
+        finally {
+            executorService.shutdown();
+        }
+
+        logger.info("Partitioned extract of {} rows in {} partitions to {} in {} ms", rowCount, partitionList.size(), filename, System.currentTimeMillis() - startTime);
+        return rowCount;
+    }
+
+    ArrayList<Partition> getPartitions(String filename, String sqlString, Object... params) throws Exception {
+        long min;
+        long max;
+
+        if (partitionMin != null && partitionMax != null) {
+            min = partitionMin;
+            max = partitionMax;
+        }
+        else {
+            String rangeSql = "select min(" + partitionColumn + "), max(" + partitionColumn + ") from (" + sqlString + ") partition_range";
+            ArrayList<ArrayList<Object>> range;
+            try (Connection connection = dataSource.open()) {
+                range = SqlUtility.genericSqlQuery(connection, rangeSql, params);
+            }
+
+            ArrayList<Object> rangeRow = range.size() > 1 ? range.get(1) : null;
+            Object minValue = rangeRow == null ? null : rangeRow.get(0);
+            Object maxValue = rangeRow == null ? null : rangeRow.get(1);
+            if (minValue != null && !(minValue instanceof Number)) {
+                throw new IllegalArgumentException("Partition column " + partitionColumn + " must be numeric, found " + minValue.getClass().getName());
+            }
+
+            min = partitionMin != null ? partitionMin : minValue == null ? 0 : ((Number) minValue).longValue();
+            max = partitionMax != null ? partitionMax : maxValue == null ? 0 : ((Number) maxValue).longValue();
+        }
+
+        int partitionCount = (int) Math.max(1, Math.min(partitions, max - min + 1));
+        long rangeSize = Math.max(1, (max - min + partitionCount) / partitionCount);
+
+        ArrayList<Partition> partitionList = new ArrayList<>();
+        for (int partitionCnt = 0; partitionCnt < partitionCount; partitionCnt++) {
+            Partition partition = new Partition();
+            partition.number = partitionCnt + 1;
+            partition.lowerBound = partitionCnt == 0 ? null : min + partitionCnt * rangeSize;
+            partition.upperBound = partitionCnt == partitionCount - 1 ? null : min + (partitionCnt + 1) * rangeSize;
+            partition.filename = getPartFilename(filename, partition.number);
+            partitionList.add(partition);
+        }
+        return partitionList;
+    }
+
+    /* bounds are bound after the caller's parameters so :p1 .. :pn in the query keep their meaning */
+    String getPartitionSql(String sqlString, Partition partition, int paramCount) {
+        StringBuilder sql = new StringBuilder("select * from (").append(sqlString).append(") partition_extract where ");
+
+        if (partition.lowerBound == null && partition.upperBound == null) {
+            sql.append("1 = 1");
+        }
+        else if (partition.lowerBound == null) {
+            sql.append(partitionColumn).append(" < :p").append(paramCount + 1);
+        }
+        else if (partition.upperBound == null) {
+            sql.append(partitionColumn).append(" >= :p").append(paramCount + 1).append(" or ").append(partitionColumn).append(" is null");
+        }
+        else {
+            sql.append(partitionColumn).append(" >= :p").append(paramCount + 1)
+               .append(" and ").append(partitionColumn).append(" < :p").append(paramCount + 2);
+        }
+        return sql.toString();
+    }
+
+    Object[] getPartitionParams(Partition partition, Object[] params) {
+        ArrayList<Object> partitionParams = new ArrayList<>(Arrays.asList(params));
+        if (partition.lowerBound != null) partitionParams.add(partition.lowerBound);
+        if (partition.upperBound != null) partitionParams.add(partition.upperBound);
+        return partitionParams.toArray();
+    }
+
+    Partition exportPartition(Partition partition, String sqlString, Object[] params) throws Exception {
+        long startTime = System.currentTimeMillis();
+        String partitionSql = getPartitionSql(sqlString, partition, params.length);
+        boolean writeHeader = SqlUtility.header && (partFiles || partition.number == 1);
+
+        try (Connection connection = dataSource.open()) {
+            partition.rowCount = SqlUtility.exportSqlQueryToFile(connection, partition.filename, writeHeader, partitionSql, getPartitionParams(partition, params));
+        }
+
+        partition.elapsedTime = System.currentTimeMillis() - startTime;
+        logger.info("Partition {} {} >= {} and < {} extracted {} rows to {} in {} ms",
+                partition.number,
+                partitionColumn,
+                partition.lowerBound == null ? "min" : partition.lowerBound,
+                partition.upperBound == null ? "max" : partition.upperBound,
+                partition.rowCount,
+                partition.filename,
+                partition.elapsedTime);
+        return partition;
+    }
+
+    /* the query is wrapped as a subquery, a trailing ; from a sql file would end the statement early */
+    static String getSubquerySql(String sqlString) {
+        String subquerySql = sqlString.strip();
+        while (subquerySql.endsWith(";")) {
+            subquerySql = subquerySql.substring(0, subquerySql.length() - 1).strip();
+        }
+        return subquerySql;
+    }
+
+    static String getPartFilename(String filename, int number) {
+        int separator = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+        int extension = filename.lastIndexOf('.');
+        String partSuffix = String.format(".part%03d", number);
+
+        if (extension <= separator) return filename + partSuffix;
+        return filename.substring(0, extension) + partSuffix + filename.substring(extension);
+    }
+
+    /* delete failures are added to the extract failure rather than replacing it */
+    static void deleteOutputFiles(String filename, ArrayList<Partition> partitionList, Exception failure) {
+        ArrayList<Path> paths = new ArrayList<>();
+        for (Partition partition : partitionList) {
+            paths.add(Paths.get(partition.filename));
+        }
+        if (filename != null) {
+            paths.add(Paths.get(filename));
+        }
+
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            }
+            catch (IOException deleteException) {
+                failure.addSuppressed(deleteException);
+            }
+        }
+    }
+
+    private static void appendPartFile(FileChannel output, Path partFile) throws IOException {
+        try (FileChannel input = FileChannel.open(partFile, StandardOpenOption.READ)) {
+            long size = input.size();
+            long position = 0;
+            while (position < size) {
+                position += input.transferTo(position, size - position, output);
+            }
+        }
+        Files.delete(partFile);
+    }
+}
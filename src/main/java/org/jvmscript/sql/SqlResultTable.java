@@ -0,0 +1,411 @@
+package org.jvmscript.sql;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/*
+ * Column oriented query result. Integer, bigint and whole number decimal columns are held in int[] / long[],
+ * floating point columns in double[], and string columns as int codes into a dictionary of the distinct values,
+ * so a large lookup result costs a few bytes per cell instead of a boxed object and a list slot.
+ * Other types (dates, fractional decimals ...) are kept as the objects the driver returns.
+ * Columns are in select order, names are the column labels.
+ */
+public class SqlResultTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_LONG_PRECISION = 18;
+
+    public abstract static class SqlColumn {
+        public final String name;
+        public final int sqlType;
+        final BitSet nulls = new BitSet();
+
+        SqlColumn(String name, int sqlType) {
+            this.name = name;
+            this.sqlType = sqlType;
+        }
+
+        abstract void read(ResultSet resultSet, int columnIndex, int row) throws SQLException;
+
+        abstract void grow(int capacity);
+
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        public abstract Object getObject(int row);
+    }
+
+    public static final class IntColumn extends SqlColumn {
+        int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn(String name, int sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            values[row] = resultSet.getInt(columnIndex);
+            if (resultSet.wasNull()) nulls.set(row);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    public static final class LongColumn extends SqlColumn {
+        long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(String name, int sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            values[row] = resultSet.getLong(columnIndex);
+            if (resultSet.wasNull()) nulls.set(row);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        /* whole number decimal columns come back as BigDecimal, the same type getObject returns */
+        @Override
+        public Object getObject(int row) {
+            if (isNull(row)) return null;
+            return sqlType == Types.DECIMAL || sqlType == Types.NUMERIC ? BigDecimal.valueOf(values[row]) : (Object) values[row];
+        }
+    }
+
+    public static final class DoubleColumn extends SqlColumn {
+        double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn(String name, int sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            values[row] = resultSet.getDouble(columnIndex);
+            if (resultSet.wasNull()) nulls.set(row);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    public static final class StringColumn extends SqlColumn {
+        int[] codes = new int[INITIAL_CAPACITY];
+        final ArrayList<String> dictionary = new ArrayList<>();
+        private final HashMap<String, Integer> dictionaryCodes = new HashMap<>();
+
+        StringColumn(String name, int sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            String value = resultSet.getString(columnIndex);
+            if (value == null) {
+                nulls.set(row);
+                codes[row] = -1;
+                return;
+            }
+
+            Integer code = dictionaryCodes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryCodes.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        public String getString(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        /* -1 for null, equal strings have equal codes */
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        public int getDistinctCount() {
+            return dictionary.size();
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getString(row);
+        }
+    }
+
+    public static final class ObjectColumn extends SqlColumn {
+        Object[] values = new Object[INITIAL_CAPACITY];
+
+        ObjectColumn(String name, int sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            values[row] = resultSet.getObject(columnIndex);
+            if (values[row] == null) nulls.set(row);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return values[row];
+        }
+    }
+
+    /* forward only view of one row at a time, columns by index (0 based) or name */
+    public final class Cursor {
+        private int row = -1;
+
+        public boolean next() {
+            if (row + 1 >= rowCount) return false;
+            row++;
+            return true;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public boolean isNull(int column) {
+            return columns[column].isNull(row);
+        }
+
+        public int getInt(int column) {
+            SqlColumn sqlColumn = columns[column];
+            if (sqlColumn instanceof IntColumn) return ((IntColumn) sqlColumn).getInt(row);
+            return ((Number) sqlColumn.getObject(row)).intValue();
+        }
+
+        public long getLong(int column) {
+            SqlColumn sqlColumn = columns[column];
+            if (sqlColumn instanceof LongColumn) return ((LongColumn) sqlColumn).getLong(row);
+            if (sqlColumn instanceof IntColumn) return ((IntColumn) sqlColumn).getInt(row);
+            return ((Number) sqlColumn.getObject(row)).longValue();
+        }
+
+        public double getDouble(int column) {
+            SqlColumn sqlColumn = columns[column];
+            if (sqlColumn instanceof DoubleColumn) return ((DoubleColumn) sqlColumn).getDouble(row);
+            return ((Number) sqlColumn.getObject(row)).doubleValue();
+        }
+
+        public String getString(int column) {
+            SqlColumn sqlColumn = columns[column];
+            if (sqlColumn instanceof StringColumn) return ((StringColumn) sqlColumn).getString(row);
+            Object value = sqlColumn.getObject(row);
+            return value == null ? null : value.toString();
+        }
+
+        public Object getObject(int column) {
+            return columns[column].getObject(row);
+        }
+
+        public boolean isNull(String name) {
+            return isNull(getColumnIndex(name));
+        }
+
+        public int getInt(String name) {
+            return getInt(getColumnIndex(name));
+        }
+
+        public long getLong(String name) {
+            return getLong(getColumnIndex(name));
+        }
+
+        public double getDouble(String name) {
+            return getDouble(getColumnIndex(name));
+        }
+
+        public String getString(String name) {
+            return getString(getColumnIndex(name));
+        }
+
+        public Object getObject(String name) {
+            return getObject(getColumnIndex(name));
+        }
+    }
+
+    final SqlColumn[] columns;
+    private final HashMap<String, Integer> columnIndexes = new HashMap<>();
+    private int rowCount = 0;
+    private int capacity = INITIAL_CAPACITY;
+
+    SqlResultTable(SqlColumn[] columns) {
+        this.columns = columns;
+        for (int columnCnt = columns.length - 1; columnCnt >= 0; columnCnt--) {
+            columnIndexes.put(columns[columnCnt].name.toLowerCase(), columnCnt);
+        }
+    }
+
+    static SqlResultTable read(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        SqlColumn[] columns = new SqlColumn[metaData.getColumnCount()];
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            columns[columnCnt] = newColumn(metaData, columnCnt + 1);
+        }
+
+        SqlResultTable table = new SqlResultTable(columns);
+        while (resultSet.next()) {
+            table.readRow(resultSet);
+        }
+        return table;
+    }
+
+    static SqlColumn newColumn(ResultSetMetaData metaData, int columnIndex) throws SQLException {
+        String name = metaData.getColumnLabel(columnIndex);
+        int sqlType = metaData.getColumnType(columnIndex);
+
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new IntColumn(name, sqlType);
+            case Types.BIGINT:
+                return new LongColumn(name, sqlType);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn(name, sqlType);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                int precision = metaData.getPrecision(columnIndex);
+                if (metaData.getScale(columnIndex) == 0 && precision > 0 && precision <= MAX_LONG_PRECISION) {
+                    return new LongColumn(name, sqlType);
+                }
+                return new ObjectColumn(name, sqlType);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringColumn(name, sqlType);
+            default:
+                return new ObjectColumn(name, sqlType);
+        }
+    }
+
+    private void readRow(ResultSet resultSet) throws SQLException {
+        if (rowCount == capacity) {
+            capacity = capacity * 2;
+            for (SqlColumn column : columns) {
+                column.grow(capacity);
+            }
+        }
+
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            columns[columnCnt].read(resultSet, columnCnt + 1, rowCount);
+        }
+        rowCount++;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /* case insensitive, -1 when there is no such column */
+    public int findColumnIndex(String name) {
+        Integer index = columnIndexes.get(name.toLowerCase());
+        return index == null ? -1 : index;
+    }
+
+    public int getColumnIndex(String name) {
+        int index = findColumnIndex(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column " + name + " in result");
+        }
+        return index;
+    }
+
+    public SqlColumn getColumn(int index) {
+        return columns[index];
+    }
+
+    public SqlColumn getColumn(String name) {
+        return columns[getColumnIndex(name)];
+    }
+
+    public String[] getColumnNames() {
+        String[] columnNames = new String[columns.length];
+        for (int columnCnt = 0; columnCnt < columns.length; columnCnt++) {
+            columnNames[columnCnt] = columns[columnCnt].name;
+        }
+        return columnNames;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /* same shape as SqlUtility.genericSqlQuery, header row first */
+    public ArrayList<ArrayList<Object>> toRowList() {
+        ArrayList<ArrayList<Object>> rows = new ArrayList<>(rowCount + 1);
+        rows.add(new ArrayList<>(Arrays.asList((Object[]) getColumnNames())));
+
+        for (int row = 0; row < rowCount; row++) {
+            ArrayList<Object> values = new ArrayList<>(columns.length);
+            for (SqlColumn column : columns) {
+                values.add(column.getObject(row));
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,76 @@
+package org.jvmscript.sql;
+
+import org.sql2o.Connection;
+import org.sql2o.Query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+ * LRU cache of sql2o queries for one connection, keyed by the sql text.
+ * A cached query keeps its parsed sql and its PreparedStatement, a repeated call only binds the new parameter values.
+ * Evicted queries are closed, which closes their statement on the server.
+ * Not thread safe, a connection is only ever used by one thread at a time.
+ * Only the connection opened by SqlUtility.openSqlConnection has a cache, see SqlUtility.statementCacheSize.
+ */
+final class SqlStatementCache {
+
+    /* least recently used entries past maxEntries are removed and handed to onEvict */
+    static final class LruMap<V> extends LinkedHashMap<String, V> {
+        private final int maxEntries;
+        private final Consumer<? super V> onEvict;
+
+        LruMap(int maxEntries, Consumer<? super V> onEvict) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.onEvict = onEvict;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            if (size() > maxEntries) {
+                onEvict.accept(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    final Connection connection;
+    private final LruMap<Query> queries;
+
+    long hits = 0;
+    long misses = 0;
+
+    SqlStatementCache(Connection connection, int maxStatements) {
+        this.connection = connection;
+        this.queries = new LruMap<>(maxStatements, Query::close);
+    }
+
+    Query createQuery(String sql, Object... params) {
+        Query query = queries.get(sql);
+
+        if (query == null) {
+            misses++;
+            query = connection.createQueryWithParams(sql, params);
+            queries.put(sql, query);
+        }
+        else {
+            hits++;
+            query.withParams(params);
+        }
+        return query;
+    }
+
+    int size() {
+        return queries.size();
+    }
+
+    void clear() {
+        for (Query query : queries.values()) {
+            query.close();
+        }
+        queries.clear();
+    }
+}
@@ -4,27 +4,29 @@ import com.univocity.parsers.csv.CsvRoutines;
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
 import com.univocity.parsers.tsv.TsvWriterSettings;
-import org.apache.commons.io.FileUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.sql2o.Connection;
 import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 import org.sql2o.converters.Convert;
 import org.sql2o.converters.Converter;
-import org.sql2o.data.Column;
-import org.sql2o.data.Row;
-import org.sql2o.data.Table;
 import org.sql2o.quirks.NoQuirks;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 
 // sql syntax for parameters
@@ -38,6 +40,19 @@ public class SqlUtility {
     public static boolean quoteAllFields = false;
 
     public static String nullValue = "";
+    public static int fetchSize = 1000;
+    /*
+     * Statements kept per connection, only for the single connection opened by openSqlConnection.
+     * Pooled calls (openSqlPool, SqlDataSource) are not cached here, use the driver's statement cache for those.
+     */
+    public static int statementCacheSize = 64;
+    public static Charset sqlFileCharset = StandardCharsets.UTF_8;
+    private static SqlStatementCache statementCache;
+
+    public static int excelWindowSize = 100;
+    public static int excelMaxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    public static String excelDateFormat = "yyyy-mm-dd";
+    public static String excelDateTimeFormat = "yyyy-mm-dd hh:mm:ss";
 
     // Custom converter for char
     public static class CharConverter implements Converter<Character> {
@@ -62,9 +77,7 @@ public class SqlUtility {
     }
 
     public static void openSqlConnection(String propertyFile) throws IOException {
-        Properties properties = new Properties();
-        InputStream inputStream = SqlUtility.class.getResourceAsStream("/" + propertyFile);
-        properties.load(inputStream);
+        Properties properties = loadProperties(propertyFile);
 
         String dbUrl = properties.getProperty("db.url");
         String user = properties.getProperty("db.user");
@@ -80,6 +93,55 @@ public class SqlUtility {
         sql2o = new Sql2o(dbUrl, user, password, new NoQuirks((mappers)));
         Convert.registerConverter(char.class, new CharConverter());
         connection = sql2o.open();
+        statementCache = statementCacheSize > 0 ? new SqlStatementCache(connection, statementCacheSize) : null;
+    }
+
+    static Properties loadProperties(String propertyFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = SqlUtility.class.getResourceAsStream("/" + propertyFile)) {
+            if (inputStream == null) throw new FileNotFoundException("Property file " + propertyFile + " not found on classpath");
+            properties.load(inputStream);
+        }
+        return properties;
+    }
+
+    /*
+     * Pooled mode, when no single connection is open the static methods below borrow a connection
+     * from the default pool for each call, so they can be used from many threads at once.
+     */
+    public static SqlDataSource openSqlPool() throws Exception {
+        return openSqlPool("application.properties");
+    }
+
+    public static SqlDataSource openSqlPool(String propertyFile) throws Exception {
+        return SqlDataSource.open(SqlDataSource.DEFAULT_NAME, propertyFile);
+    }
+
+    public static void closeSqlPool() {
+        SqlDataSource dataSource = SqlDataSource.find(SqlDataSource.DEFAULT_NAME);
+        if (dataSource != null) dataSource.close();
+    }
+
+    public static SqlDataSource openSqlDataSource(String name, String propertyFile) throws Exception {
+        return SqlDataSource.open(name, propertyFile);
+    }
+
+    public static SqlDataSource getSqlDataSource(String name) {
+        return SqlDataSource.get(name);
+    }
+
+    private static Connection borrowConnection() {
+        if (connection != null) return connection;
+
+        SqlDataSource dataSource = SqlDataSource.find(SqlDataSource.DEFAULT_NAME);
+        if (dataSource == null) {
+            throw new IllegalStateException("No sql connection, call openSqlConnection or openSqlPool first");
+        }
+        return dataSource.open();
+    }
+
+    private static void releaseConnection(Connection borrowed) {
+        if (borrowed != connection) borrowed.close();
     }
 
     public static void sqlSetAutoCommit(boolean flag) throws Exception {
@@ -92,82 +154,233 @@ public class SqlUtility {
     }
 
     public static void sqlCommit() {
+        clearStatementCache();
         connection.commit();
     }
 
     public static void addCustomColumnMapping(HashMap<String,String> columnMap) {
-        sql2o.setDefaultColumnMappings(columnMap);
+        clearStatementCache();
+        if (sql2o != null) sql2o.setDefaultColumnMappings(columnMap);
+
+        SqlDataSource dataSource = SqlDataSource.find(SqlDataSource.DEFAULT_NAME);
+        if (dataSource != null) dataSource.addCustomColumnMapping(columnMap);
     }
 
     public static void closeSqlConnection() {
+        clearStatementCache();
+        statementCache = null;
         connection.close();
+        connection = null;
+        SqlMetrics.logSummary("sql connection");
+    }
+
+    /*
+     * Queries run on the connection opened by openSqlConnection are cached by sql text, so calling the same sql in a loop
+     * skips both the named parameter parsing and the statement prepare. Pooled calls borrow a different connection each time
+     * and sql2o closes a query's statement when its connection goes back to the pool, so they are never cached here.
+     * Statement reuse there has to come from the driver (prepStmtCacheSize, prepareThreshold ... on the db.url).
+     */
+    static Query createQuery(Connection connection, String sql, Object... params) {
+        SqlStatementCache cache = statementCache;
+        if (cache != null && cache.connection == connection) {
+            return cache.createQuery(sql, params);
+        }
+        return connection.createQueryWithParams(sql, params);
+    }
+
+    /* the cache and its hit and miss counts cover the openSqlConnection connection only, pooled calls are not counted */
+    public static void clearStatementCache() {
+        if (statementCache != null) statementCache.clear();
+    }
+
+    public static long getStatementCacheHits() {
+        return statementCache == null ? 0 : statementCache.hits;
+    }
+
+    public static long getStatementCacheMisses() {
+        return statementCache == null ? 0 : statementCache.misses;
+    }
+
+    /* sql files are cached by SqlFileRegistry until they change on disk */
+    public static String readSqlFile(String sqlQueryFilename) throws IOException {
+        return SqlFileRegistry.getSql(sqlQueryFilename, sqlFileCharset);
+    }
+
+    public static void clearSqlFileCache() {
+        SqlFileRegistry.clear();
     }
 
     public static void exportSqlFileQueryToFile(String sqlQueryFilename, String outputFilename, Object... params) throws Exception {
-        String sqlQuery = FileUtils.readFileToString(new File(sqlQueryFilename));
+        String sqlQuery = readSqlFile(sqlQueryFilename);
         exportSqlQueryToFile(outputFilename, sqlQuery, params);
     }
 
     public static void exportSqlFileQueryToExcel(String sqlQueryFilename, String outputFilename, Object... params) throws Exception {
-        String sqlQuery = FileUtils.readFileToString(new File(sqlQueryFilename));
+        String sqlQuery = readSqlFile(sqlQueryFilename);
         exportSqlQueryToExcel(outputFilename, sqlQuery, params);
     }
 
     public static ArrayList<ArrayList<Object>> genericSqlFileQuery(String sqlQueryFilename, Object... params) throws Exception {
-        String sqlQuery = FileUtils.readFileToString(new File(sqlQueryFilename));
+        String sqlQuery = readSqlFile(sqlQueryFilename);
         return genericSqlQuery(sqlQuery, params);
     }
 
     public static ArrayList<ArrayList<Object>> genericSqlQuery(String sqlString, Object... params) {
-        Query query = connection.createQueryWithParams(sqlString, params);
-        Table table = query.executeAndFetchTable();
+        Connection current = borrowConnection();
+        try {
+            return genericSqlQuery(current, sqlString, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    /* header row then one list per row, values in select order */
+    static ArrayList<ArrayList<Object>> genericSqlQuery(Connection connection, String sqlString, Object... params) {
+        ParsedSql parsedSql = ParsedSql.of(sqlString);
 
-        ArrayList<ArrayList<Object>> results = new ArrayList<>();
-        ArrayList<Object> resultRow = new ArrayList<>();
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sqlString);
+             PreparedStatement statement = prepareStreamingStatement(connection.getJdbcConnection(), parsedSql.jdbcSql(params))) {
+            parsedSql.bind(statement, params);
 
-        for(Column column : table.columns()) {
-            resultRow.add(column.getName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                sample.executed();
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+
+                ArrayList<ArrayList<Object>> results = new ArrayList<>();
+                ArrayList<Object> resultRow = new ArrayList<>(columnCount);
+                for (int columnCnt = 1; columnCnt <= columnCount; columnCnt++) {
+                    resultRow.add(metaData.getColumnLabel(columnCnt));
+                }
+                results.add(resultRow);
+
+                while (resultSet.next()) {
+                    resultRow = new ArrayList<>(columnCount);
+                    for (int columnCnt = 1; columnCnt <= columnCount; columnCnt++) {
+                        resultRow.add(resultSet.getObject(columnCnt));
+                    }
+                    results.add(resultRow);
+                }
+                sample.done(results.size() - 1, 0);
+                return results;
+            }
+        }
+        catch (SQLException e) {
+            throw new Sql2oException("Database error: " + e.getMessage(), e);
+        }
+    }
+
+    public static SqlResultTable sqlFileQueryToTable(String sqlQueryFilename, Object... params) throws Exception {
+        return sqlQueryToTable(readSqlFile(sqlQueryFilename), params);
+    }
+
+    public static SqlResultTable sqlQueryToTable(String sqlString, Object... params) throws Exception {
+        Connection current = borrowConnection();
+        try {
+            return sqlQueryToTable(current, sqlString, params);
         }
+        finally {
+            releaseConnection(current);
+        }
+    }
 
-        results.add(resultRow);
+    static SqlResultTable sqlQueryToTable(Connection connection, String sqlString, Object... params) throws Exception {
+        ParsedSql parsedSql = ParsedSql.of(sqlString);
 
-        for (Row row : table.rows()) {
-            resultRow = new ArrayList<>();
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sqlString);
+             PreparedStatement statement = prepareStreamingStatement(connection.getJdbcConnection(), parsedSql.jdbcSql(params))) {
+            parsedSql.bind(statement, params);
 
-            Collection<Object> objectArray = row.asMap().values();
-            for (Object object : objectArray) {
-                resultRow.add(object);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                sample.executed();
+                SqlResultTable table = SqlResultTable.read(resultSet);
+                sample.done(table.getRowCount(), 0);
+                return table;
             }
-            results.add(resultRow);
         }
-
-        return results;
     }
 
+    /*
+     * Streams the ResultSet straight to the file through a forward only, read only cursor, rows are never collected in memory.
+     * Some drivers (postgres) only honour the fetch size with auto commit off, see sqlSetAutoCommit.
+     */
     public static void exportSqlQueryToFile(String filename, String sqlString, Object... params) throws Exception {
+        Connection current = borrowConnection();
+        try {
+            exportSqlQueryToFile(current, filename, sqlString, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    static long exportSqlQueryToFile(Connection connection, String filename, String sqlString, Object... params) throws Exception {
+        return exportSqlQueryToFile(connection, filename, header, sqlString, params);
+    }
+
+    static long exportSqlQueryToFile(Connection connection, String filename, boolean writeHeader, String sqlString, Object... params) throws Exception {
+        ParsedSql parsedSql = ParsedSql.of(sqlString);
+
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sqlString);
+             PreparedStatement statement = prepareStreamingStatement(connection.getJdbcConnection(), parsedSql.jdbcSql(params))) {
+            parsedSql.bind(statement, params);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                sample.executed();
+                long rowCount = exportResultSetToFile(filename, resultSet, writeHeader);
+                sample.done(rowCount, new File(filename).length());
+                return rowCount;
+            }
+        }
+    }
 
-        ArrayList<ArrayList<Object>> exportList = genericSqlQuery(sqlString, params);
+    static PreparedStatement prepareStreamingStatement(java.sql.Connection jdbcConnection, String jdbcSql) throws SQLException {
+        PreparedStatement statement = jdbcConnection.prepareStatement(jdbcSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+        }
+        catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
 
-        FileWriter fileWriter = new FileWriter(filename);
+    static long exportResultSetToFile(String filename, ResultSet resultSet, boolean writeHeader) throws Exception {
         CsvWriterSettings settings = new CsvWriterSettings();
         settings.getFormat().setDelimiter(delimiter);
-        settings.setHeaderWritingEnabled(header);
+        settings.setHeaderWritingEnabled(writeHeader);
         settings.setQuoteAllFields(quoteAllFields);
         settings.setNullValue(nullValue);
         settings.setQuotationTriggers(',');
 
-        CsvWriter csvWriter = new CsvWriter(fileWriter, settings);
+        long rowCount = 0;
+        try (FileWriter fileWriter = new FileWriter(filename)) {
+            CsvWriter csvWriter = new CsvWriter(fileWriter, settings);
 
-        if (header) {
-            csvWriter.writeRow(exportList.get(0));
-        }
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            Object[] row = new Object[columnCount];
 
-        for (int rowCount = 1; rowCount < exportList.size(); rowCount++) {
-            csvWriter.writeRow(exportList.get(rowCount));
-        }
+            if (writeHeader) {
+                for (int columnCnt = 0; columnCnt < columnCount; columnCnt++) {
+                    row[columnCnt] = metaData.getColumnLabel(columnCnt + 1);
+                }
+                csvWriter.writeRow(row);
+            }
 
-        csvWriter.close();
-        fileWriter.close();
+            while (resultSet.next()) {
+                for (int columnCnt = 0; columnCnt < columnCount; columnCnt++) {
+                    row[columnCnt] = resultSet.getObject(columnCnt + 1);
+                }
+                csvWriter.writeRow(row);
+                rowCount++;
+            }
+
+            csvWriter.close();
+        }
+        return rowCount;
     }
 
     public static void sqlExportResultSetToFile(String filename, ResultSet resultSet) {
@@ -181,56 +394,118 @@ public class SqlUtility {
         csvRoutines.write(resultSet, file);
     }
 
+    /* sheets roll over at excelMaxRowsPerSheet, only excelWindowSize rows per sheet are kept in memory */
     public static void exportSqlQueryToExcel(String filename, String sqlString, Object... params) throws Exception {
-
-        ArrayList<ArrayList<Object>> exportList = genericSqlQuery(sqlString, params);
-
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet spreadsheet = workbook.createSheet("Default");
-        XSSFRow spreadhSheetRow;
-
-        int rowId = 0;
-        int cellId = 0;
-
-        if (header) {
-            spreadhSheetRow = spreadsheet.createRow(rowId++);
-
-            for(Object object : exportList.get(0)) {
-                Cell cell = spreadhSheetRow.createCell(cellId++);
-                cell.setCellValue(object.toString());
-            }
+        Connection current = borrowConnection();
+        try {
+            exportSqlQueryToExcel(current, filename, sqlString, params);
+        }
+        finally {
+            releaseConnection(current);
         }
+    }
 
-        for (int rowCount = 1; rowCount < exportList.size(); rowCount++) {
-            cellId = 0;
-            spreadhSheetRow = spreadsheet.createRow(rowCount);
+    static void exportSqlQueryToExcel(Connection connection, String filename, String sqlString, Object... params) throws Exception {
+        ParsedSql parsedSql = ParsedSql.of(sqlString);
 
-            for(Object object : exportList.get(rowCount)) {
-                Cell cell = spreadhSheetRow.createCell(cellId++);
-                if (object != null) {
-                    cell.setCellValue(object.toString());
-                }
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sqlString);
+             PreparedStatement statement = prepareStreamingStatement(connection.getJdbcConnection(), parsedSql.jdbcSql(params))) {
+            parsedSql.bind(statement, params);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                sample.executed();
+                long rowCount = exportResultSetToExcel(filename, resultSet);
+                sample.done(rowCount, new File(filename).length());
             }
         }
+    }
 
-        FileOutputStream fileOutputStream = new FileOutputStream(new File(filename));
-        workbook.write(fileOutputStream);
-        fileOutputStream.close();
+    static long exportResultSetToExcel(String filename, ResultSet resultSet) throws Exception {
+        SqlExcelWriter excelWriter = new SqlExcelWriter("Default", header, excelWindowSize, excelMaxRowsPerSheet, excelDateFormat, excelDateTimeFormat);
+        return excelWriter.write(filename, resultSet);
     }
 
     public static <T> List<T> executeSqlFileToList(String sqlQueryFilename, Class<T> clazz, Object... params) throws IOException{
-        String sqlQuery = FileUtils.readFileToString(new File(sqlQueryFilename));
+        String sqlQuery = readSqlFile(sqlQueryFilename);
         return executeSqlToList(sqlQuery, clazz, params);
     }
 
     public static <T> List<T> executeSqlToList(String sql, Class<T> clazz, Object... params) {
-        Query query =  connection.createQueryWithParams(sql, params);
-        return query.executeAndFetch(clazz);
+        Connection current = borrowConnection();
+        try {
+            return executeSqlToList(current, sql, clazz, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    static <T> List<T> executeSqlToList(Connection connection, String sql, Class<T> clazz, Object... params) {
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sql)) {
+            Query query = createQuery(connection, sql, params);
+            List<T> results = query.executeAndFetch(clazz);
+            sample.done(results.size(), 0);
+            return results;
+        }
+    }
+
+    public static <T> Stream<T> executeSqlFileToStream(String sqlQueryFilename, Class<T> clazz, Object... params) throws IOException {
+        String sqlQuery = readSqlFile(sqlQueryFilename);
+        return executeSqlToStream(sqlQuery, clazz, params);
+    }
+
+    /*
+     * Rows are read fetchSize at a time and mapped as the stream is consumed, use in a try with resources block,
+     * closing the stream closes the statement and returns a pooled connection.
+     * Postgres only honors the fetch size inside a transaction (sqlSetAutoCommit(false)).
+     */
+    public static <T> Stream<T> executeSqlToStream(String sql, Class<T> clazz, Object... params) {
+        Connection current = borrowConnection();
+        return openBeanIterator(current, sql, clazz, () -> releaseConnection(current), params).stream();
+    }
+
+    public static <T> long executeSqlFileForEach(String sqlQueryFilename, Class<T> clazz, Consumer<? super T> action, Object... params) throws IOException {
+        String sqlQuery = readSqlFile(sqlQueryFilename);
+        return executeSqlForEach(sqlQuery, clazz, action, params);
+    }
+
+    public static <T> long executeSqlForEach(String sql, Class<T> clazz, Consumer<? super T> action, Object... params) {
+        Connection current = borrowConnection();
+        return executeSqlForEach(openBeanIterator(current, sql, clazz, () -> releaseConnection(current), params), action);
+    }
+
+    static <T> long executeSqlForEach(SqlBeanIterator<T> iterator, Consumer<? super T> action) {
+        long rowCount = 0;
+        try (iterator) {
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                rowCount++;
+            }
+        }
+        return rowCount;
+    }
+
+    static <T> SqlBeanIterator<T> openBeanIterator(Connection connection, String sql, Class<T> clazz, Runnable onClose, Object... params) {
+        try {
+            return new SqlBeanIterator<>(connection, sql, clazz, onClose, params);
+        }
+        catch (SQLException e) {
+            throw new Sql2oException("Database error: " + e.getMessage(), e);
+        }
     }
 
     public static <K, V> HashMap<K,V> executeSqlToMap(String sql, Class<V> clazz, Function methodFunction, Object... params) {
-        Query query =  connection.createQueryWithParams(sql, params);
-        var list =  query.executeAndFetch(clazz);
+        Connection current = borrowConnection();
+        try {
+            return executeSqlToMap(current, sql, clazz, methodFunction, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    static <K, V> HashMap<K,V> executeSqlToMap(Connection connection, String sql, Class<V> clazz, Function methodFunction, Object... params) {
+        var list = executeSqlToList(connection, sql, clazz, params);
 
         HashMap<K, V> resultMap = new HashMap<K, V>();
         list.forEach(item -> {
@@ -242,22 +517,151 @@ public class SqlUtility {
     }
 
     public static <T> T sqlFindOne(String sql, Class<T> clazz, Object... params) {
-        Query query =  connection.createQueryWithParams(sql, params);
-        return query.executeAndFetchFirst(clazz);
+        Connection current = borrowConnection();
+        try {
+            return sqlFindOne(current, sql, clazz, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    static <T> T sqlFindOne(Connection connection, String sql, Class<T> clazz, Object... params) {
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sql)) {
+            Query query = createQuery(connection, sql, params);
+            T result = query.executeAndFetchFirst(clazz);
+            sample.done(result == null ? 0 : 1, 0);
+            return result;
+        }
     }
 
     public static <T> T sqlExecuteScalar(String sql, Class<T> clazz, Object... params) {
-        Query query =  connection.createQueryWithParams(sql, params);
-        return query.executeScalar(clazz);
+        Connection current = borrowConnection();
+        try {
+            return sqlExecuteScalar(current, sql, clazz, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    static <T> T sqlExecuteScalar(Connection connection, String sql, Class<T> clazz, Object... params) {
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sql)) {
+            Query query = createQuery(connection, sql, params);
+            T result = query.executeScalar(clazz);
+            sample.done(result == null ? 0 : 1, 0);
+            return result;
+        }
     }
 
     public static void executeSql(String sqlString, Object... params) throws Exception {
-        Query query = connection.createQueryWithParams(sqlString, params);
-        query.executeUpdate();
+        Connection current = borrowConnection();
+        try {
+            executeSql(current, sqlString, params);
+        }
+        finally {
+            releaseConnection(current);
+        }
+    }
+
+    static void executeSql(Connection connection, String sqlString, Object... params) throws Exception {
+        try (SqlMetrics.Sample sample = SqlMetrics.start(sqlString)) {
+            Query query = createQuery(connection, sqlString, params);
+            sample.done(query.executeUpdate().getResult(), 0);
+        }
+    }
+
+    public static <T> long bulkInsert(List<T> beans, Class<T> clazz) throws Exception {
+        return bulkInsert(new SqlBulkLoader<>(clazz), beans.stream());
+    }
+
+    public static <T> long bulkInsert(Stream<T> beans, Class<T> clazz) throws Exception {
+        return bulkInsert(new SqlBulkLoader<>(clazz), beans);
+    }
+
+    public static <T> long bulkInsert(SqlBulkLoader<T> bulkLoader, Stream<? extends T> beans) throws Exception {
+        Connection current = borrowConnection();
+        try {
+            return bulkLoader.load(current.getJdbcConnection(), beans);
+        }
+        finally {
+            releaseConnection(current);
+        }
     }
 
     public static void executeSqlFile(String sqlFilename, Object... params) throws Exception {
-        String sqlQuery = FileUtils.readFileToString(new File(sqlFilename));
+        String sqlQuery = readSqlFile(sqlFilename);
         executeSql(sqlQuery, params);
     }
+    /*
+     * Async calls run on virtual threads over the default pool (openSqlPool), the single openSqlConnection
+     * connection can not be shared between threads. Fire the queries, then joinAll, the wall clock time is
+     * about that of the slowest query as long as the pool has a connection for each.
+     */
+    public static <T> CompletableFuture<T> sqlAsync(SqlDataSource.SqlWork<T> work) {
+        return getAsyncDataSource().async(work);
+    }
+
+    public static <T> CompletableFuture<List<T>> sqlQueryAsync(String sql, Class<T> clazz, Object... params) {
+        return getAsyncDataSource().sqlQueryAsync(sql, clazz, params);
+    }
+
+    public static CompletableFuture<ArrayList<ArrayList<Object>>> genericSqlQueryAsync(String sqlString, Object... params) {
+        return getAsyncDataSource().genericSqlQueryAsync(sqlString, params);
+    }
+
+    public static CompletableFuture<SqlResultTable> sqlQueryToTableAsync(String sqlString, Object... params) {
+        return getAsyncDataSource().sqlQueryToTableAsync(sqlString, params);
+    }
+
+    public static <T> CompletableFuture<T> sqlFindOneAsync(String sql, Class<T> clazz, Object... params) {
+        return getAsyncDataSource().sqlFindOneAsync(sql, clazz, params);
+    }
+
+    public static <T> CompletableFuture<T> sqlExecuteScalarAsync(String sql, Class<T> clazz, Object... params) {
+        return getAsyncDataSource().sqlExecuteScalarAsync(sql, clazz, params);
+    }
+
+    public static CompletableFuture<Void> executeSqlAsync(String sqlString, Object... params) {
+        return getAsyncDataSource().executeSqlAsync(sqlString, params);
+    }
+
+    /* waits for every future, results in the same order, the first failure in list order is rethrown after all have finished */
+    public static <T> List<T> joinAll(List<CompletableFuture<T>> futures) throws Exception {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+        catch (CompletionException e) {
+            for (CompletableFuture<T> future : futures) {
+                if (future.isCompletedExceptionally()) {
+                    try {
+                        future.join();
+                    }
+                    catch (CompletionException failure) {
+                        throw failure.getCause() instanceof Exception ? (Exception) failure.getCause() : failure;
+                    }
+                }
+            }
+            throw e;
+        }
+
+        ArrayList<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    @SafeVarargs
+    public static <T> List<T> joinAll(CompletableFuture<T>... futures) throws Exception {
+        return joinAll(Arrays.asList(futures));
+    }
+
+    private static SqlDataSource getAsyncDataSource() {
+        SqlDataSource dataSource = SqlDataSource.find(SqlDataSource.DEFAULT_NAME);
+        if (dataSource == null) {
+            throw new IllegalStateException("Async sql needs a connection pool, call openSqlPool first");
+        }
+        return dataSource;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package org.jvmscript.record
+
+import spock.lang.Specification
+
+import java.time.LocalDate
+import java.time.format.DateTimeFormatterBuilder
+
+class DateFieldFormatSpecification extends Specification {
+
+    static Object parseOrException(Closure<LocalDate> parse) {
+        try {
+            return parse()
+        }
+        catch (Exception e) {
+            return e.class
+        }
+    }
+
+    def "Testing the digit fast path parses like java.time"() {
+        when:
+        def formatter = new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern).toFormatter(Locale.ENGLISH)
+        def fastPath = parseOrException { DateFieldFormat.of(pattern).parseLocalDate(text) }
+        def javaTime = parseOrException { LocalDate.parse(text, formatter) }
+
+        then:
+        DateFieldFormat.of(pattern).isFastPath()
+        fastPath == javaTime
+
+        where:
+        pattern      | text
+        "yyyyMMdd"   | "20240102"
+        "yyyyMMdd"   | "20240431"
+        "yyyyMMdd"   | "20230229"
+        "yyyyMMdd"   | "20240229"
+        "yyyyMMdd"   | "20240132"
+        "yyyyMMdd"   | "00000101"
+        "yyyyMMdd"   | "2024013a"
+        "yyyy-MM-dd" | "2024-04-31"
+        "yyyy-MM-dd" | "24-01-02"
+        "yyyy-MM-dd" | "2024/01/02"
+        "yyyy-MM-dd" | "2024-01/02"
+        "yyyy-MM-dd" | "2024-1-02"
+        "yyyy-MM-dd" | "2024-13-01"
+        "yyyy-MM-dd" | "2024-00-10"
+        "MM/dd/yyyy" | "02/30/2024"
+        "MM/dd/yyyy" | "12/31/9999"
+    }
+
+    def "Testing the digit fast path formats like java.time"() {
+        expect:
+        DateFieldFormat.of(pattern).format(date) == java.time.format.DateTimeFormatter.ofPattern(pattern).format(date)
+
+        where:
+        pattern      | date
+        "yyyyMMdd"   | LocalDate.of(2024, 1, 2)
+        "yyyy-MM-dd" | LocalDate.of(1, 12, 31)
+        "MM/dd/yyyy" | LocalDate.of(9999, 2, 28)
+    }
+}
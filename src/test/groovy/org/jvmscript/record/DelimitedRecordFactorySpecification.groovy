@@ -0,0 +1,374 @@
+package org.jvmscript.record
+
+import spock.lang.Specification
+
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+class DelimitedRecordFactorySpecification extends Specification {
+
+    static class DelimitedTestBean {
+        @DataField(id = 0, name = "account")                            public String account;
+        @DataField(id = 1, name = "amount")                             public BigDecimal amount;
+        @DataField(id = 2, name = "tradeDate", dateFormat = "yyyyMMdd") public LocalDate tradeDate;
+    }
+
+    static class HeaderNameTestBean {
+        @DataField(id = 5, name = "tradeDate", dateFormat = "yyyyMMdd") public LocalDate tradeDate;
+        @DataField(id = 6, name = "account")                            public String account;
+    }
+
+    static class ParallelTestBean {
+        @DataField(id = 0, name = "account") public String account;
+        @DataField(id = 1, name = "amount")  public BigDecimal amount;
+        @DataField(id = 2, name = "note")    public String note;
+    }
+
+    DelimitedRecordFactory recordFactory
+    File testFile
+
+    def setup() {
+        recordFactory = new DelimitedRecordFactory()
+        testFile = File.createTempFile("delimited", ".csv")
+        testFile.deleteOnExit()
+        testFile.text = "account,amount,tradeDate\r\n" +
+                        "A1,\"1,000.50\",20240102\r\n" +
+                        "A2,25.00-,20240103\r\n" +
+                        "A3,7,20240104\r\n" +
+                        "TRAILER,3,X\r\n"
+    }
+
+    def cleanup() {
+        testFile.delete()
+    }
+
+    def "Testing streamRecordsByPositionFromFile skips header and trailer rows"() {
+        when:
+        recordFactory.trailerRows = 1
+        def beans = recordFactory.streamRecordsByPositionFromFile(testFile.path, DelimitedTestBean.class).withCloseable { stream ->
+            stream.toList()
+        }
+
+        then:
+        beans.size() == 3
+        beans[0].account == 'A1'
+        beans[0].amount == 1000.50
+        beans[1].amount == -25.00
+        beans[2].tradeDate == LocalDate.of(2024, 1, 4)
+    }
+
+    def "Testing forEachRecordByPositionFromFile matches getRecordListByPositionFromFile"() {
+        when:
+        recordFactory.trailerRows = 1
+        def streamed = []
+        def count = recordFactory.forEachRecordByPositionFromFile(testFile.path, DelimitedTestBean.class, { streamed << it.account })
+        def listed = recordFactory.getRecordListByPositionFromFile(testFile.path, DelimitedTestBean.class)
+
+        then:
+        count == 3
+        streamed == listed*.account
+    }
+
+    def "Testing openRecordIteratorByPosition with more trailer rows than records"() {
+        when:
+        recordFactory.trailerRows = 10
+        def iterator = recordFactory.openRecordIteratorByPosition(testFile.path, DelimitedTestBean.class)
+
+        then:
+        !iterator.hasNext()
+
+        cleanup:
+        iterator?.close()
+    }
+
+    static class WriterTestBean {
+        @DataField(id = 0, name = "account")                                         public String account;
+        @DataField(id = 1, name = "amount")                                          public BigDecimal amount;
+        @DataField(id = 2, name = "rounded", round = true, scale = 2)                public BigDecimal rounded;
+        @DataField(id = 3, name = "price")                                           public double price;
+        @DataField(id = 4, name = "quantity")                                        public long quantity;
+        @DataField(id = 5, name = "count")                                           public int count;
+        @DataField(id = 6, name = "tradeDate", dateFormat = "yyyyMMdd")              public LocalDate tradeDate;
+        @DataField(id = 7, name = "settleTime", dateFormat = "yyyy-MM-dd HH:mm:ss")  public LocalDateTime settleTime;
+        @DataField(id = 8, name = "hidden", output = false)                          public String hidden;
+        @DataField(id = 9, name = "lots")                                            public Integer lots;
+    }
+
+    def writerTestBeans() {
+        [new WriterTestBean(account: "A1", amount: 1000.50, rounded: 2.345, price: 1.5d, quantity: 9007199254740993L, count: 7,
+                            tradeDate: LocalDate.of(2024, 1, 2), settleTime: LocalDateTime.of(2024, 1, 2, 9, 30, 0), hidden: "secret", lots: 3),
+         new WriterTestBean(account: "A,2", amount: -25.00, rounded: -0.005, price: 100.0d, quantity: -42L, count: -1,
+                            tradeDate: LocalDate.of(2024, 12, 31), settleTime: LocalDateTime.of(2024, 12, 31, 23, 59, 59), hidden: "secret"),
+         new WriterTestBean(price: 0.1d, hidden: "secret", lots: 0),
+         new WriterTestBean(account: 'A "4"', amount: 0.000001, rounded: 10.0, price: -0.25d, quantity: Long.MIN_VALUE, count: Integer.MAX_VALUE,
+                            tradeDate: LocalDate.of(1999, 2, 28), settleTime: LocalDateTime.of(2000, 2, 29, 0, 0, 1), hidden: "secret", lots: -7),
+         new WriterTestBean(account: "Z\u00fcrich", amount: new BigDecimal("12345678901234567890.123"), rounded: 99.995, price: 1e20d, quantity: 1L, count: 1,
+                            tradeDate: LocalDate.of(2024, 2, 29), settleTime: LocalDateTime.of(2024, 2, 29, 12, 0, 0), hidden: "secret", lots: 1)]
+    }
+
+    /* RecordWriterBaseline.csv was written by writeRecordListToDelimitedFile before it delegated to RecordWriter */
+    def "Testing writeRecordListToDelimitedFile and openRecordWriter match the baseline writer output"() {
+        when:
+        def expected = getClass().getResource("RecordWriterBaseline.csv").bytes
+        def listFile = File.createTempFile("list", ".csv")
+        def streamFile = File.createTempFile("stream", ".csv")
+        recordFactory.headerIdRows = 1
+        recordFactory.writeRecordListToDelimitedFile(listFile.path, writerTestBeans())
+        def count = recordFactory.writeRecordStreamToDelimitedFile(streamFile.path, WriterTestBean.class, writerTestBeans().stream())
+
+        then:
+        count == 5
+        listFile.bytes == expected
+        streamFile.bytes == expected
+
+        cleanup:
+        listFile?.delete()
+        streamFile?.delete()
+    }
+
+    def "Testing an empty list writes an empty file"() {
+        when:
+        def emptyFile = File.createTempFile("empty", ".csv")
+        emptyFile.text = "old contents"
+        recordFactory.writeRecordListToDelimitedFile(emptyFile.path, [])
+
+        then:
+        emptyFile.length() == 0
+
+        cleanup:
+        emptyFile?.delete()
+    }
+
+    def "Testing getRecordListByHeaderNameFromFile binds every column by header name"() {
+        when:
+        recordFactory.trailerRows = 1
+        def beans = recordFactory.getRecordListByHeaderNameFromFile(testFile.path, HeaderNameTestBean.class)
+        def beanMap = recordFactory.getRecordMapByHeaderNameFromFile(testFile.path, HeaderNameTestBean.class, { it.account })
+
+        then:
+        beans*.account == ['A1', 'A2', 'A3']
+        beans*.tradeDate == [LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4)]
+        beanMap.keySet() == ['A1', 'A2', 'A3'] as Set
+    }
+
+    def "Testing getRecordTableByPositionFromFile sums and groups the column vectors"() {
+        when:
+        recordFactory.trailerRows = 1
+        def table = recordFactory.getRecordTableByPositionFromFile(testFile.path, DelimitedTestBean.class)
+        def groups = table.groupBy("tradeDate")
+
+        then:
+        table.rowCount == 3
+        table.sumDecimal("amount") == 982.5
+        table.sumDecimal("amount", table.filterEquals("account", "A2")) == -25
+        table.filterLong("tradeDate", { it >= LocalDate.of(2024, 1, 3).toEpochDay() }) == [1, 2] as int[]
+        groups.groupCount == 3
+        groups.getKey(0) == [LocalDate.of(2024, 1, 2)] as Object[]
+    }
+
+    static class DecimalTestBean {
+        @DataField(id = 0, name = "account")                        public String account;
+        @DataField(id = 1, name = "price")                          public BigDecimal price;
+        @DataField(id = 2, name = "fee", scale = 2)                 public BigDecimal fee;
+        @DataField(id = 3, name = "quantity")                       public long quantity;
+    }
+
+    def "Testing RecordTable decimal rounding and sums over selected rows"() {
+        given:
+        def decimalFile = File.createTempFile("decimal", ".csv")
+        decimalFile.text = "account,price,fee,quantity\r\n" +
+                           "A1,1.0000005,1.005,10\r\n" +
+                           "A2,2.5,0.004,-3\r\n" +
+                           "A1,,2,\r\n"
+
+        when:
+        def table = recordFactory.getRecordTableByPositionFromFile(decimalFile.path, DecimalTestBean.class)
+        def a1Rows = table.filterEquals("account", "A1")
+        def groups = table.groupBy(a1Rows)
+
+        then:
+        table.getColumn("price").getObject(0) == new BigDecimal("1.000001")
+        table.getColumn("fee").getObject(0) == new BigDecimal("1.01")
+        table.getColumn("fee").getObject(1) == new BigDecimal("0.00")
+        table.sumDecimal("price") == new BigDecimal("3.500001")
+        table.sumDecimal("fee", a1Rows) == new BigDecimal("3.01")
+        table.sumDecimal("fee", a1Rows) == groups.sumDecimal("fee")[0]
+        table.sumLong("quantity") == 7
+        table.sumLong("quantity", a1Rows) == groups.sumLong("quantity")[0]
+        table.sumDouble("fee", a1Rows) == groups.sumDouble("fee")[0]
+        table.sumDecimal("price", [] as int[]) == new BigDecimal("0.000000")
+
+        cleanup:
+        decimalFile?.delete()
+    }
+
+    def "Testing RecordTable rejects a decimal past the long limit of its scale"() {
+        given:
+        def decimalFile = File.createTempFile("decimal", ".csv")
+        decimalFile.text = "account,price,fee,quantity\r\n" +
+                           "A1,9300000000000,1,1\r\n"
+
+        when:
+        recordFactory.getRecordTableByPositionFromFile(decimalFile.path, DecimalTestBean.class)
+
+        then:
+        def e = thrown(ArithmeticException)
+        e.message.contains("9223372036854.775807")
+
+        cleanup:
+        decimalFile?.delete()
+    }
+
+    def "Testing getRecordIndexByPositionFromFile keeps every bean of a duplicate key"() {
+        when:
+        recordFactory.trailerRows = 1
+        def index = recordFactory.getRecordIndexByPositionFromFile(testFile.path, DelimitedTestBean.class, { it.tradeDate }, { it.account })
+        def longIndex = recordFactory.getLongRecordIndexByPositionFromFile(testFile.path, DelimitedTestBean.class, { it.amount.signum() })
+
+        then:
+        index.size() == 3
+        index.get(LocalDate.of(2024, 1, 3), 'A2').amount == -25
+        !index.containsKey(LocalDate.of(2024, 1, 3), 'A1')
+        longIndex.keyCount() == 2
+        longIndex.getAll(1)*.account == ['A1', 'A3']
+    }
+
+    def "Testing getRecordIndexByHeaderNameFromFile matches the header name list reader"() {
+        when:
+        recordFactory.trailerRows = 1
+        def beans = recordFactory.getRecordListByHeaderNameFromFile(testFile.path, HeaderNameTestBean.class)
+        def index = recordFactory.getRecordIndexByHeaderNameFromFile(testFile.path, HeaderNameTestBean.class, { it.account })
+        def longIndex = recordFactory.getLongRecordIndexByHeaderNameFromFile(testFile.path, HeaderNameTestBean.class, { it.tradeDate.dayOfMonth })
+
+        then:
+        index.size() == beans.size()
+        beans.every { index.get(it.account).tradeDate == it.tradeDate }
+        longIndex.size() == 3
+        longIndex.get(4).account == 'A3'
+        !longIndex.containsKey(5)
+    }
+
+    def "Testing getRecordIndexByHeaderNameFromFile rejects a header name row outside the header rows"() {
+        when:
+        recordFactory.headerNameRow = 1
+        recordFactory.getRecordIndexByHeaderNameFromFile(testFile.path, HeaderNameTestBean.class, { it.account })
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Testing estimateRecordCount sizes the index from the file"() {
+        given:
+        def largeFile = File.createTempFile("large", ".csv")
+        largeFile.text = "account,amount,tradeDate\r\n" + (0..<20000).collect { "A${it},${it}.25,20240102\r\n" }.join()
+
+        when:
+        recordFactory.trailerRows = 1
+        def smallEstimate = recordFactory.estimateRecordCount(testFile.path)
+        recordFactory.trailerRows = 0
+        def largeEstimate = recordFactory.estimateRecordCount(largeFile.path)
+        def index = recordFactory.getLongRecordIndexByPositionFromFile(largeFile.path, DelimitedTestBean.class, 20000, { it.amount.longValue() })
+
+        then:
+        largeFile.length() > 64 * 1024
+        smallEstimate == 3
+        largeEstimate >= 20000
+        largeEstimate < 20000 * 1.5
+        recordFactory.estimateRecordCount(testFile.path + ".missing") == 0
+        index.size() == 20000
+        index.get(19999).account == 'A19999'
+
+        cleanup:
+        largeFile?.delete()
+    }
+
+    def "Testing createFileSorter sorts records between the header and trailer rows"() {
+        when:
+        recordFactory.trailerRows = 1
+        def sortedFile = File.createTempFile("sorted", ".csv")
+        def count = recordFactory.createFileSorter(DelimitedTestBean.class).orderByDescending("amount").sort(testFile.path, sortedFile.path)
+
+        then:
+        count == 3
+        sortedFile.readLines() == ['account,amount,tradeDate', 'A1,"1,000.50",20240102', 'A3,7,20240104', 'A2,25.00-,20240103', 'TRAILER,3,X']
+
+        cleanup:
+        sortedFile?.delete()
+    }
+
+    def "Testing createFileSorter spills runs and merges them in several passes"() {
+        given:
+        def unsortedFile = File.createTempFile("unsorted", ".csv")
+        def sortedFile = File.createTempFile("sorted", ".csv")
+        def runDirectory = File.createTempDir()
+        def records = (0..<50000).collect { "K${it % 7},${it},${it % 5 == 0 ? "\"line one\r\nline ${it}\n\"" : "note ${it}"}".toString() }
+        def trailer = "TRAILER,50000,\"last\r\nline\""
+        unsortedFile.text = "account,amount,note\r\n" + records.join("\r\n") + "\r\n" + trailer + "\r\n"
+
+        when:
+        recordFactory.trailerRows = 1
+        def sorter = recordFactory.createFileSorter(ParallelTestBean.class).orderByDescending("account")
+        sorter.memoryBudget = 1
+        sorter.parallelism = 2
+        sorter.tempDirectory = runDirectory.path
+        def count = sorter.sort(unsortedFile.path, sortedFile.path)
+        def expected = records.sort(false) { first, second -> second.substring(0, 2) <=> first.substring(0, 2) }
+
+        then:
+        unsortedFile.length() > 1024 * 1024
+        count == 50000
+        sorter.runCount > 2
+        sorter.mergePasses > 0
+        sortedFile.text == "account,amount,note\r\n" + expected.join("\r\n") + "\r\n" + trailer + "\r\n"
+        runDirectory.list().length == 0
+
+        cleanup:
+        unsortedFile?.delete()
+        sortedFile?.delete()
+        runDirectory?.deleteDir()
+    }
+
+    def "Testing getRecordListByPositionFromFileParallel matches getRecordListByPositionFromFile across chunk boundaries"() {
+        given:
+        def parallelFile = File.createTempFile("parallel", ".csv")
+        parallelFile.text = "account,amount,note\r\n" +
+                            "A1,\"1,000.50\",\"line one\r\nline two\"\r\n" +
+                            "A2,25.00-,\"quoted, delimiter\"\r\n" +
+                            "A3,7,\"say \"\"hi\"\"\r\n,A9,1\"\r\n" +
+                            "A4,8,plain\r\n" +
+                            "A5,9,\"multi\r\nline\r\nvalue\"\r\n" +
+                            "TRAILER,5,\"count\r\nsplit\"\r\n" +
+                            "END,,\r\n"
+
+        when:
+        recordFactory.trailerRows = 2
+        recordFactory.parallelism = 3
+        recordFactory.parallelChunkSize = chunkSize
+        recordFactory.preserveOrder = preserveOrder
+        def sequential = recordFactory.getRecordListByPositionFromFile(parallelFile.path, ParallelTestBean.class).collect { [it.account, it.amount, it.note] }
+        def parallel = recordFactory.getRecordListByPositionFromFileParallel(parallelFile.path, ParallelTestBean.class).collect { [it.account, it.amount, it.note] }
+
+        then:
+        sequential*.getAt(0) == ['A1', 'A2', 'A3', 'A4', 'A5']
+        preserveOrder ? parallel == sequential : parallel.sort { it[0] } == sequential
+
+        cleanup:
+        parallelFile?.delete()
+
+        where:
+        chunkSize | preserveOrder
+        1         | true
+        16        | true
+        16        | false
+        1000      | true
+    }
+
+    def "Testing getRecordListByPositionFromFileParallel rejects a parallelism below 1"() {
+        when:
+        recordFactory.parallelism = 0
+        recordFactory.getRecordListByPositionFromFileParallel(testFile.path, DelimitedTestBean.class)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,109 @@
+package org.jvmscript.record
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook
+import spock.lang.Specification
+
+import java.time.LocalDate
+
+class ExcelRecordFactorySpecification extends Specification {
+
+    static class ExcelTestBean {
+        @DataField(id = 0, name = "account")                               public String account;
+        @DataField(id = 1, name = "amount")                                public BigDecimal amount;
+        @DataField(id = 2, name = "tradeDate")                             public LocalDate tradeDate;
+        @DataField(id = 3, name = "settleDate", dateFormat = "yyyy-MM-dd") public String settleDate;
+    }
+
+    static class HeaderTestBean {
+        @DataField(id = 10, name = "tradeDate") public LocalDate tradeDate;
+        @DataField(id = 11, name = "account")   public String account;
+    }
+
+    ExcelRecordFactory recordFactory
+    File testFile
+
+    def setup() {
+        recordFactory = new ExcelRecordFactory()
+        testFile = File.createTempFile("excel", ".xlsx")
+        testFile.deleteOnExit()
+
+        def workbook = new XSSFWorkbook()
+        def dateStyle = workbook.createCellStyle()
+        dateStyle.dataFormat = workbook.creationHelper.createDataFormat().getFormat("yyyy-mm-dd")
+
+        workbook.createSheet("Summary").createRow(0).createCell(0).setCellValue("not this sheet")
+        def sheet = workbook.createSheet("Trades")
+        def rows = [["account", "amount", "tradeDate", "settleDate"],
+                    ["A1", 1000.5d, LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 4)],
+                    ["A2", -25d, LocalDate.of(2024, 1, 3), null],
+                    ["A3", 7d, LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 8)],
+                    ["TRAILER", 3d]]
+
+        rows.eachWithIndex { values, rowIndex ->
+            def row = sheet.createRow(rowIndex)
+            values.eachWithIndex { value, column ->
+                if (value == null) return
+                def cell = row.createCell(column)
+                cell.setCellValue(value)
+                if (value instanceof LocalDate) cell.cellStyle = dateStyle
+            }
+        }
+
+        testFile.withOutputStream { workbook.write(it) }
+        workbook.close()
+    }
+
+    def cleanup() {
+        testFile.delete()
+    }
+
+    def "Testing getRecordListByPositionFromFile reads typed cells and date styles"() {
+        when:
+        recordFactory.sheetName = "Trades"
+        recordFactory.trailerRows = 1
+        def beans = recordFactory.getRecordListByPositionFromFile(testFile.path, ExcelTestBean.class)
+
+        then:
+        beans.size() == 3
+        beans[0].account == 'A1'
+        beans[0].amount == 1000.5
+        beans[0].tradeDate == LocalDate.of(2024, 1, 2)
+        beans[0].settleDate == '2024-01-04'
+        beans[1].amount == -25
+        beans[1].settleDate == null
+        beans[2].tradeDate == LocalDate.of(2024, 1, 4)
+    }
+
+    def "Testing getRecordListByHeaderNameFromFile binds by header name"() {
+        when:
+        recordFactory.sheetIndex = 1
+        recordFactory.trailerRows = 1
+        def beans = recordFactory.getRecordListByHeaderNameFromFile(testFile.path, HeaderTestBean.class)
+
+        then:
+        beans*.account == ['A1', 'A2', 'A3']
+        beans*.tradeDate == [LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4)]
+    }
+
+    def "Testing shared strings spilled to disk read the same as in memory"() {
+        when:
+        recordFactory.sheetName = "Trades"
+        recordFactory.trailerRows = 1
+        def inMemory = recordFactory.getRecordListByPositionFromFile(testFile.path, ExcelTestBean.class)
+        recordFactory.sharedStringsInMemoryLimit = 0
+        def spilled = recordFactory.getRecordListByPositionFromFile(testFile.path, ExcelTestBean.class)
+
+        then:
+        spilled*.account == inMemory*.account
+    }
+
+    def "Testing an unknown sheet name fails with the sheet names"() {
+        when:
+        recordFactory.sheetName = "Missing"
+        recordFactory.getRecordListByPositionFromFile(testFile.path, ExcelTestBean.class)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.contains("Trades")
+    }
+}
@@ -5,6 +5,8 @@ import spock.lang.Specification
 import java.time.LocalDate
 import java.time.LocalDateTime
 import java.time.LocalTime
+import java.time.format.DateTimeFormatter
+import java.time.format.DateTimeParseException
 
 class FixedWidthRecordFactorySpecification extends Specification {
 
@@ -112,4 +114,105 @@ class FixedWidthRecordFactorySpecification extends Specification {
 //        println 'sucess'
 //    }
 
+    static class FixedWidthReadTestBean {
+        @FixedWidthField(name = "Text", start = 0, length = 4)                            public String text;
+        @FixedWidthField(name = "Date", start = 4, length = 9, dateFormat = "ddMMMyyyy") public LocalDate date;
+    }
+
+    def "Testing getBeanFromFixedWidthBuffer keeps null text and parses dates case sensitive"() {
+        when:
+        def date = LocalDate.of(2024, 1, 2)
+        def dateText = DateTimeFormatter.ofPattern("ddMMMyyyy").format(date)
+        def bean = fixedWidthRecordFactory.getBeanFromFixedWidthBuffer("null" + dateText, FixedWidthReadTestBean.class)
+
+        then:
+        bean.text == "null"
+        bean.date == date
+
+        when:
+        fixedWidthRecordFactory.getBeanFromFixedWidthBuffer("null" + dateText.toUpperCase(), FixedWidthReadTestBean.class)
+
+        then:
+        thrown(DateTimeParseException)
+    }
+
+    static class MappedTestBean {
+        @FixedWidthField(name = "Account", start = 0, length = 6)                            public String account;
+        @FixedWidthField(name = "Date", start = 6, length = 8, dateFormat = "yyyyMMdd")     public LocalDate date;
+        @FixedWidthField(name = "Amount", start = 14, length = 7)                           public BigDecimal amount;
+    }
+
+    def "Testing the mapped iterator matches getBeanListFromFixedWidthFile across window boundaries"() {
+        given:
+        def testFile = File.createTempFile("fixedwidth", ".txt")
+        def text = new StringBuilder("HEADER\r\n")
+        (0..<50).each { text.append(String.format("A%05d2024%02d%02d%7s", it, 1 + it % 12, 1 + it % 28, "${it * 37}.5")).append(it % 3 == 0 ? "\r\n" : "\n") }
+        text.append("TRAILER1\nTRAILER2")
+        testFile.text = text.toString()
+
+        when:
+        fixedWidthRecordFactory.trailerRows = 2
+        fixedWidthRecordFactory.mappedWindowSize = windowSize
+        def listed = fixedWidthRecordFactory.getBeanListFromFixedWidthFile(testFile.path, MappedTestBean.class).collect { [it.account, it.date, it.amount] }
+        def mapped = []
+        def count = fixedWidthRecordFactory.forEachBeanFromFixedWidthFile(testFile.path, MappedTestBean.class, { mapped << [it.account, it.date, it.amount] })
+
+        then:
+        count == 50
+        mapped == listed
+        listed.last() == ['A00049', LocalDate.of(2024, 2, 22), 1813.5]
+
+        cleanup:
+        testFile?.delete()
+
+        where:
+        windowSize << [23, 24, 31, 64, 1024 * 1024]
+    }
+
+    def "Testing createFileSorter spills and merges a fixed width file by date and amount"() {
+        given:
+        def unsortedFile = File.createTempFile("unsorted", ".txt")
+        def sortedFile = File.createTempFile("sorted", ".txt")
+        def random = new Random(25)
+        def records = (0..<50000).collect { String.format("A%05d2024%02d%02d%7s", it, 1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(500)) }
+        unsortedFile.text = "HEADER\n" + records.join("\n") + "\nTRAILER\n"
+
+        when:
+        fixedWidthRecordFactory.trailerRows = 1
+        def sorter = fixedWidthRecordFactory.createFileSorter(MappedTestBean.class).orderByDescending("Date").orderBy("amount")
+        sorter.memoryBudget = 1
+        sorter.parallelism = 2
+        def count = sorter.sort(unsortedFile.path, sortedFile.path)
+        def expected = records.sort(false) { first, second ->
+            (second.substring(6, 14) <=> first.substring(6, 14)) ?: (first.substring(14).trim() as BigDecimal) <=> (second.substring(14).trim() as BigDecimal)
+        }
+
+        then:
+        unsortedFile.length() > 1024 * 1024
+        count == 50000
+        sorter.runCount > 2
+        sorter.mergePasses > 0
+        sortedFile.readLines() == ["HEADER"] + expected + ["TRAILER"]
+
+        cleanup:
+        unsortedFile?.delete()
+        sortedFile?.delete()
+    }
+
+    def "Testing the mapped iterator rejects a record longer than the window"() {
+        given:
+        def testFile = File.createTempFile("fixedwidth", ".txt")
+        testFile.text = "HEADER\nA000012024010100001.5\n"
+
+        when:
+        fixedWidthRecordFactory.mappedWindowSize = 8
+        fixedWidthRecordFactory.forEachBeanFromFixedWidthFile(testFile.path, MappedTestBean.class, { })
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.cause.message.contains("longer than the mapped window")
+
+        cleanup:
+        testFile?.delete()
+    }
 }
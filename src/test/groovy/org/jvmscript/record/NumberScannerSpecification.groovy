@@ -0,0 +1,46 @@
+package org.jvmscript.record
+
+import spock.lang.Specification
+
+class NumberScannerSpecification extends Specification {
+
+    def "Testing scan matches cleanNumberString for BigDecimal values"() {
+        when:
+        long packed = NumberScanner.scan(value)
+        def scanned = packed == NumberScanner.NOT_SIMPLE ? null :
+                BigDecimal.valueOf(NumberScanner.signedUnscaled(packed), NumberScanner.scale(packed))
+
+        then:
+        scanned == expected
+        scanned == null || scanned == new BigDecimal(new RecordFactory().cleanNumberString(value))
+
+        where:
+        value           || expected
+        "12,000.50-"    || -12000.50
+        "\$1,234.56"    || 1234.56
+        "-5"            || -5
+        "5-"            || -5
+        "-5-"           || -5
+        "1234-5678"     || 12345678
+        ".5"            || 0.5
+        "-0"            || 0
+        "1e-3"          || null
+        "--5"           || null
+        "5."            || null
+        "+5"            || null
+        "null"          || null
+        "-"             || null
+    }
+
+    def "Testing scan limits and conversions"() {
+        expect:
+        NumberScanner.isInt(NumberScanner.scan("2147483647"))
+        !NumberScanner.isInt(NumberScanner.scan("2147483648"))
+        NumberScanner.isLong(NumberScanner.scan("2147483648"))
+        !NumberScanner.isLong(NumberScanner.scan("1.5"))
+        NumberScanner.scan("123456789012345678") == NumberScanner.NOT_SIMPLE
+        NumberScanner.toDouble(NumberScanner.scan("0.1")) == 0.1d
+        NumberScanner.toDouble(NumberScanner.scan("-0")) == -0.0d
+        NumberScanner.toFloat(NumberScanner.scan("2.5-")) == -2.5f
+    }
+}
@@ -2,6 +2,8 @@ package org.jvmscript.record
 
 import spock.lang.Specification
 
+import java.time.LocalDate
+
 class RecordFactorySpecification extends Specification {
 
     class RecordTest {
@@ -40,5 +42,90 @@ class RecordFactorySpecification extends Specification {
 
     }
 
+    static class BinderTestBean {
+        @DataField(id = 0, name = "text")                              public String text;
+        @DataField(id = 1, name = "primitiveInt")                      public int primitiveInt = 5;
+        @DataField(id = 2, name = "boxedLong")                         public Long boxedLong = 5L;
+        @DataField(id = 3, name = "amount")                            public BigDecimal amount;
+        @DataField(id = 4, name = "tradeDate", dateFormat = "ddMMMyyyy") public LocalDate tradeDate;
+        @DataField(id = 5, name = "ratio")                             public double ratio;
+    }
+
+    static class FinalFieldTestBean {
+        @DataField(id = 0, name = "account") public final String account = null;
+        @DataField(id = 1, name = "count")   public final int count = 0;
+    }
+
+    def "Testing setBeanField binds the way the reflective binding did"() {
+        when:
+        def beanField = recordFactory.getNameDataFieldMapByClass(BinderTestBean.class).get(field)
+        def bean = new BinderTestBean()
+        recordFactory.setBeanField(bean, beanField, value)
+
+        then:
+        bean."$field" == expected
+
+        where:
+        field          | value        || expected
+        "text"         | "null"       || null
+        "text"         | " A1 "       || "A1"
+        "primitiveInt" | ""           || 0
+        "primitiveInt" | "1,234"      || 1234
+        "boxedLong"    | ""           || null
+        "boxedLong"    | "42-"        || -42
+        "amount"       | "12,000.50-" || -12000.50
+        "tradeDate"    | "01jan2024"  || LocalDate.of(2024, 1, 1)
+        "ratio"        | "NaN"        || Double.NaN
+    }
+
+    def "Testing final fields are bound like non final fields"() {
+        when:
+        def bean = new FinalFieldTestBean()
+        recordFactory.getIdDataFieldMapByClass(FinalFieldTestBean.class).values().each {
+            recordFactory.setBeanField(bean, it, it.dataField.id() == 0 ? "A1" : "7")
+        }
 
+        then:
+        bean.account == "A1"
+        bean.count == 7
+    }
+
+    static class UnusedDateFormatTestBean {
+        @DataField(id = 0, name = "account", dateFormat = "not a [pattern") public String account;
+    }
+
+    def "Testing a dateFormat on a field that is not a date is not compiled"() {
+        when:
+        def bean = new UnusedDateFormatTestBean()
+        recordFactory.setBeanField(bean, recordFactory.getIdDataFieldMapByClass(UnusedDateFormatTestBean.class).get(0), "A1")
+
+        then:
+        bean.account == "A1"
+    }
+
+    def "Testing the cached field maps are read only"() {
+        when:
+        recordFactory.getIdDataFieldMapByClass(RecordTest.class).remove(0)
+
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        recordFactory.getNameDataFieldMapByClass(RecordTest.class).clear()
+
+        then:
+        thrown(UnsupportedOperationException)
+        recordFactory.getIdDataFieldMapByClass(RecordTest.class).size() == 3
+        recordFactory.getNameDataFieldMapByClass(RecordTest.class).firstKey() == "fieldOne"
+    }
+
+    def "Testing the deprecated class name caches do not hold bean classes"() {
+        when:
+        recordFactory.getIdDataFieldMapByClass(RecordTest.class)
+        recordFactory.getNameDataFieldMapByClass(RecordTest.class)
+
+        then:
+        !RecordFactory.IdCachedFieldsByClassMap.containsKey(RecordTest.class.getName())
+        !RecordFactory.NameCachedFieldsByClassMap.containsKey(RecordTest.class.getName())
+    }
 }
@@ -0,0 +1,120 @@
+package org.jvmscript.sql
+
+import spock.lang.Specification
+
+import java.sql.PreparedStatement
+import java.sql.SQLException
+import java.sql.Timestamp
+import java.time.LocalDate
+
+class ParsedSqlSpecification extends Specification {
+
+    enum Side { BUY, SELL }
+
+    def "Testing named parameters are rewritten to jdbc placeholders"() {
+        when:
+        def parsedSql = ParsedSql.parse(sql)
+
+        then:
+        parsedSql.jdbcSql == jdbcSql
+        parsedSql.parameterNames as List == names
+
+        where:
+        sql                                                               || jdbcSql                                                     | names
+        "select * from t where a = :p1 and b = :p2"                       || "select * from t where a = ? and b = ?"                     | ["p1", "p2"]
+        "select ':p1' as x, \"col:p2\" from t where a = :p2 and b = :p1"  || "select ':p1' as x, \"col:p2\" from t where a = ? and b = ?" | ["p2", "p1"]
+        "select 'it''s :p1' from t where a=:p2"                           || "select 'it''s :p1' from t where a=?"                       | ["p2"]
+        "select a from t -- :p9\nwhere b = :p1"                           || "select a from t -- :p9\nwhere b = ?"                       | ["p1"]
+        "select a from t where b = :p1 /* :p8 */ and c = :p3"             || "select a from t where b = ? /* :p8 */ and c = ?"           | ["p1", "p3"]
+        "select a::text, :p1::date from t"                                || "select a::text, ?::date from t"                            | ["p1"]
+        "update t set a = :p1 where b = :p1"                              || "update t set a = ? where b = ?"                            | ["p1", "p1"]
+        "select a from t where b = 'unterminated :p1"                     || "select a from t where b = 'unterminated :p1"               | []
+        "select :name, :p10 from t"                                       || "select ?, ? from t"                                        | ["name", "p10"]
+    }
+
+    def "Testing parameters are bound by name in placeholder order"() {
+        given:
+        def statement = Mock(PreparedStatement)
+
+        when:
+        ParsedSql.parse("select * from t where a = :p2 and b = :p1 and c = :p2").bind(statement, "first", 2)
+
+        then:
+        1 * statement.setObject(1, 2)
+        1 * statement.setObject(2, "first")
+        1 * statement.setObject(3, 2)
+        0 * statement._
+    }
+
+    def "Testing a parameter with no value is rejected"() {
+        when:
+        ParsedSql.parse(sql).bind(Mock(PreparedStatement), "only")
+
+        then:
+        def e = thrown(SQLException)
+        e.message.startsWith("No value for parameter :" + name)
+
+        where:
+        sql                                        | name
+        "select * from t where a = :p1 and b = :p2" | "p2"
+        "select * from t where a = :account"        | "account"
+    }
+
+    def "Testing a list parameter is expanded to one placeholder per element"() {
+        given:
+        def statement = Mock(PreparedStatement)
+        def parsedSql = ParsedSql.parse("select * from t where a in (:p1) and b = :p2 and c in (:p1)")
+
+        when:
+        def jdbcSql = parsedSql.jdbcSql([value, 7] as Object[])
+        parsedSql.bind(statement, [value, 7] as Object[])
+
+        then:
+        jdbcSql == "select * from t where a in (?,?) and b = ? and c in (?,?)"
+        1 * statement.setObject(1, "A1")
+        1 * statement.setObject(2, expectedSecond)
+        1 * statement.setObject(3, 7)
+        1 * statement.setObject(4, "A1")
+        1 * statement.setObject(5, expectedSecond)
+        0 * statement._
+        parsedSql.jdbcSql("A1", 7) == "select * from t where a in (?) and b = ? and c in (?)"
+        parsedSql.jdbcSql("A1", 7).is(parsedSql.jdbcSql)
+
+        where:
+        value                                 || expectedSecond
+        ["A1", "A2"]                          || "A2"
+        ["A1", "A2"] as String[]              || "A2"
+        ["A1", Side.SELL] as Object[]         || "SELL"
+    }
+
+    def "Testing an empty list parameter is rejected"() {
+        when:
+        ParsedSql.parse("select * from t where a in (:p1)").bind(Mock(PreparedStatement), [[]] as Object[])
+
+        then:
+        def e = thrown(SQLException)
+        e.message.contains("empty list")
+    }
+
+    def "Testing values are converted the way sql2o converts them"() {
+        expect:
+        ParsedSql.toDatabaseParam(value) == expected
+
+        where:
+        value                             || expected
+        null                              || null
+        "A1"                              || "A1"
+        42                                || 42
+        Side.SELL                         || "SELL"
+        LocalDate.of(2024, 1, 2)          || new java.sql.Date(1704153600000L)
+        new Date(1704153600000L)          || new Timestamp(1704153600000L)
+    }
+
+    def "Testing the fingerprint ignores literals and parameter names"() {
+        expect:
+        ParsedSql.of("select * from t where a = :p1 and b = 'x' and c > 10").fingerprint() ==
+                ParsedSql.of("SELECT *  FROM t WHERE a = :account AND b = 'y' AND c > 20 -- nightly").fingerprint()
+        ParsedSql.of("select * from t where a = :p1").fingerprint() == "select * from t where a = ?"
+        ParsedSql.of("select * from t where a = :p1").is(ParsedSql.of("select * from t where a = :p1"))
+    }
+}
@@ -0,0 +1,69 @@
+package org.jvmscript.sql
+
+import org.sql2o.Sql2o
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+
+class SqlBeanIteratorSpecification extends Specification {
+
+    static class TradeBean {
+        public String account
+    }
+
+    org.sql2o.Connection open(Connection jdbcConnection) {
+        def dataSource = Stub(DataSource) {
+            getConnection() >> jdbcConnection
+        }
+        new Sql2o(dataSource).open()
+    }
+
+    def "Testing onClose runs when the statement cannot be prepared"() {
+        given:
+        def jdbcConnection = Stub(Connection) {
+            prepareStatement(_ as String, _ as Integer, _ as Integer) >> { throw new SQLException("connection is closed") }
+        }
+        def connection = open(jdbcConnection)
+        def closed = 0
+
+        when:
+        new SqlBeanIterator(connection, "select account from trades", TradeBean.class, { closed++ } as Runnable)
+
+        then:
+        def e = thrown(SQLException)
+        e.message == "connection is closed"
+        closed == 1
+
+        cleanup:
+        connection?.close()
+    }
+
+    def "Testing the statement is closed and onClose runs when the query fails after prepare"() {
+        given:
+        def statement = Mock(PreparedStatement)
+        def jdbcConnection = Stub(Connection) {
+            prepareStatement(_ as String, _ as Integer, _ as Integer) >> statement
+        }
+        def connection = open(jdbcConnection)
+        def closed = 0
+
+        when:
+        new SqlBeanIterator(connection, "select account from trades where id = :p1", TradeBean.class, { closed++ } as Runnable, 7)
+
+        then:
+        1 * statement.setFetchSize(_) >> { if (failFetchSize) throw new SQLException("fetch size rejected") }
+        (failFetchSize ? 0 : 1) * statement.executeQuery() >> { throw new SQLException("query failed") }
+        1 * statement.close()
+        thrown(SQLException)
+        closed == 1
+
+        cleanup:
+        connection?.close()
+
+        where:
+        failFetchSize << [true, false]
+    }
+}
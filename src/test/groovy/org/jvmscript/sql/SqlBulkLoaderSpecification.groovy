@@ -0,0 +1,119 @@
+package org.jvmscript.sql
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.Transient
+import org.jvmscript.record.DataField
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+import java.time.LocalDate
+
+class SqlBulkLoaderSpecification extends Specification {
+
+    static class BaseTrade {
+        @DataField(id = 9, name = "batch_id")   public Long batchId;
+    }
+
+    @Entity(name = "trades")
+    static class BulkTestBean extends BaseTrade {
+        @Column(name = "acct_no") @DataField(id = 0, name = "account") public String account;
+        @DataField(id = 1, name = "amount")                            public BigDecimal amount;
+        @DataField(id = 2)                                             public LocalDate tradeDate;
+        @Column                                                        public int quantity;
+        @Transient @DataField(id = 3, name = "note")                   public String note;
+        @DataField(id = 4, name = "constant")                          public static String constant;
+        public String notAnnotated;
+    }
+
+    static class NoEntityBean {
+        @DataField(id = 0, name = "account") public String account;
+    }
+
+    def "Testing columns are derived from the annotated fields"() {
+        when:
+        def loader = new SqlBulkLoader(BulkTestBean.class)
+
+        then:
+        loader.tableName == "trades"
+        loader.getColumnNames() as List == ["acct_no", "amount", "tradeDate", "quantity", "batch_id"]
+    }
+
+    def "Testing insert sql for one and many rows"() {
+        when:
+        def loader = new SqlBulkLoader(BulkTestBean.class)
+
+        then:
+        loader.getInsertSql(1) == "insert into trades (acct_no,amount,tradeDate,quantity,batch_id) values (?,?,?,?,?)"
+        loader.getInsertSql(3) == "insert into trades (acct_no,amount,tradeDate,quantity,batch_id) values (?,?,?,?,?),(?,?,?,?,?),(?,?,?,?,?)"
+    }
+
+    def "Testing a bean without an entity name needs a tableName"() {
+        given:
+        def loader = new SqlBulkLoader(NoEntityBean.class)
+
+        when:
+        loader.getInsertSql(1)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        loader.tableName = "accounts"
+
+        then:
+        loader.getInsertSql(2) == "insert into accounts (account) values (?),(?)"
+    }
+
+    def "Testing rows per statement are kept under the parameter limit"() {
+        when:
+        def loader = new SqlBulkLoader(BulkTestBean.class)
+        loader.rowsPerStatement = rowsPerStatement
+        loader.maxParameters = maxParameters
+
+        then:
+        loader.getStatementRows() == statementRows
+
+        where:
+        rowsPerStatement | maxParameters || statementRows
+        0                | 2100          || 1
+        1                | 2100          || 1
+        420              | 2100          || 420
+        421              | 2100          || 420
+        100000           | 65535         || 13107
+        2                | 5             || 1
+    }
+
+    def "Testing more columns than the parameter limit is rejected"() {
+        given:
+        def loader = new SqlBulkLoader(BulkTestBean.class)
+        loader.maxParameters = 4
+
+        when:
+        loader.load(Mock(Connection), [new BulkTestBean()])
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "Testing a failed rollback does not hide the insert failure"() {
+        given:
+        def connection = Mock(Connection)
+        def statement = Mock(PreparedStatement)
+        def insertFailure = new SQLException("insert failed")
+        def rollbackFailure = new SQLException("rollback failed")
+        connection.prepareStatement(_) >> statement
+        statement.executeBatch() >> { throw insertFailure }
+        connection.rollback() >> { throw rollbackFailure }
+
+        when:
+        new SqlBulkLoader(BulkTestBean.class).load(connection, [new BulkTestBean(account: "A1")])
+
+        then:
+        def e = thrown(SQLException)
+        e.is(insertFailure)
+        e.suppressed as List == [rollbackFailure]
+    }
+}
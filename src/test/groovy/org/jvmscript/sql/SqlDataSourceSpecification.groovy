@@ -0,0 +1,74 @@
+package org.jvmscript.sql
+
+import com.zaxxer.hikari.HikariDataSource
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+class SqlDataSourceSpecification extends Specification {
+
+    def "Testing name prefixed properties fall back to the db properties"() {
+        given:
+        def properties = new Properties()
+        properties.setProperty("warehouse.db.url", "jdbc:warehouse")
+        properties.setProperty("warehouse.db.pool.maxSize", "4")
+        properties.setProperty("db.url", "jdbc:default")
+        properties.setProperty("db.user", "loader")
+
+        expect:
+        SqlDataSource.getProperty(properties, name, key, defaultValue) == value
+
+        where:
+        name        | key               | defaultValue || value
+        "warehouse" | "db.url"          | null         || "jdbc:warehouse"
+        "warehouse" | "db.user"         | null         || "loader"
+        "warehouse" | "db.password"     | null         || null
+        "warehouse" | "db.pool.maxSize" | "10"         || "4"
+        "reporting" | "db.url"          | null         || "jdbc:default"
+        "reporting" | "db.pool.maxSize" | "10"         || "10"
+        "reporting" | "db.pool.minIdle" | "0"          || "0"
+    }
+
+    def "Testing async work runs at most maximum pool size at a time"() {
+        given:
+        def hikariDataSource = new HikariDataSource()
+        hikariDataSource.maximumPoolSize = 2
+        def dataSource = new SqlDataSource("async-test", hikariDataSource)
+        def running = new AtomicInteger()
+        def maxRunning = new AtomicInteger()
+        def gate = new CountDownLatch(1)
+
+        when:
+        def futures = (1..5).collect { value ->
+            dataSource.runAsync {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), { a, b -> Math.max(a, b) })
+                gate.await()
+                running.decrementAndGet()
+                value
+            }
+        }
+
+        then:
+        new PollingConditions(timeout: 5).eventually { assert running.get() == 2 }
+
+        when:
+        Thread.sleep(100)
+
+        then:
+        running.get() == 2
+        futures.count { it.isDone() } == 0
+
+        when:
+        gate.countDown()
+
+        then:
+        SqlUtility.joinAll(futures) == [1, 2, 3, 4, 5]
+        maxRunning.get() == 2
+
+        cleanup:
+        gate.countDown()
+        hikariDataSource.close()
+    }
+}
@@ -0,0 +1,93 @@
+package org.jvmscript.sql
+
+import org.apache.poi.ss.usermodel.CellType
+import org.apache.poi.xssf.usermodel.XSSFWorkbook
+import spock.lang.Specification
+
+import java.sql.ResultSet
+import java.sql.ResultSetMetaData
+import java.sql.Timestamp
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+class SqlExcelWriterSpecification extends Specification {
+
+    ResultSet resultSet(List<String> labels, List<List<Object>> rows) {
+        def metaData = Stub(ResultSetMetaData) {
+            getColumnCount() >> labels.size()
+            getColumnLabel(_ as Integer) >> { int column -> labels[column - 1] }
+        }
+        int rowIndex = -1
+        Stub(ResultSet) {
+            getMetaData() >> metaData
+            next() >> { ++rowIndex < rows.size() }
+            getObject(_ as Integer) >> { int column -> rows[rowIndex][column - 1] }
+        }
+    }
+
+    def "Testing sheets roll over at maxRowsPerSheet with the header repeated"() {
+        given:
+        def excelFile = File.createTempFile("export", ".xlsx")
+        def rows = (1..5).collect { ["A${it}".toString(), it] }
+        def writer = new SqlExcelWriter("Trades", true, 2, 3, "yyyy-mm-dd", "yyyy-mm-dd hh:mm:ss")
+
+        when:
+        def count = writer.write(excelFile.path, resultSet(["account", "quantity"], rows))
+        def workbook = excelFile.withInputStream { new XSSFWorkbook(it) }
+
+        then:
+        count == 5
+        workbook.numberOfSheets == 3
+        (0..2).collect { workbook.getSheetName(it) } == ["Trades", "Trades 2", "Trades 3"]
+        (0..2).every { workbook.getSheetAt(it).getRow(0).getCell(0).stringCellValue == "account" }
+        (0..2).collect { workbook.getSheetAt(it).lastRowNum } == [2, 2, 1]
+        workbook.getSheetAt(2).getRow(1).getCell(0).stringCellValue == "A5"
+        workbook.getSheetAt(2).getRow(1).getCell(1).numericCellValue == 5
+
+        cleanup:
+        workbook?.close()
+        excelFile?.delete()
+    }
+
+    def "Testing values are written as typed cells"() {
+        given:
+        def excelFile = File.createTempFile("export", ".xlsx")
+        def labels = ["account", "amount", "longId", "shortId", "bigAmount", "tradeDate", "settleTime", "localDate", "localDateTime", "active", "missing"]
+        def row = ["A1", new BigDecimal("1234.5"), 1234567890123456L, 123456789012345L, new BigDecimal("12345678901234567.89"),
+                   java.sql.Date.valueOf("2024-01-02"), Timestamp.valueOf("2024-01-02 09:30:00"),
+                   LocalDate.of(2024, 2, 29), LocalDateTime.of(2024, 2, 29, 23, 59, 59), true, null]
+        def writer = new SqlExcelWriter("Trades", false, 100, 1000, "yyyy-mm-dd", "yyyy-mm-dd hh:mm:ss")
+
+        when:
+        writer.write(excelFile.path, resultSet(labels, [row]))
+        def workbook = excelFile.withInputStream { new XSSFWorkbook(it) }
+        def cells = workbook.getSheetAt(0).getRow(0)
+
+        then:
+        workbook.getSheetAt(0).lastRowNum == 0
+        cells.getCell(0).cellType == CellType.STRING
+        cells.getCell(1).cellType == CellType.NUMERIC
+        cells.getCell(1).numericCellValue == 1234.5d
+        cells.getCell(2).cellType == CellType.STRING
+        cells.getCell(2).stringCellValue == "1234567890123456"
+        cells.getCell(3).cellType == CellType.NUMERIC
+        cells.getCell(3).numericCellValue == 123456789012345d
+        cells.getCell(4).cellType == CellType.STRING
+        cells.getCell(4).stringCellValue == "12345678901234567.89"
+        cells.getCell(5).localDateTimeCellValue == LocalDateTime.of(2024, 1, 2, 0, 0)
+        cells.getCell(5).cellStyle.dataFormatString == "yyyy-mm-dd"
+        cells.getCell(6).localDateTimeCellValue == LocalDateTime.of(2024, 1, 2, 9, 30)
+        cells.getCell(6).cellStyle.dataFormatString == "yyyy-mm-dd hh:mm:ss"
+        cells.getCell(7).localDateTimeCellValue == LocalDateTime.of(2024, 2, 29, 0, 0)
+        cells.getCell(7).cellStyle.dataFormatString == "yyyy-mm-dd"
+        cells.getCell(8).localDateTimeCellValue == LocalDateTime.of(2024, 2, 29, 23, 59, 59)
+        cells.getCell(8).cellStyle.dataFormatString == "yyyy-mm-dd hh:mm:ss"
+        cells.getCell(9).cellType == CellType.BOOLEAN
+        cells.getCell(9).booleanCellValue
+        cells.getCell(10) == null
+
+        cleanup:
+        workbook?.close()
+        excelFile?.delete()
+    }
+}
@@ -0,0 +1,67 @@
+package org.jvmscript.sql
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class SqlFileRegistrySpecification extends Specification {
+
+    File sqlFile
+
+    def setup() {
+        SqlFileRegistry.clear()
+        sqlFile = File.createTempFile("query", ".sql")
+        sqlFile.text = "select * from trades"
+    }
+
+    def cleanup() {
+        sqlFile.delete()
+        SqlFileRegistry.clear()
+    }
+
+    def "Testing an unchanged file returns the same sql instance"() {
+        when:
+        def first = SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8)
+        def second = SqlFileRegistry.getSql(new File(sqlFile.parentFile, "./" + sqlFile.name).path, StandardCharsets.UTF_8)
+
+        then:
+        first == "select * from trades"
+        second.is(first)
+    }
+
+    def "Testing the file is reloaded when its size or modified time changes"() {
+        given:
+        def first = SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8)
+        def lastModified = sqlFile.lastModified()
+
+        when:
+        sqlFile.text = "select * from trades where id = :p1"
+
+        then:
+        SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8) == "select * from trades where id = :p1"
+
+        when:
+        sqlFile.text = "select * from accounts where id = :p1"
+
+        then:
+        SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8) == "select * from accounts where id = :p1"
+
+        when:
+        sqlFile.text = "select * from payments where id = :p1"
+        sqlFile.setLastModified(lastModified + 10_000)
+
+        then:
+        SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8) == "select * from payments where id = :p1"
+        !SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8).is(first)
+    }
+
+    def "Testing the file is read in the given charset"() {
+        given:
+        sqlFile.bytes = "select * from trades where name = 'Zo\u00eb'".getBytes(StandardCharsets.ISO_8859_1)
+
+        expect:
+        SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.ISO_8859_1) == "select * from trades where name = 'Zo\u00eb'"
+        SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.UTF_8) != "select * from trades where name = 'Zo\u00eb'"
+        SqlFileRegistry.getSql(sqlFile.path, StandardCharsets.ISO_8859_1) == "select * from trades where name = 'Zo\u00eb'"
+    }
+}
@@ -0,0 +1,84 @@
+package org.jvmscript.sql
+
+import spock.lang.Specification
+
+class SqlMetricsSpecification extends Specification {
+
+    def "Testing bucket index and bucket value"() {
+        expect:
+        SqlMetrics.Histogram.bucketIndex(value) == index
+        SqlMetrics.Histogram.bucketValue(index) == lowerBound
+
+        where:
+        value          || index | lowerBound
+        0              || 0     | 0
+        15             || 15    | 15
+        16             || 16    | 16
+        31             || 31    | 31
+        33             || 32    | 32
+        47             || 39    | 46
+        100            || 57    | 100
+        1023           || 111   | 992
+        1024           || 112   | 1024
+        Long.MAX_VALUE || 959   | 8935141660703064064L
+    }
+
+    def "Testing every value falls in a bucket within 1/16 of it"() {
+        expect:
+        (0L..70000L).every { value ->
+            int index = SqlMetrics.Histogram.bucketIndex(value)
+            long lowerBound = SqlMetrics.Histogram.bucketValue(index)
+            lowerBound <= value && value - lowerBound <= value.intdiv(16) && SqlMetrics.Histogram.bucketIndex(lowerBound) == index
+        }
+    }
+
+    def "Testing percentiles"() {
+        given:
+        def histogram = new SqlMetrics.Histogram()
+        (1..100).each { histogram.record(it) }
+
+        expect:
+        histogram.getPercentile(0) == 1
+        histogram.getPercentile(50) == 50
+        histogram.getPercentile(95) == 92
+        histogram.getPercentile(100) == 100
+        histogram.getMin() == 1
+        histogram.getMax() == 100
+        histogram.getMean() == 50.5
+    }
+
+    def "Testing percentiles are clamped to the recorded min and max"() {
+        given:
+        def histogram = new SqlMetrics.Histogram()
+        [-5, 7, 7, 1000].each { histogram.record(it) }
+
+        expect:
+        histogram.getMin() == 0
+        histogram.getPercentile(50) == 7
+        histogram.getPercentile(75) == 7
+        histogram.getPercentile(76) == 1000
+        new SqlMetrics.Histogram().getPercentile(50) == 0
+    }
+
+    def "Testing fingerprint normalization"() {
+        expect:
+        SqlMetrics.fingerprint(sql) == fingerprint
+
+        where:
+        sql                                                                            || fingerprint
+        "SELECT  a,b FROM t WHERE x = 'it''s' AND y = 12.5 AND z IN (1, 2,3);"          || "select a, b from t where x = ? and y = ? and z in (?, ?, ?)"
+        "select a from t -- nightly\nwhere x = 1"                                      || "select a from t where x = ?"
+        "select a from t /* hint */ where x = 1"                                       || "select a from t where x = ?"
+        "select a from t where x>=? and y<>? and z != 3 and w || 'x' = ?"              || "select a from t where x >= ? and y <> ? and z != ? and w || ? = ?"
+        "update t set a=a+1 where b = 'x'"                                             || "update t set a = a + ? where b = ?"
+        'select "Col A" from T'                                                        || 'select "Col A" from t'
+        "select a::text from s.t where x = ? ;"                                        || "select a :: text from s.t where x = ?"
+    }
+
+    def "Testing statements that differ only in values share a fingerprint"() {
+        expect:
+        SqlMetrics.fingerprint("select * from t where a = 'A1' and b > 10") ==
+                SqlMetrics.fingerprint("Select *\n  From T Where A = 'B2' And B > 20.5")
+        SqlMetrics.fingerprint('select "a" from t') != SqlMetrics.fingerprint('select "A" from t')
+    }
+}
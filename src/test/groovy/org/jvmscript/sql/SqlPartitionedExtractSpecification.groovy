@@ -0,0 +1,91 @@
+package org.jvmscript.sql
+
+import spock.lang.Specification
+
+class SqlPartitionedExtractSpecification extends Specification {
+
+    SqlPartitionedExtract extract
+
+    def setup() {
+        extract = new SqlPartitionedExtract(null, "trade_id")
+    }
+
+    def "Testing partitions split the range with unbounded first and last partitions"() {
+        when:
+        extract.partitions = partitions
+        extract.partitionMin = min
+        extract.partitionMax = max
+        def partitionList = extract.getPartitions("/data/trades.csv", "select * from trades")
+
+        then:
+        partitionList.collect { [it.lowerBound, it.upperBound] } == bounds
+        partitionList.collect { it.number } == (1..bounds.size()).toList()
+
+        where:
+        partitions | min | max || bounds
+        4          | 1   | 100 || [[null, 26], [26, 51], [51, 76], [76, null]]
+        8          | 1   | 3   || [[null, 2], [2, 3], [3, null]]
+        4          | 5   | 5   || [[null, null]]
+        1          | 1   | 100 || [[null, null]]
+        0          | 1   | 100 || [[null, null]]
+        2          | -10 | 9   || [[null, 0], [0, null]]
+    }
+
+    def "Testing partition sql keeps the caller's parameters and sends nulls to the last partition"() {
+        when:
+        def partition = new SqlPartitionedExtract.Partition(lowerBound: lowerBound, upperBound: upperBound)
+        def partitionSql = extract.getPartitionSql("select * from trades where account = :p1 and side = :p2", partition, 2)
+
+        then:
+        partitionSql == "select * from (select * from trades where account = :p1 and side = :p2) partition_extract where " + where
+        extract.getPartitionParams(partition, ["A1", "B"] as Object[]) as List == params
+
+        where:
+        lowerBound | upperBound || where                                          | params
+        null       | 26L        || "trade_id < :p3"                               | ["A1", "B", 26L]
+        26L        | 51L        || "trade_id >= :p3 and trade_id < :p4"           | ["A1", "B", 26L, 51L]
+        76L        | null       || "trade_id >= :p3 or trade_id is null"          | ["A1", "B", 76L]
+        null       | null       || "1 = 1"                                        | ["A1", "B"]
+    }
+
+    def "Testing the trailing semicolon is removed from the wrapped query"() {
+        expect:
+        SqlPartitionedExtract.getSubquerySql(" select * from trades ; ;\n") == "select * from trades"
+    }
+
+    def "Testing part file names"() {
+        expect:
+        SqlPartitionedExtract.getPartFilename(filename, number) == partFilename
+
+        where:
+        filename                  | number || partFilename
+        "trades.csv"              | 1      || "trades.part001.csv"
+        "/data/trades.csv"        | 12     || "/data/trades.part012.csv"
+        "/data.v2/trades"         | 2      || "/data.v2/trades.part002"
+        "C:\\data.v2\\trades.txt" | 3      || "C:\\data.v2\\trades.part003.txt"
+        "trades"                  | 1      || "trades.part001"
+    }
+
+    def "Testing a failed extract deletes the part files and the output file"() {
+        given:
+        def output = File.createTempFile("extract", ".csv")
+        extract.partitionMin = 1
+        extract.partitionMax = 100
+        def partitionList = extract.getPartitions(output.path, "select * from trades")
+        partitionList.take(2).each { new File(it.filename).text = "partial" }
+        output.text = "partial"
+        def failure = new Exception("partition 3 failed")
+
+        when:
+        SqlPartitionedExtract.deleteOutputFiles(output.path, partitionList, failure)
+
+        then:
+        !output.exists()
+        partitionList.every { !new File(it.filename).exists() }
+        failure.suppressed.length == 0
+
+        cleanup:
+        output?.delete()
+        partitionList?.each { new File(it.filename).delete() }
+    }
+}
@@ -0,0 +1,168 @@
+package org.jvmscript.sql
+
+import org.sql2o.Sql2o
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.ResultSet
+import java.sql.ResultSetMetaData
+import java.sql.Types
+
+class SqlResultTableSpecification extends Specification {
+
+    /* columns are [label, sql type, precision, scale], wasNull reports the last value read */
+    ResultSet resultSet(List<List<Object>> columns, List<List<Object>> rows) {
+        def metaData = metaData(columns)
+        int rowIndex = -1
+        boolean lastNull = false
+        def cell = { int column ->
+            def value = rows[rowIndex][column - 1]
+            lastNull = value == null
+            value
+        }
+        Stub(ResultSet) {
+            getMetaData() >> metaData
+            next() >> { ++rowIndex < rows.size() }
+            getObject(_ as Integer) >> { int column -> cell(column) }
+            getString(_ as Integer) >> { int column -> cell(column)?.toString() }
+            getInt(_ as Integer) >> { int column -> (cell(column) ?: 0) as int }
+            getLong(_ as Integer) >> { int column -> (cell(column) ?: 0) as long }
+            getDouble(_ as Integer) >> { int column -> (cell(column) ?: 0) as double }
+            wasNull() >> { lastNull }
+        }
+    }
+
+    ResultSetMetaData metaData(List<List<Object>> columns) {
+        Stub(ResultSetMetaData) {
+            getColumnCount() >> columns.size()
+            getColumnLabel(_ as Integer) >> { int column -> columns[column - 1][0] }
+            getColumnType(_ as Integer) >> { int column -> columns[column - 1][1] }
+            getPrecision(_ as Integer) >> { int column -> columns[column - 1][2] }
+            getScale(_ as Integer) >> { int column -> columns[column - 1][3] }
+        }
+    }
+
+    static final List<List<Object>> TRADE_COLUMNS = [["id", Types.INTEGER, 10, 0],
+                                                     ["quantity", Types.DECIMAL, 12, 0],
+                                                     ["price", Types.DOUBLE, 15, 0],
+                                                     ["account", Types.VARCHAR, 20, 0],
+                                                     ["amount", Types.DECIMAL, 12, 2],
+                                                     ["tradeDate", Types.DATE, 10, 0]]
+
+    static final List<List<Object>> TRADE_ROWS = [[1, new BigDecimal("100"), 1.5d, "A1", new BigDecimal("150.25"), java.sql.Date.valueOf("2024-01-02")],
+                                                  [2, null, null, "A2", null, null],
+                                                  [null, new BigDecimal("-7"), 0d, "A1", new BigDecimal("0.10"), java.sql.Date.valueOf("2024-01-03")],
+                                                  [4, new BigDecimal("0"), 2.25d, null, new BigDecimal("-1.00"), java.sql.Date.valueOf("2024-01-04")]]
+
+    def "Testing jdbc types map to column types"() {
+        expect:
+        SqlResultTable.newColumn(metaData([["value", sqlType, precision, scale]]), 1).getClass() == columnClass
+
+        where:
+        sqlType       | precision | scale || columnClass
+        Types.TINYINT | 3         | 0     || SqlResultTable.IntColumn
+        Types.INTEGER | 10        | 0     || SqlResultTable.IntColumn
+        Types.BIGINT  | 19        | 0     || SqlResultTable.LongColumn
+        Types.DOUBLE  | 15        | 0     || SqlResultTable.DoubleColumn
+        Types.REAL    | 7         | 0     || SqlResultTable.DoubleColumn
+        Types.DECIMAL | 18        | 0     || SqlResultTable.LongColumn
+        Types.NUMERIC | 1         | 0     || SqlResultTable.LongColumn
+        Types.DECIMAL | 19        | 0     || SqlResultTable.ObjectColumn
+        Types.DECIMAL | 12        | 2     || SqlResultTable.ObjectColumn
+        Types.NUMERIC | 0         | 0     || SqlResultTable.ObjectColumn
+        Types.VARCHAR | 20        | 0     || SqlResultTable.StringColumn
+        Types.NCHAR   | 1         | 0     || SqlResultTable.StringColumn
+        Types.DATE    | 10        | 0     || SqlResultTable.ObjectColumn
+    }
+
+    def "Testing values, nulls and dictionary codes are read by column type"() {
+        when:
+        def table = SqlResultTable.read(resultSet(TRADE_COLUMNS, TRADE_ROWS))
+        def id = table.getColumn("ID") as SqlResultTable.IntColumn
+        def quantity = table.getColumn("quantity") as SqlResultTable.LongColumn
+        def price = table.getColumn("price") as SqlResultTable.DoubleColumn
+        def account = table.getColumn("account") as SqlResultTable.StringColumn
+
+        then:
+        table.rowCount == 4
+        table.columnNames as List == ["id", "quantity", "price", "account", "amount", "tradeDate"]
+
+        (0..3).collect { id.isNull(it) } == [false, false, true, false]
+        id.getObject(2) == null
+        id.getInt(3) == 4
+
+        quantity.getLong(2) == -7
+        quantity.getObject(0) instanceof BigDecimal
+        quantity.getObject(0) == new BigDecimal("100")
+        quantity.getObject(3) == BigDecimal.ZERO
+        quantity.isNull(1)
+        quantity.getObject(1) == null
+
+        price.getDouble(3) == 2.25d
+        !price.isNull(2)
+        price.isNull(1)
+
+        (0..3).collect { account.getCode(it) } == [0, 1, 0, -1]
+        account.distinctCount == 2
+        account.getString(2).is(account.getString(0))
+        account.isNull(3)
+
+        table.getColumn("amount").getObject(0) == new BigDecimal("150.25")
+        table.getColumn("amount").isNull(1)
+        table.getColumn("tradeDate").getObject(2) == java.sql.Date.valueOf("2024-01-03")
+    }
+
+    def "Testing columns grow past the initial capacity"() {
+        given:
+        def rows = (0..<2500).collect { [it, "K${it % 3}".toString()] }
+
+        when:
+        def table = SqlResultTable.read(resultSet([["id", Types.INTEGER, 10, 0], ["key", Types.VARCHAR, 2, 0]], rows))
+        def cursor = table.cursor()
+        long idSum = 0
+        int rowCount = 0
+        while (cursor.next()) {
+            idSum += cursor.getLong("id")
+            assert cursor.getString(1) == "K${cursor.row % 3}"
+            rowCount++
+        }
+
+        then:
+        table.rowCount == 2500
+        rowCount == 2500
+        idSum == (0..<2500).sum()
+        (table.getColumn("key") as SqlResultTable.StringColumn).distinctCount == 3
+        table.getColumn("id").getObject(2499) == 2499
+    }
+
+    def "Testing toRowList and genericSqlQuery return a header row then values in select order"() {
+        given:
+        def statement = Stub(PreparedStatement) {
+            executeQuery() >> resultSet(TRADE_COLUMNS, TRADE_ROWS)
+        }
+        def jdbcConnection = Stub(Connection) {
+            prepareStatement(_ as String, _ as Integer, _ as Integer) >> statement
+        }
+        def dataSource = Stub(DataSource) {
+            getConnection() >> jdbcConnection
+        }
+
+        when:
+        def rowList = SqlResultTable.read(resultSet(TRADE_COLUMNS, TRADE_ROWS)).toRowList()
+        def connection = new Sql2o(dataSource).open()
+        def genericRows = SqlUtility.genericSqlQuery(connection, "select * from trades where account in (:p1)", ["A1", "A2"])
+
+        then:
+        rowList[0] == ["id", "quantity", "price", "account", "amount", "tradeDate"]
+        rowList.size() == 5
+        rowList[1] == TRADE_ROWS[0]
+        rowList[2] == TRADE_ROWS[1]
+        genericRows == [["id", "quantity", "price", "account", "amount", "tradeDate"]] + TRADE_ROWS
+        rowList == genericRows
+
+        cleanup:
+        connection?.close()
+    }
+}
@@ -0,0 +1,45 @@
+package org.jvmscript.sql
+
+import spock.lang.Specification
+
+class SqlStatementCacheSpecification extends Specification {
+
+    def "Testing the least recently used entry is evicted and closed"() {
+        given:
+        def closed = []
+        def cache = new SqlStatementCache.LruMap<String>(2, { closed << it })
+
+        when:
+        cache.put("select 1", "q1")
+        cache.put("select 2", "q2")
+        cache.get("select 1")
+        cache.put("select 3", "q3")
+
+        then:
+        closed == ["q2"]
+        cache.keySet() as List == ["select 1", "select 3"]
+
+        when:
+        cache.put("select 4", "q4")
+
+        then:
+        closed == ["q2", "q1"]
+        cache.keySet() as List == ["select 3", "select 4"]
+    }
+
+    def "Testing nothing is closed while the cache is under its size"() {
+        given:
+        def closed = []
+        def cache = new SqlStatementCache.LruMap<String>(3, { closed << it })
+
+        when:
+        cache.put("select 1", "q1")
+        cache.put("select 2", "q2")
+        cache.put("select 1", "q1 again")
+
+        then:
+        closed.isEmpty()
+        cache.size() == 2
+        cache.get("select 1") == "q1 again"
+    }
+}
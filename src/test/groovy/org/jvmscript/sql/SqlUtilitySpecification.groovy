@@ -0,0 +1,43 @@
+package org.jvmscript.sql
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+class SqlUtilitySpecification extends Specification {
+
+    def "Testing joinAll keeps results in future order"() {
+        given:
+        def first = new CompletableFuture<String>()
+        def second = CompletableFuture.completedFuture("second")
+        Thread.start {
+            Thread.sleep(50)
+            first.complete("first")
+        }
+
+        expect:
+        SqlUtility.joinAll([first, second]) == ["first", "second"]
+    }
+
+    def "Testing joinAll rethrows the first failure after every future has finished"() {
+        given:
+        def slow = new CompletableFuture<String>()
+        def failed = CompletableFuture.<String>failedFuture(new IOException("first failure"))
+        def failedLater = new CompletableFuture<String>()
+        Thread.start {
+            Thread.sleep(100)
+            failedLater.completeExceptionally(new IllegalStateException("second failure"))
+            Thread.sleep(100)
+            slow.complete("slow")
+        }
+
+        when:
+        SqlUtility.joinAll([slow, failedLater, failed])
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "second failure"
+        slow.isDone()
+        failed.isDone()
+    }
+}